@@ -2,8 +2,11 @@ package astar;
 
 import edu.princeton.cs.algs4.Stopwatch;
 import heap.ArrayHeapMinPQ;
+import heap.ExtrinsicMinPQ;
+import heap.IntArrayHeapMinPQ;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
@@ -18,13 +21,15 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
     private double timeSpent;
 
     private HashMap<Vertex, VInfo> visited;
-    private ArrayHeapMinPQ<Vertex> fringe;
+    private ExtrinsicMinPQ<Vertex> fringe;
 
     private class VInfo {
-        private Double distTo;
+        private double distTo;
         private Vertex edgeTo;
+        // set once the vertex is removed from the fringe, which never reopens it
+        private boolean closed;
 
-        VInfo(Double d, Vertex e) {
+        VInfo(double d, Vertex e) {
             this.distTo = d;
             this.edgeTo = e;
         }
@@ -34,13 +39,39 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
      * Immediately solves and stores the result of running memory optimized A*
      * search, computing everything necessary for all other methods to return
      * their results in constant time. The timeout is given in seconds.
+     * If the graph is an IndexedAStarGraph, the search keeps its state in the
+     * arrays of this thread's SearchWorkspace instead of a HashMap and an
+     * ArrayHeapMinPQ, and
+     * if it is an IntAStarGraph (e.g. CompactStreetMapGraph) it also walks the
+     * edges by index instead of through neighbors.
      */
+    @SuppressWarnings("unchecked")
     public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout) {
-        // initialization of the internal data structure and timer
         Stopwatch sw = new Stopwatch();
-        visited = new HashMap<>();
-        fringe = new ArrayHeapMinPQ<>();
         solution = new ArrayList<>();
+        if (input instanceof IndexedAStarGraph) {
+            solveIndexed((IndexedAStarGraph<Vertex>) input, start, end, timeout, sw);
+        } else {
+            solve(input, start, end, timeout, new ArrayHeapMinPQ<>(), sw);
+        }
+    }
+
+    /**
+     * Same as above, but runs the search using the given (empty) priority queue
+     * as the fringe, e.g. a DAryHeapMinPQ instead of the default ArrayHeapMinPQ.
+     */
+    public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                       ExtrinsicMinPQ<Vertex> fringe) {
+        Stopwatch sw = new Stopwatch();
+        solution = new ArrayList<>();
+        solve(input, start, end, timeout, fringe, sw);
+    }
+
+    private void solve(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                       ExtrinsicMinPQ<Vertex> pq, Stopwatch sw) {
+        // initialization of the internal data structure
+        visited = new HashMap<>();
+        fringe = pq;
 
         // add the start Vertex into internal data structure as a beginning
         numState = 0;
@@ -49,11 +80,11 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
         // visit all the vertex in the Priority Queue until time out.
         Vertex currV;
         VInfo currInfo;
-        double currDis;
         while (fringe.size() != 0 && sw.elapsedTime() < timeout) {
             // get next vertex in the PQ
             currV = fringe.removeSmallest();
             currInfo = visited.get(currV);
+            currInfo.closed = true;
 
             // if the current vertex is the target return
             if (currV.equals(end)) {
@@ -62,8 +93,9 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
                 while (currInfo.edgeTo != null) {
                     currV = currInfo.edgeTo;
                     currInfo = visited.get(currV);
-                    solution.add(0, currV);
+                    solution.add(currV);
                 }
+                Collections.reverse(solution);
                 outcome = SolverOutcome.SOLVED;
                 timeSpent = sw.elapsedTime();
                 return;
@@ -80,29 +112,99 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
         }
 
         // if not return in the loop, outcome is unsolvable or timeouts
-        if (fringe.isEmpty()) {
-            outcome = SolverOutcome.UNSOLVABLE;
-        } else {
-            outcome = SolverOutcome.TIMEOUT;
-        }
-        timeSpent = sw.elapsedTime();
+        finish(fringe.isEmpty(), sw);
     }
 
     private void relax(Vertex v, double weight, Vertex from, double h) {
         VInfo info = visited.get(v);
-        if (info != null) {
-            if (weight < info.distTo) {
-                info.distTo = weight;
-                info.edgeTo = from;
-                if (fringe.contains(v)) {
-                    fringe.changePriority(v, weight + h);
+        if (info == null) {
+            visited.put(v, new VInfo(weight, from));
+        } else if (weight < info.distTo) {
+            info.distTo = weight;
+            info.edgeTo = from;
+            if (info.closed) {
+                return;
+            }
+        } else {
+            return;
+        }
+        // one fringe lookup: v is either new or still in the fringe
+        fringe.addOrDecrease(v, weight + h);
+    }
+
+    /**
+     * Same search as solve, with distTo/edgeTo and the fringe kept in this
+     * thread's SearchWorkspace, so that repeated searches allocate nothing but
+     * the solution. If the graph is an IntAStarGraph, its edges are walked by
+     * index, so expanding a vertex allocates nothing either.
+     */
+    private void solveIndexed(IndexedAStarGraph<Vertex> input, Vertex start, Vertex end,
+                              double timeout, Stopwatch sw) {
+        SearchWorkspace ws = SearchWorkspace.local(0, input.numVertices());
+        IntArrayHeapMinPQ pq = ws.fringe();
+        IntAStarGraph<Vertex> csr = input instanceof IntAStarGraph ? (IntAStarGraph<Vertex>) input : null;
+
+        int s = input.indexOf(start);
+        int t = input.indexOf(end);
+        numState = 0;
+        ws.set(s, 0, -1);
+        pq.add(s, input.estimatedDistanceToGoal(start, end));
+
+        while (!pq.isEmpty() && sw.elapsedTime() < timeout) {
+            int u = pq.removeSmallest();
+            if (u == t) {
+                solutionWeight = ws.dist(t);
+                for (int v = t; v != -1; v = ws.parent(v)) {
+                    solution.add(input.vertexAt(v));
                 }
+                Collections.reverse(solution);
+                outcome = SolverOutcome.SOLVED;
+                timeSpent = sw.elapsedTime();
+                return;
             }
+            numState++;
+
+            double distU = ws.dist(u);
+            if (csr != null) {
+                for (int e = csr.edgeStart(u), last = csr.edgeEnd(u); e < last; e++) {
+                    int v = csr.edgeTarget(e);
+                    double weight = distU + csr.edgeWeight(e);
+                    if (weight < ws.dist(v)) {
+                        relaxIndexed(ws, u, v, weight, csr.estimatedDistanceToGoal(v, t));
+                    }
+                }
+            } else {
+                for (WeightedEdge<Vertex> e : input.neighbors(input.vertexAt(u))) {
+                    int v = input.indexOf(e.to());
+                    double weight = distU + e.weight();
+                    if (weight < ws.dist(v)) {
+                        relaxIndexed(ws, u, v, weight, input.estimatedDistanceToGoal(e.to(), end));
+                    }
+                }
+            }
+        }
+        finish(pq.isEmpty(), sw);
+    }
+
+    /** Records the shorter distance weight to v through u, and updates v in the fringe. */
+    private static void relaxIndexed(SearchWorkspace ws, int u, int v, double weight, double h) {
+        boolean seen = ws.seen(v);
+        ws.set(v, weight, u);
+        IntArrayHeapMinPQ pq = ws.fringe();
+        if (!seen) {
+            pq.add(v, weight + h);
+        } else if (pq.contains(v)) {
+            pq.changePriority(v, weight + h);
+        }
+    }
+
+    private void finish(boolean exhausted, Stopwatch sw) {
+        if (exhausted) {
+            outcome = SolverOutcome.UNSOLVABLE;
         } else {
-            info = new VInfo(weight, from);
-            visited.put(v, info);
-            fringe.add(v, weight + h);
+            outcome = SolverOutcome.TIMEOUT;
         }
+        timeSpent = sw.elapsedTime();
     }
 
     @Override
@@ -0,0 +1,20 @@
+package astar;
+
+/**
+ * An IntAStarGraph that can also walk its edges backwards. The incoming edges
+ * of vertex v are numbered reverseEdgeStart(v) to reverseEdgeEnd(v) - 1.
+ * Used by BidirectionalAStarSolver to search from the goal towards the start.
+ */
+public interface BidirectionalAStarGraph<Vertex> extends IntAStarGraph<Vertex> {
+    /** Returns the index of the first incoming edge of vertex v. */
+    int reverseEdgeStart(int v);
+
+    /** Returns one past the index of the last incoming edge of vertex v. */
+    int reverseEdgeEnd(int v);
+
+    /** Returns the index of the vertex that incoming edge e comes from. */
+    int reverseEdgeSource(int e);
+
+    /** Returns the weight of incoming edge e. */
+    double reverseEdgeWeight(int e);
+}
@@ -0,0 +1,186 @@
+package astar;
+
+import edu.princeton.cs.algs4.Stopwatch;
+import heap.IntArrayHeapMinPQ;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bidirectional A* search: one search runs forward from the start and one
+ * backward from the goal over the incoming edges, each time expanding the
+ * side whose next vertex has the smaller priority, until they meet.
+ *
+ * Both sides use the average potential p(v) = (h(v, goal) - h(v, start)) / 2,
+ * the forward side with priority distTo + p(v) and the backward side with
+ * distFrom - p(v). Since the two potentials sum to zero, both searches run
+ * Dijkstra on the same reduced edge weights, and the search can stop once the
+ * two smallest priorities add up to at least the best path seen so far.
+ * The heuristic must be consistent, as great-circle distance is on a street map.
+ *
+ * @see ShortestPathsSolver for more method documentation
+ */
+public class BidirectionalAStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
+    private SolverOutcome outcome;
+    private double solutionWeight;
+    private List<Vertex> solution;
+    private int numState;
+    private double timeSpent;
+
+    private BidirectionalAStarGraph<Vertex> input;
+    private int s;
+    private int t;
+    // the forward search also memoizes the potentials
+    private SearchWorkspace to;
+    private SearchWorkspace from;
+    private IntArrayHeapMinPQ forward;
+    private IntArrayHeapMinPQ backward;
+    // best path length seen so far and the vertex where it meets
+    private double best;
+    private int meet;
+
+    /**
+     * Immediately solves and stores the result of running bidirectional A*
+     * search, computing everything necessary for all other methods to return
+     * their results in constant time. The timeout is given in seconds.
+     * Both searches keep their state in this thread's SearchWorkspaces, so
+     * repeated searches allocate nothing but the solution.
+     */
+    public BidirectionalAStarSolver(BidirectionalAStarGraph<Vertex> input, Vertex start, Vertex end,
+                                    double timeout) {
+        Stopwatch sw = new Stopwatch();
+        solution = new ArrayList<>();
+        solutionWeight = Double.POSITIVE_INFINITY;
+        this.input = input;
+        int n = input.numVertices();
+        s = input.indexOf(start);
+        t = input.indexOf(end);
+        to = SearchWorkspace.local(0, n);
+        from = SearchWorkspace.local(1, n);
+        forward = to.fringe();
+        backward = from.fringe();
+        best = Double.POSITIVE_INFINITY;
+        meet = -1;
+
+        numState = 0;
+        to.set(s, 0, -1);
+        forward.add(s, potential(s));
+        from.set(t, 0, -1);
+        backward.add(t, -potential(t));
+        if (s == t) {
+            best = 0;
+            meet = s;
+        }
+
+        while (!forward.isEmpty() && !backward.isEmpty() && sw.elapsedTime() < timeout) {
+            double f = forward.smallestPriority();
+            double b = backward.smallestPriority();
+            if (f + b >= best) {
+                break;
+            }
+            numState++;
+            if (f <= b) {
+                expandForward(forward.removeSmallest());
+            } else {
+                expandBackward(backward.removeSmallest());
+            }
+        }
+
+        if (meet != -1 && (forward.isEmpty() || backward.isEmpty()
+                || forward.smallestPriority() + backward.smallestPriority() >= best)) {
+            solutionWeight = best;
+            for (int v = meet; v != -1; v = to.parent(v)) {
+                solution.add(input.vertexAt(v));
+            }
+            Collections.reverse(solution);
+            for (int v = from.parent(meet); v != -1; v = from.parent(v)) {
+                solution.add(input.vertexAt(v));
+            }
+            outcome = SolverOutcome.SOLVED;
+        } else if (forward.isEmpty() || backward.isEmpty()) {
+            outcome = SolverOutcome.UNSOLVABLE;
+        } else {
+            outcome = SolverOutcome.TIMEOUT;
+        }
+        timeSpent = sw.elapsedTime();
+    }
+
+    /** Returns the average potential of v, computing it on first use. */
+    private double potential(int v) {
+        double p = to.memo(v);
+        if (Double.isNaN(p)) {
+            p = (input.estimatedDistanceToGoal(v, t) - input.estimatedDistanceToGoal(v, s)) / 2;
+            to.memo(v, p);
+        }
+        return p;
+    }
+
+    private void expandForward(int u) {
+        double distU = to.dist(u);
+        for (int e = input.edgeStart(u), last = input.edgeEnd(u); e < last; e++) {
+            int v = input.edgeTarget(e);
+            double weight = distU + input.edgeWeight(e);
+            if (weight < to.dist(v)) {
+                boolean seen = to.seen(v);
+                to.set(v, weight, u);
+                if (!seen) {
+                    forward.add(v, weight + potential(v));
+                } else if (forward.contains(v)) {
+                    forward.changePriority(v, weight + potential(v));
+                }
+                if (weight + from.dist(v) < best) {
+                    best = weight + from.dist(v);
+                    meet = v;
+                }
+            }
+        }
+    }
+
+    private void expandBackward(int u) {
+        double distU = from.dist(u);
+        for (int e = input.reverseEdgeStart(u), last = input.reverseEdgeEnd(u); e < last; e++) {
+            int v = input.reverseEdgeSource(e);
+            double weight = distU + input.reverseEdgeWeight(e);
+            if (weight < from.dist(v)) {
+                boolean seen = from.seen(v);
+                from.set(v, weight, u);
+                if (!seen) {
+                    backward.add(v, weight - potential(v));
+                } else if (backward.contains(v)) {
+                    backward.changePriority(v, weight - potential(v));
+                }
+                if (weight + to.dist(v) < best) {
+                    best = weight + to.dist(v);
+                    meet = v;
+                }
+            }
+        }
+    }
+
+    @Override
+    public SolverOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public List<Vertex> solution() {
+        return solution;
+    }
+
+    @Override
+    public double solutionWeight() {
+        return solutionWeight;
+    }
+
+    /** The total number of vertices expanded by either search. */
+    @Override
+    public int numStatesExplored() {
+        return numState;
+    }
+
+    @Override
+    public double explorationTime() {
+        return timeSpent;
+    }
+}
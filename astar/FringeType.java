@@ -0,0 +1,56 @@
+package astar;
+
+import heap.ArrayHeapMinPQ;
+import heap.DAryHeapMinPQ;
+import heap.ExtrinsicMinPQ;
+import heap.NaiveMinPQ;
+import heap.PairingHeapMinPQ;
+import heap.RadixHeapMinPQ;
+
+/**
+ * The ExtrinsicMinPQ implementations a solver can use as its fringe. Pass
+ * type.create() to the AStarSolver constructor that takes a fringe.
+ */
+public enum FringeType {
+    /** Linear-time operations; only useful for testing. */
+    NAIVE {
+        @Override
+        public <T> ExtrinsicMinPQ<T> create() {
+            return new NaiveMinPQ<>();
+        }
+    },
+    TREE_MAP {
+        @Override
+        public <T> ExtrinsicMinPQ<T> create() {
+            return new TreeMapMinPQ<>();
+        }
+    },
+    ARRAY_HEAP {
+        @Override
+        public <T> ExtrinsicMinPQ<T> create() {
+            return new ArrayHeapMinPQ<>();
+        }
+    },
+    DARY_HEAP {
+        @Override
+        public <T> ExtrinsicMinPQ<T> create() {
+            return new DAryHeapMinPQ<>();
+        }
+    },
+    PAIRING_HEAP {
+        @Override
+        public <T> ExtrinsicMinPQ<T> create() {
+            return new PairingHeapMinPQ<>();
+        }
+    },
+    /** Only valid when priorities never drop below the last removed one, e.g. A* with a consistent heuristic. */
+    RADIX_HEAP {
+        @Override
+        public <T> ExtrinsicMinPQ<T> create() {
+            return new RadixHeapMinPQ<>();
+        }
+    };
+
+    /** Returns a new, empty priority queue of this kind. */
+    public abstract <T> ExtrinsicMinPQ<T> create();
+}
@@ -0,0 +1,17 @@
+package astar;
+
+/**
+ * Represents a graph whose vertices can be numbered densely from 0 to
+ * numVertices() - 1. Solvers can use the numbering to keep per-vertex state in
+ * plain arrays instead of hash maps.
+ */
+public interface IndexedAStarGraph<Vertex> extends AStarGraph<Vertex> {
+    /** Returns the number of vertices; every index is in [0, numVertices()). */
+    int numVertices();
+
+    /** Returns the index of the given vertex. */
+    int indexOf(Vertex v);
+
+    /** Returns the vertex with the given index. */
+    Vertex vertexAt(int index);
+}
@@ -0,0 +1,28 @@
+package astar;
+
+/**
+ * An IndexedAStarGraph that also exposes its edges by integer index, so a
+ * solver can walk them without allocating WeightedEdge objects or lists.
+ * The outgoing edges of vertex v are numbered edgeStart(v) to edgeEnd(v) - 1:
+ *
+ *     for (int e = g.edgeStart(v); e < g.edgeEnd(v); e += 1) {
+ *         int w = g.edgeTarget(e);
+ *         double weight = g.edgeWeight(e);
+ *     }
+ */
+public interface IntAStarGraph<Vertex> extends IndexedAStarGraph<Vertex> {
+    /** Returns the index of the first outgoing edge of vertex v. */
+    int edgeStart(int v);
+
+    /** Returns one past the index of the last outgoing edge of vertex v. */
+    int edgeEnd(int v);
+
+    /** Returns the index of the vertex that edge e points to. */
+    int edgeTarget(int e);
+
+    /** Returns the weight of edge e. */
+    double edgeWeight(int e);
+
+    /** Same as estimatedDistanceToGoal, with both vertices given by index. */
+    double estimatedDistanceToGoal(int v, int goal);
+}
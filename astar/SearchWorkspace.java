@@ -0,0 +1,127 @@
+package astar;
+
+import heap.IntArrayHeapMinPQ;
+
+import java.util.Arrays;
+
+/**
+ * The per-vertex state of a search over an IndexedAStarGraph: a distance and a
+ * parent for every vertex, and an IntArrayHeapMinPQ fringe. A vertex has been
+ * seen iff its stamp equals the current generation, so reset() forgets every
+ * vertex in O(1) time instead of refilling the arrays, and repeated searches on
+ * the same graph allocate nothing.
+ *
+ * A workspace is not thread-safe. Solvers take theirs from local(), which keeps
+ * a few per thread; a search must be done with its workspace before anything
+ * on the same thread asks for the same slot again.
+ */
+public class SearchWorkspace {
+    /** Number of workspaces local() keeps per thread, e.g. one per search direction. */
+    public static final int NUM_SLOTS = 2;
+
+    private static final ThreadLocal<SearchWorkspace[]> LOCAL =
+            ThreadLocal.withInitial(() -> new SearchWorkspace[NUM_SLOTS]);
+
+    private final double[] dist;
+    private final int[] parent;
+    private final int[] stamp;
+    private final IntArrayHeapMinPQ fringe;
+    private int generation;
+    // per-vertex values a solver computes once per search, e.g. its heuristic
+    private double[] memo;
+    private int[] memoStamp;
+
+    /** Creates a workspace for vertices in [0, capacity). */
+    public SearchWorkspace(int capacity) {
+        dist = new double[capacity];
+        parent = new int[capacity];
+        stamp = new int[capacity];
+        fringe = new IntArrayHeapMinPQ(capacity);
+        // stamps start at 0, so no vertex has been seen yet
+        generation = 1;
+    }
+
+    /**
+     * Returns the calling thread's workspace in the given slot, reset, with
+     * room for at least n vertices. Only allocates the first time, or when n is
+     * larger than any graph the thread searched before.
+     * @throws IndexOutOfBoundsException if slot is not in [0, NUM_SLOTS)
+     */
+    public static SearchWorkspace local(int slot, int n) {
+        SearchWorkspace[] workspaces = LOCAL.get();
+        SearchWorkspace workspace = workspaces[slot];
+        if (workspace == null || workspace.capacity() < n) {
+            workspace = new SearchWorkspace(n);
+            workspaces[slot] = workspace;
+        }
+        workspace.reset();
+        return workspace;
+    }
+
+    /** Returns the exclusive upper bound on vertices. */
+    public int capacity() {
+        return stamp.length;
+    }
+
+    /**
+     * Forgets every vertex and empties the fringe.
+     * Runs in O(1) time plus O(N) in the size of the fringe.
+     */
+    public void reset() {
+        fringe.clear();
+        generation += 1;
+        if (generation == Integer.MAX_VALUE) {
+            // once every 2^31 searches, so the stamps of old searches never match
+            Arrays.fill(stamp, 0);
+            if (memoStamp != null) {
+                Arrays.fill(memoStamp, 0);
+            }
+            generation = 1;
+        }
+    }
+
+    /** Returns whether v has been given a distance since the last reset. */
+    public boolean seen(int v) {
+        return stamp[v] == generation;
+    }
+
+    /** Returns the distance of v, or infinity if it has not been seen. */
+    public double dist(int v) {
+        return stamp[v] == generation ? dist[v] : Double.POSITIVE_INFINITY;
+    }
+
+    /** Returns the parent of v, or -1 if it has none. Assumes v has been seen. */
+    public int parent(int v) {
+        return parent[v];
+    }
+
+    /** Sets the distance of v and its parent, -1 for none, marking v seen. */
+    public void set(int v, double distance, int from) {
+        stamp[v] = generation;
+        dist[v] = distance;
+        parent[v] = from;
+    }
+
+    /** Returns the fringe, empty right after a reset. */
+    public IntArrayHeapMinPQ fringe() {
+        return fringe;
+    }
+
+    /** Returns the value memoized for v since the last reset, or NaN if there is none. */
+    public double memo(int v) {
+        if (memoStamp == null || memoStamp[v] != generation) {
+            return Double.NaN;
+        }
+        return memo[v];
+    }
+
+    /** Memoizes value for v until the next reset. */
+    public void memo(int v, double value) {
+        if (memoStamp == null) {
+            memo = new double[capacity()];
+            memoStamp = new int[capacity()];
+        }
+        memoStamp[v] = generation;
+        memo[v] = value;
+    }
+}
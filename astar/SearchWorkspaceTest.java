@@ -0,0 +1,56 @@
+package astar;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SearchWorkspaceTest {
+
+    @Test
+    public void testResetForgetsVertices() {
+        SearchWorkspace ws = new SearchWorkspace(4);
+        ws.set(2, 1.5, 0);
+        ws.fringe().add(2, 1.5);
+        ws.memo(3, 7.0);
+        assertTrue(ws.seen(2));
+        assertEquals(1.5, ws.dist(2), 0.0);
+        assertEquals(0, ws.parent(2));
+        assertEquals(7.0, ws.memo(3), 0.0);
+        assertFalse(ws.seen(1));
+        assertEquals(Double.POSITIVE_INFINITY, ws.dist(1), 0.0);
+        assertTrue(Double.isNaN(ws.memo(1)));
+
+        ws.reset();
+        assertFalse(ws.seen(2));
+        assertEquals(Double.POSITIVE_INFINITY, ws.dist(2), 0.0);
+        assertTrue(Double.isNaN(ws.memo(3)));
+        assertTrue(ws.fringe().isEmpty());
+    }
+
+    @Test
+    public void testLocalReusesAndGrows() {
+        SearchWorkspace small = SearchWorkspace.local(0, 10);
+        small.set(5, 1, -1);
+        SearchWorkspace again = SearchWorkspace.local(0, 8);
+        assertSame(small, again);
+        assertFalse(again.seen(5));
+        assertNotSame(again, SearchWorkspace.local(1, 8));
+        SearchWorkspace bigger = SearchWorkspace.local(0, 100);
+        assertTrue(bigger.capacity() >= 100);
+        assertSame(bigger, SearchWorkspace.local(0, 10));
+    }
+
+    @Test
+    public void testLocalIsPerThread() throws InterruptedException {
+        SearchWorkspace mine = SearchWorkspace.local(0, 10);
+        SearchWorkspace[] theirs = new SearchWorkspace[1];
+        Thread t = new Thread(() -> theirs[0] = SearchWorkspace.local(0, 10));
+        t.start();
+        t.join();
+        assertNotSame(mine, theirs[0]);
+    }
+}
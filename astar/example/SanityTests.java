@@ -81,4 +81,22 @@ public class SanityTests {
         SolverOutcome expectedOutcome = SolverOutcome.UNSOLVABLE;
         assertEquals(expectedOutcome, actualOutcome);
     }
+
+    @Test
+    public void testRepeatedSearches() {
+        // later searches reuse the state of earlier ones, on a smaller graph too
+        WeightedDirectedGraph wdg = lectureGraph();
+        WeightedDirectedGraph small = new WeightedDirectedGraph(2);
+        small.addEdge(1, 0, 3);
+        for (int i = 0; i < 3; i += 1) {
+            ShortestPathsSolver<Integer> solver = new AStarSolver<>(wdg, 0, 6, 10);
+            assertEquals(List.of(0, 1, 4, 6), solver.solution());
+            assertEquals(10.0, solver.solutionWeight());
+            solver = new AStarSolver<>(wdg, 6, 0, 10);
+            assertEquals(SolverOutcome.UNSOLVABLE, solver.outcome());
+            solver = new AStarSolver<>(small, 1, 0, 10);
+            assertEquals(List.of(1, 0), solver.solution());
+            assertEquals(3.0, solver.solutionWeight());
+        }
+    }
 }
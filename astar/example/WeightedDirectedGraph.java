@@ -1,13 +1,13 @@
 package astar.example;
 
-import astar.AStarGraph;
+import astar.IndexedAStarGraph;
 import astar.WeightedEdge;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /** A very simple (and literal) example of an AStarGraph. */
-public class WeightedDirectedGraph implements AStarGraph<Integer> {
+public class WeightedDirectedGraph implements IndexedAStarGraph<Integer> {
     /** Represents the list of edges from a single vertex. */
     private static class EdgeList {
         private List<WeightedEdge<Integer>> list;
@@ -25,6 +25,21 @@ public class WeightedDirectedGraph implements AStarGraph<Integer> {
         }
     }
 
+    @Override
+    public int numVertices() {
+        return adj.length;
+    }
+
+    @Override
+    public int indexOf(Integer v) {
+        return v;
+    }
+
+    @Override
+    public Integer vertexAt(int index) {
+        return index;
+    }
+
     @Override
     public List<WeightedEdge<Integer>> neighbors(Integer v) {
         return adj[v].list;
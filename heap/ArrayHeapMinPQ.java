@@ -1,6 +1,7 @@
 package heap;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
@@ -8,7 +9,6 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
     private ArrayList<PriNode> heap;
     private ArrayList<PriNode> key;
     private int hashSize;
-    private PriNode goalNode;
 
     /**
      * one priority node, an item of type T with the given priority
@@ -27,10 +27,6 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
             this.next = n;
         }
 
-        PriNode(T e, double p) {
-            this(e, p, 0, null);
-        }
-
         T getItem() {
             return item;
         }
@@ -63,11 +59,7 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
 
         @Override
         public int hashCode() {
-            int h = item.hashCode();
-            if (h < 0) {
-                return -h;
-            }
-            return h;
+            return item.hashCode() & 0x7fffffff;
         }
     }
 
@@ -107,6 +99,39 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
         key = temp;
     }
 
+    /** Returns the bucket of the key array that holds the given item. */
+    private int bucket(T item) {
+        return (item.hashCode() & 0x7fffffff) % hashSize;
+    }
+
+    /**
+     * Returns the node holding the given item, or null if it is absent.
+     * Walks the bucket chain directly, so no probe node is allocated.
+     */
+    private PriNode find(T item) {
+        PriNode curr = key.get(bucket(item));
+        while (curr != null) {
+            if (curr.item.equals(item)) {
+                return curr;
+            }
+            curr = curr.next;
+        }
+        return null;
+    }
+
+    /** Links a new node for an item known to be absent and restores the heap invariant. */
+    private void insert(T item, double priority) {
+        // resize  key array if necessary
+        if ((2 * this.size() / hashSize) > 3) {
+            resizeKey(2 * hashSize);
+        }
+        int index = bucket(item);
+        PriNode temp = new PriNode(item, priority, this.size() + 1, key.get(index));
+        key.set(index, temp);
+        heap.add(temp);
+        swim(this.size());
+    }
+
     private void addAllKey(ArrayList<PriNode> a, PriNode b, int num) {
         if (b != null) {
             addAllKey(a, b.next, num);
@@ -164,42 +189,85 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
      */
     @Override
     public void add(T item, double priority) {
-        // resize  key array if necessary
-        if ((2 * this.size() / hashSize) > 3) {
-            resizeKey(2 * hashSize);
-        }
-
         // add and percolate it up to maintain heap invariant
         // need to check duplicates
-        if (contains(item)) {
+        if (find(item) != null) {
             throw new IllegalArgumentException("PQ already contain " + item);
         }
-        PriNode temp = new PriNode(item, priority);
-        int index = temp.hashCode() % hashSize;
-        temp.next = key.get(index);
-        key.set(index, temp);
-        heap.add(temp);
-        heap.get(this.size()).loc = this.size();
-        swim(this.size());
+        insert(item, priority);
     }
 
     /**
-     * Returns true if the PQ contains the given item; false otherwise.
-     * Runs in O(log N) time.
+     * Adds the item, or lowers its priority if it is already present, with a
+     * single walk of the item's bucket.
+     * Runs in O(log N) time (except when resizing).
      */
     @Override
-    public boolean contains(T item) {
-        PriNode goal = new PriNode(item, 0);
-        int index = goal.hashCode() % hashSize;
-        PriNode curr = key.get(index);
-        while (curr != null) {
-            if (curr.equals(goal)) {
-                goalNode = curr;
-                return true;
+    public void addOrDecrease(T item, double priority) {
+        PriNode node = find(item);
+        if (node == null) {
+            insert(item, priority);
+        } else if (priority < node.priority) {
+            node.setPriority(priority);
+            swim(node.loc);
+        }
+    }
+
+    /**
+     * Adds all the given items, items.get(i) with priority priorities[i].
+     * Resizes the key array at most once, and when the batch is at least as large
+     * as the PQ rebuilds the heap bottom-up in O(N) instead of swimming each item.
+     * @throws IllegalArgumentException if an item is already present in the PQ, or
+     *                                  items and priorities differ in length
+     */
+    @Override
+    public void addAll(List<? extends T> items, double[] priorities) {
+        if (items.size() != priorities.length) {
+            throw new IllegalArgumentException("Got " + items.size() + " items but "
+                    + priorities.length + " priorities");
+        }
+        int oldSize = this.size();
+        int newSize = oldSize + priorities.length;
+        int num = hashSize;
+        while ((2 * newSize / num) > 3) {
+            num *= 2;
+        }
+        if (num != hashSize) {
+            resizeKey(num);
+        }
+        heap.ensureCapacity(newSize + 1);
+
+        boolean heapify = priorities.length >= oldSize;
+        try {
+            for (int i = 0; i < priorities.length; i++) {
+                T item = items.get(i);
+                if (find(item) != null) {
+                    throw new IllegalArgumentException("PQ already contain " + item);
+                }
+                int index = bucket(item);
+                PriNode temp = new PriNode(item, priorities[i], this.size() + 1, key.get(index));
+                key.set(index, temp);
+                heap.add(temp);
+                if (!heapify) {
+                    swim(this.size());
+                }
+            }
+        } finally {
+            if (heapify) {
+                for (int k = this.size() / 2; k >= 1; k--) {
+                    sink(k);
+                }
             }
-            curr = curr.next;
         }
-        return false;
+    }
+
+    /**
+     * Returns true if the PQ contains the given item; false otherwise.
+     * Runs in O(1) expected time.
+     */
+    @Override
+    public boolean contains(T item) {
+        return find(item) != null;
     }
 
     /**
@@ -231,15 +299,15 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
         heap.remove(this.size());
         sink(1);
         // remove from key
-        int index = min.hashCode() % hashSize;
-        if (key.get(index).equals(min)) {
+        int index = bucket(min.item);
+        if (key.get(index) == min) {
             key.set(index, min.next);
         } else {
             PriNode curr = key.get(index);
-            while (!curr.next.equals(min)) {
+            while (curr.next != min) {
                 curr = curr.next;
             }
-            curr.next = curr.next.next;
+            curr.next = min.next;
         }
         min.next = null;
 
@@ -257,12 +325,13 @@ public class ArrayHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
      */
     @Override
     public void changePriority(T item, double priority) {
-        if (!contains(item)) {
+        PriNode node = find(item);
+        if (node == null) {
             throw new NoSuchElementException("PQ does not contain " + item);
         }
-        goalNode.setPriority(priority);
-        sink(goalNode.loc);
-        swim(goalNode.loc);
+        node.setPriority(priority);
+        sink(node.loc);
+        swim(node.loc);
     }
 
     /**
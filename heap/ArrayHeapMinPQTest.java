@@ -5,33 +5,14 @@ import org.junit.Test;
 import java.util.Random;
 import static org.junit.Assert.*;
 
-public class ArrayHeapMinPQTest {
+public class ArrayHeapMinPQTest extends ExtrinsicMinPQTest {
     /* Be sure to write randomized tests that can handle millions of items. To
      * test for runtime, compare the runtime of NaiveMinPQ vs ArrayHeapMinPQ on
      * a large input of millions of items. */
 
-    @Test
-    public void testSimple() {
-        ArrayHeapMinPQ<Character> minPQ = new ArrayHeapMinPQ<>();
-        minPQ.add('W', 1);
-        minPQ.add('a', 2);
-        minPQ.add('n', 3);
-        minPQ.add('g', 4);
-        minPQ.add('Y', 5);
-        minPQ.add('i', 4);
-        minPQ.add('R', 5);
-        minPQ.add('e', 6);
-        minPQ.add('N', 6);
-        assertEquals(9, minPQ.size());
-        assertEquals('W', (char) minPQ.getSmallest());
-        assertTrue(minPQ.contains('W'));
-        assertEquals('W', (char) minPQ.removeSmallest());
-        assertFalse(minPQ.contains('W'));
-        assertEquals(8, minPQ.size());
-        minPQ.add('W', 2);
-        minPQ.changePriority('N', 1);
-        assertEquals('N', (char) minPQ.getSmallest());
-        minPQ.changePriority('N', 10);
+    @Override
+    protected <T> ExtrinsicMinPQ<T> createMinPQ() {
+        return new ArrayHeapMinPQ<>();
     }
 
     @Test
@@ -74,26 +55,20 @@ public class ArrayHeapMinPQTest {
     }
 
     @Test
-    public void testNegativeHash() {
+    public void testAddOrDecrease() {
         ArrayHeapMinPQ<Integer> minPQ = new ArrayHeapMinPQ<>();
-        minPQ.add(-1, 1);
-        minPQ.add(2, 2);
-        minPQ.add(-3, 3);
-        minPQ.add(4, 4);
-        minPQ.add(-5, 5);
-        minPQ.add(6, 4);
-        minPQ.add(-7, 5);
-        minPQ.add(8, 6);
-        minPQ.add(-9, 6);
-        assertEquals(9, minPQ.size());
-        assertEquals(-1, (int) minPQ.getSmallest());
-        assertTrue(minPQ.contains(-1));
-        assertEquals(-1, (int) minPQ.removeSmallest());
-        assertFalse(minPQ.contains(-1));
-        assertEquals(8, minPQ.size());
-        minPQ.add(-1, 2);
-        minPQ.changePriority(-9, 1);
-        assertEquals(-9, (int) minPQ.getSmallest());
-        minPQ.changePriority(-9, 10);
+        minPQ.addOrDecrease(1, 5);
+        minPQ.addOrDecrease(2, 3);
+        minPQ.addOrDecrease(Integer.MIN_VALUE, 4);
+        assertEquals(3, minPQ.size());
+        assertEquals(2, (int) minPQ.getSmallest());
+        minPQ.addOrDecrease(1, 1);
+        assertEquals(1, (int) minPQ.getSmallest());
+        minPQ.addOrDecrease(1, 10);
+        assertEquals(1, (int) minPQ.removeSmallest());
+        assertEquals(2, (int) minPQ.removeSmallest());
+        assertTrue(minPQ.contains(Integer.MIN_VALUE));
+        assertEquals(Integer.MIN_VALUE, (int) minPQ.removeSmallest());
+        assertTrue(minPQ.isEmpty());
     }
 }
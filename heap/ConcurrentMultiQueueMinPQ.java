@@ -0,0 +1,250 @@
+package heap;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe ExtrinsicMinPQ built as a multi-queue: items are spread by hash
+ * over several stripes, each a DAryHeapMinPQ guarded by its own lock, so
+ * threads working on different stripes never wait for each other.
+ *
+ * Guarantees:
+ * - add, contains, changePriority and addOrDecrease are linearizable; an item
+ *   always lives in the stripe its hash picks, so each takes one stripe lock.
+ * - getSmallest locks every stripe and returns the exact global minimum.
+ * - removeSmallest and poll are relaxed: they look at the minimum of two random
+ *   stripes and remove the smaller one. The result is the minimum of its own
+ *   stripe at that moment, so items of the same stripe come out in order, but it
+ *   may not be the global minimum. With k stripes and well spread hashes the
+ *   expected rank of the removed item is O(k). When both chosen stripes are
+ *   empty or busy for a while, every stripe is locked and the exact minimum is
+ *   removed, so an empty result is only reported when the whole PQ is empty.
+ * - size is exact once all updates have finished, but may lag concurrent ones.
+ * Use a single stripe to get a strict (fully linearizable) priority queue.
+ */
+public class ConcurrentMultiQueueMinPQ<T> implements ExtrinsicMinPQ<T> {
+    private final Stripe<T>[] stripes;
+    private final AtomicInteger size;
+
+    private static class Stripe<T> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final DAryHeapMinPQ<T> heap = new DAryHeapMinPQ<>();
+        // smallest priority in heap, readable without the lock
+        private volatile double top = Double.POSITIVE_INFINITY;
+
+        void updateTop() {
+            top = heap.smallestPriority();
+        }
+    }
+
+    /** Initializes an empty PQ with two stripes per available processor. */
+    public ConcurrentMultiQueueMinPQ() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initializes an empty PQ with the given number of stripes.
+     * @throws IllegalArgumentException if numStripes is not positive
+     */
+    public ConcurrentMultiQueueMinPQ(int numStripes) {
+        if (numStripes <= 0) {
+            throw new IllegalArgumentException("Number of stripes must be positive: " + numStripes);
+        }
+        @SuppressWarnings("unchecked")
+        Stripe<T>[] array = (Stripe<T>[]) new Stripe<?>[numStripes];
+        stripes = array;
+        for (int i = 0; i < numStripes; i += 1) {
+            stripes[i] = new Stripe<>();
+        }
+        size = new AtomicInteger();
+    }
+
+    /** Returns the stripe that holds item whenever it is in the PQ. */
+    private Stripe<T> stripeOf(T item) {
+        int h = item.hashCode() * 0x9E3779B9;
+        return stripes[Math.floorMod(h ^ (h >>> 16), stripes.length)];
+    }
+
+    /** Locks every stripe, always in the same order so that two callers cannot deadlock. */
+    private void lockAll() {
+        for (Stripe<T> s : stripes) {
+            s.lock.lock();
+        }
+    }
+
+    /** Unlocks every stripe locked by lockAll. */
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i -= 1) {
+            stripes[i].lock.unlock();
+        }
+    }
+
+    /** Returns the stripe with the smallest top, or null if all are empty. Assumes all are locked. */
+    private Stripe<T> minStripe() {
+        Stripe<T> min = null;
+        for (Stripe<T> s : stripes) {
+            if (!s.heap.isEmpty() && (min == null || s.top < min.top)) {
+                min = s;
+            }
+        }
+        return min;
+    }
+
+    /** Removes the smallest item of s. Assumes s is locked and not empty. */
+    private T removeFrom(Stripe<T> s) {
+        T item = s.heap.removeSmallest();
+        s.updateTop();
+        size.decrementAndGet();
+        return item;
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * Assumes that item is never null.
+     * Runs in O(log N) time.
+     * @throws IllegalArgumentException if item is already present in the PQ
+     */
+    @Override
+    public void add(T item, double priority) {
+        Stripe<T> s = stripeOf(item);
+        s.lock.lock();
+        try {
+            s.heap.add(item, priority);
+            s.updateTop();
+            size.incrementAndGet();
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the item, or lowers its priority if it is already present, atomically.
+     * Runs in O(log N) time.
+     */
+    @Override
+    public void addOrDecrease(T item, double priority) {
+        Stripe<T> s = stripeOf(item);
+        s.lock.lock();
+        try {
+            int before = s.heap.size();
+            s.heap.addOrDecrease(item, priority);
+            s.updateTop();
+            if (s.heap.size() > before) {
+                size.incrementAndGet();
+            }
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns true if the PQ contains the given item; false otherwise.
+     * Runs in O(1) expected time.
+     */
+    @Override
+    public boolean contains(T item) {
+        Stripe<T> s = stripeOf(item);
+        s.lock.lock();
+        try {
+            return s.heap.contains(item);
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the item with the smallest priority across all stripes.
+     * Runs in O(k) time for k stripes, and blocks all other operations meanwhile.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T getSmallest() {
+        lockAll();
+        try {
+            Stripe<T> s = minStripe();
+            if (s == null) {
+                throw new NoSuchElementException("PQ is empty");
+            }
+            return s.heap.getSmallest();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Removes and returns an item with a small priority, or returns null if the
+     * PQ is empty. See the class comment for how far it can be from the minimum.
+     * Runs in O(log N) expected time.
+     */
+    public T poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < stripes.length; attempt += 1) {
+            Stripe<T> a = stripes[random.nextInt(stripes.length)];
+            Stripe<T> b = stripes[random.nextInt(stripes.length)];
+            Stripe<T> s = b.top < a.top ? b : a;
+            if (s.top == Double.POSITIVE_INFINITY && size.get() == 0) {
+                break;
+            }
+            if (s.lock.tryLock()) {
+                try {
+                    if (!s.heap.isEmpty()) {
+                        return removeFrom(s);
+                    }
+                } finally {
+                    s.lock.unlock();
+                }
+            }
+        }
+        // fall back to an exact removal so emptiness is never reported by mistake
+        lockAll();
+        try {
+            Stripe<T> s = minStripe();
+            return s == null ? null : removeFrom(s);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Removes and returns an item with a small priority. See the class comment
+     * for how far it can be from the minimum.
+     * Runs in O(log N) expected time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T removeSmallest() {
+        T item = poll();
+        if (item == null) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return item;
+    }
+
+    /**
+     * Changes the priority of the given item.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        Stripe<T> s = stripeOf(item);
+        s.lock.lock();
+        try {
+            s.heap.changePriority(item, priority);
+            s.updateTop();
+        } finally {
+            s.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of items in the PQ.
+     * Runs in O(1) time.
+     */
+    @Override
+    public int size() {
+        return size.get();
+    }
+}
@@ -0,0 +1,199 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentMultiQueueMinPQTest {
+    private static final int THREADS = 8;
+
+    @Test
+    public void testSimple() {
+        ConcurrentMultiQueueMinPQ<Character> minPQ = new ConcurrentMultiQueueMinPQ<>(4);
+        minPQ.add('W', 1);
+        minPQ.add('a', 2);
+        minPQ.add('n', 3);
+        minPQ.add('g', 4);
+        minPQ.add('Y', 5);
+        minPQ.add('i', 4);
+        minPQ.add('R', 5);
+        minPQ.add('e', 6);
+        minPQ.add('N', 6);
+        assertEquals(9, minPQ.size());
+        assertEquals('W', (char) minPQ.getSmallest());
+        assertTrue(minPQ.contains('W'));
+        minPQ.changePriority('N', 0);
+        assertEquals('N', (char) minPQ.getSmallest());
+        minPQ.addOrDecrease('N', 10);
+        assertEquals('N', (char) minPQ.getSmallest());
+        assertFalse(minPQ.contains('Z'));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateAdd() {
+        ConcurrentMultiQueueMinPQ<String> minPQ = new ConcurrentMultiQueueMinPQ<>(4);
+        minPQ.add("a", 1);
+        minPQ.add("a", 2);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testEmpty() {
+        new ConcurrentMultiQueueMinPQ<String>(4).removeSmallest();
+    }
+
+    /** With one stripe the PQ is strict and must match ArrayHeapMinPQ exactly. */
+    @Test
+    public void testSingleStripeIsStrict() {
+        Random random = new Random(373);
+        ConcurrentMultiQueueMinPQ<Integer> minPQ = new ConcurrentMultiQueueMinPQ<>(1);
+        ArrayHeapMinPQ<Integer> expected = new ArrayHeapMinPQ<>();
+        for (int i = 0; i < 10000; i += 1) {
+            double p = random.nextDouble();
+            minPQ.add(i, p);
+            expected.add(i, p);
+        }
+        while (!expected.isEmpty()) {
+            assertEquals(expected.removeSmallest(), minPQ.removeSmallest());
+        }
+        assertNull(minPQ.poll());
+    }
+
+    /** Removals are relaxed, but with few stripes they should stay close to sorted. */
+    @Test
+    public void testRelaxedOrder() {
+        int n = 100000;
+        int stripes = 4;
+        ConcurrentMultiQueueMinPQ<Integer> minPQ = new ConcurrentMultiQueueMinPQ<>(stripes);
+        for (int i = n - 1; i >= 0; i -= 1) {
+            minPQ.add(i, i);
+        }
+        long totalError = 0;
+        for (int i = 0; i < n; i += 1) {
+            totalError += Math.abs(minPQ.removeSmallest() - i);
+        }
+        assertTrue("Average rank error " + (double) totalError / n,
+                totalError < (long) n * stripes * 4);
+    }
+
+    /** Threads add disjoint items, then drain concurrently; each item comes out exactly once. */
+    @Test
+    public void testConcurrentAddThenDrain() throws InterruptedException {
+        int perThread = 50000;
+        ConcurrentMultiQueueMinPQ<Integer> minPQ = new ConcurrentMultiQueueMinPQ<>();
+        runThreads(t -> {
+            Random random = new Random(t);
+            for (int i = 0; i < perThread; i += 1) {
+                minPQ.add(t * perThread + i, random.nextDouble());
+            }
+        });
+        assertEquals(THREADS * perThread, minPQ.size());
+
+        AtomicIntegerArray seen = new AtomicIntegerArray(THREADS * perThread);
+        runThreads(t -> {
+            Integer item;
+            while ((item = minPQ.poll()) != null) {
+                seen.incrementAndGet(item);
+            }
+        });
+        for (int i = 0; i < seen.length(); i += 1) {
+            assertEquals("Item " + i, 1, seen.get(i));
+        }
+        assertEquals(0, minPQ.size());
+        assertTrue(minPQ.isEmpty());
+    }
+
+    /**
+     * Producers add items and lower priorities while consumers remove at the
+     * same time, as router workers would; no item may be lost.
+     */
+    @Test
+    public void testConcurrentMixed() throws InterruptedException {
+        int perProducer = 50000;
+        int producers = THREADS / 2;
+        ConcurrentMultiQueueMinPQ<Integer> minPQ = new ConcurrentMultiQueueMinPQ<>();
+        AtomicIntegerArray seen = new AtomicIntegerArray(producers * perProducer);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        CountDownLatch produced = new CountDownLatch(producers);
+        List<Throwable> errors = new ArrayList<>();
+
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t += 1) {
+            int id = t;
+            Runnable work = id < producers
+                    ? () -> {
+                        Random random = new Random(id);
+                        for (int i = 0; i < perProducer; i += 1) {
+                            int item = id * perProducer + i;
+                            minPQ.addOrDecrease(item, random.nextDouble());
+                            // lowers the item, or re-adds it if a consumer already took it
+                            minPQ.addOrDecrease(item, random.nextDouble() / 2);
+                        }
+                        produced.countDown();
+                    }
+                    : () -> {
+                        while (producing.get() || !minPQ.isEmpty()) {
+                            Integer item = minPQ.poll();
+                            if (item != null) {
+                                seen.incrementAndGet(item);
+                            }
+                        }
+                    };
+            threads[t] = new Thread(() -> {
+                try {
+                    work.run();
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        produced.await();
+        producing.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("Errors: " + errors, errors.isEmpty());
+        // an item comes out twice only if it was removed before its second addOrDecrease
+        for (int i = 0; i < seen.length(); i += 1) {
+            assertTrue("Item " + i + " seen " + seen.get(i) + " times",
+                    seen.get(i) == 1 || seen.get(i) == 2);
+        }
+        assertEquals(0, minPQ.size());
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+
+    private static void runThreads(ThreadBody body) throws InterruptedException {
+        Thread[] threads = new Thread[THREADS];
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < THREADS; t += 1) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    body.run(id);
+                } catch (Throwable e) {
+                    synchronized (errors) {
+                        errors.add(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("Errors: " + errors, errors.isEmpty());
+    }
+}
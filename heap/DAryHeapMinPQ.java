@@ -0,0 +1,371 @@
+package heap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Array-backed d-ary heap implementation of the ExtrinsicMinPQ.
+ * Priorities live in a parallel double[] next to the items, and the position of
+ * each item in the heap is found through an open-addressing (linear probing)
+ * index, so no per-entry node objects are allocated.
+ * Supported arities are 2, 4 and 8; wider heaps are shallower, which trades a
+ * few more comparisons in sink for fewer cache misses on large queues.
+ */
+public class DAryHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
+    private static final int DEFAULT_ARITY = 4;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int arity;
+    private final int shift;
+
+    // heap section, 0-indexed: children of i are shift-aligned at (i << shift) + 1 ...
+    private Object[] items;
+    private double[] priorities;
+    private int[] slotOf;
+    private int size;
+
+    // index section: keys[s] is an item and positions[s] its index in the heap;
+    // kept at most half full, and deleteSlot shifts entries back instead of
+    // leaving tombstones
+    private Object[] keys;
+    private int[] positions;
+    private int mask;
+
+    public DAryHeapMinPQ() {
+        this(DEFAULT_ARITY);
+    }
+
+    /**
+     * Initializes an empty priority queue whose heap nodes have the given number of children.
+     * @throws IllegalArgumentException if arity is not 2, 4 or 8
+     */
+    public DAryHeapMinPQ(int arity) {
+        this(arity, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes an empty priority queue with the given arity that can hold
+     * capacity items before it needs to grow.
+     * @throws IllegalArgumentException if arity is not 2, 4 or 8, or capacity is negative
+     */
+    public DAryHeapMinPQ(int arity, int capacity) {
+        if (arity != 2 && arity != 4 && arity != 8) {
+            throw new IllegalArgumentException("Arity must be 2, 4 or 8: " + arity);
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity is negative: " + capacity);
+        }
+        this.arity = arity;
+        this.shift = Integer.numberOfTrailingZeros(arity);
+        capacity = Math.max(capacity, 1);
+        items = new Object[capacity];
+        priorities = new double[capacity];
+        slotOf = new int[capacity];
+        int tableSize = tableSizeFor(capacity);
+        keys = new Object[tableSize];
+        positions = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    /** Returns the number of children of each heap node. */
+    public int arity() {
+        return arity;
+    }
+
+    /** Returns the smallest power of two table size that keeps n keys at most half full. */
+    private static int tableSizeFor(int n) {
+        int needed = Math.max(2 * n, 2);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private int hash(Object item) {
+        int h = item.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /** Returns the index slot holding the given item, or -1 if it is absent. */
+    private int findSlot(Object item) {
+        int s = hash(item);
+        Object k;
+        while ((k = keys[s]) != null) {
+            if (k.equals(item)) {
+                return s;
+            }
+            s = (s + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Inserts the item (known to be absent) into the index and returns its slot. */
+    private int insertSlot(Object item, int position) {
+        int s = hash(item);
+        while (keys[s] != null) {
+            s = (s + 1) & mask;
+        }
+        keys[s] = item;
+        positions[s] = position;
+        slotOf[position] = s;
+        return s;
+    }
+
+    /** Empties slot s, shifting later entries of the same probe run back into the gap. */
+    private void deleteSlot(int s) {
+        int gap = s;
+        int next = (gap + 1) & mask;
+        Object k;
+        while ((k = keys[next]) != null) {
+            int home = hash(k);
+            // move k into the gap unless its home lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = k;
+                positions[gap] = positions[next];
+                slotOf[positions[gap]] = gap;
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = null;
+    }
+
+    private void rehash(int tableSize) {
+        keys = new Object[tableSize];
+        positions = new int[tableSize];
+        mask = tableSize - 1;
+        for (int i = 0; i < size; i++) {
+            insertSlot(items[i], i);
+        }
+    }
+
+    private void grow() {
+        int capacity = items.length * 2;
+        items = Arrays.copyOf(items, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        slotOf = Arrays.copyOf(slotOf, capacity);
+    }
+
+    /** Puts item, with its priority and index slot, at index i of the heap. */
+    private void place(int i, Object item, double priority, int slot) {
+        items[i] = item;
+        priorities[i] = priority;
+        slotOf[i] = slot;
+        positions[slot] = i;
+    }
+
+    /**
+     * Moves the item at i up to its place. Like sink, it moves a hole rather
+     * than swapping, so each level costs one write per array.
+     */
+    private void swim(int i) {
+        Object item = items[i];
+        double priority = priorities[i];
+        int slot = slotOf[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> shift;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            place(i, items[parent], priorities[parent], slotOf[parent]);
+            i = parent;
+        }
+        place(i, item, priority, slot);
+    }
+
+    /** Moves the item at i down to its place, past any smaller children. */
+    private void sink(int i) {
+        Object item = items[i];
+        double priority = priorities[i];
+        int slot = slotOf[i];
+        while (true) {
+            int first = (i << shift) + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int min = first;
+            for (int c = first + 1; c < last; c++) {
+                if (priorities[c] < priorities[min]) {
+                    min = c;
+                }
+            }
+            if (priorities[min] >= priority) {
+                break;
+            }
+            place(i, items[min], priorities[min], slotOf[min]);
+            i = min;
+        }
+        place(i, item, priority, slot);
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * Assumes that item is never null.
+     * Runs in O(log N) time (except when resizing).
+     * @throws IllegalArgumentException if item is already present in the PQ
+     */
+    @Override
+    public void add(T item, double priority) {
+        if (findSlot(item) >= 0) {
+            throw new IllegalArgumentException("PQ already contain " + item);
+        }
+        append(item, priority);
+    }
+
+    /** Appends an item known to be absent and restores the heap invariant. */
+    private void append(T item, double priority) {
+        if (size == items.length) {
+            grow();
+        }
+        if (2 * (size + 1) > keys.length) {
+            rehash(keys.length * 2);
+        }
+        int slot = insertSlot(item, size);
+        place(size, item, priority, slot);
+        size++;
+        swim(size - 1);
+    }
+
+    /**
+     * Adds the item, or lowers its priority if it is already present, with a
+     * single probe of the index.
+     * Runs in O(log N / log d) time (except when resizing).
+     */
+    @Override
+    public void addOrDecrease(T item, double priority) {
+        int slot = findSlot(item);
+        if (slot < 0) {
+            append(item, priority);
+        } else if (priority < priorities[positions[slot]]) {
+            int i = positions[slot];
+            priorities[i] = priority;
+            swim(i);
+        }
+    }
+
+    /**
+     * Adds all the given items, items.get(i) with priority priorities[i].
+     * Grows the arrays and the index at most once each, and when the batch is at
+     * least as large as the PQ rebuilds the heap bottom-up in O(N).
+     * @throws IllegalArgumentException if an item is already present in the PQ, or
+     *                                  items and priorities differ in length
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void addAll(List<? extends T> items, double[] priorities) {
+        if (items.size() != priorities.length) {
+            throw new IllegalArgumentException("Got " + items.size() + " items but "
+                    + priorities.length + " priorities");
+        }
+        int newSize = size + priorities.length;
+        if (newSize > this.items.length) {
+            this.items = Arrays.copyOf(this.items, newSize);
+            this.priorities = Arrays.copyOf(this.priorities, newSize);
+            slotOf = Arrays.copyOf(slotOf, newSize);
+        }
+        if (2 * newSize > keys.length) {
+            rehash(tableSizeFor(newSize));
+        }
+
+        boolean heapify = priorities.length >= size;
+        try {
+            for (int i = 0; i < priorities.length; i++) {
+                T item = items.get(i);
+                if (findSlot(item) >= 0) {
+                    throw new IllegalArgumentException("PQ already contain " + item);
+                }
+                int slot = insertSlot(item, size);
+                place(size, item, priorities[i], slot);
+                size++;
+                if (!heapify) {
+                    swim(size - 1);
+                }
+            }
+        } finally {
+            if (heapify && size > 1) {
+                for (int i = (size - 2) >>> shift; i >= 0; i--) {
+                    sink(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if the PQ contains the given item; false otherwise.
+     * Runs in O(1) expected time.
+     */
+    @Override
+    public boolean contains(T item) {
+        return findSlot(item) >= 0;
+    }
+
+    /**
+     * Returns the item with the smallest priority.
+     * Runs in O(1) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return (T) items[0];
+    }
+
+    /** Returns the smallest priority, or positive infinity if the PQ is empty. */
+    double smallestPriority() {
+        return size == 0 ? Double.POSITIVE_INFINITY : priorities[0];
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * Runs in O(d log N / log d) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T removeSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        T min = (T) items[0];
+        deleteSlot(slotOf[0]);
+        size--;
+        if (size > 0) {
+            place(0, items[size], priorities[size], slotOf[size]);
+            sink(0);
+        }
+        items[size] = null;
+        return min;
+    }
+
+    /**
+     * Changes the priority of the given item.
+     * Runs in O(d log N / log d) time.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        int slot = findSlot(item);
+        if (slot < 0) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        int i = positions[slot];
+        double old = priorities[i];
+        priorities[i] = priority;
+        if (priority < old) {
+            swim(i);
+        } else {
+            sink(i);
+        }
+    }
+
+    /**
+     * Returns the number of items in the PQ.
+     * Runs in O(1) time.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+}
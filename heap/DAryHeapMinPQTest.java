@@ -0,0 +1,95 @@
+package heap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Runs every test, the shared ones included, once per supported arity. */
+@RunWith(Parameterized.class)
+public class DAryHeapMinPQTest extends ExtrinsicMinPQTest {
+    private final int arity;
+
+    public DAryHeapMinPQTest(int arity) {
+        this.arity = arity;
+    }
+
+    @Parameterized.Parameters(name = "arity {0}")
+    public static List<Integer> arities() {
+        return List.of(2, 4, 8);
+    }
+
+    @Override
+    protected <T> ExtrinsicMinPQ<T> createMinPQ() {
+        return new DAryHeapMinPQ<>(arity);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testChangeMissing() {
+        DAryHeapMinPQ<String> minPQ = new DAryHeapMinPQ<>(arity);
+        minPQ.add("a", 1);
+        minPQ.changePriority("b", 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadArity() {
+        new DAryHeapMinPQ<String>(3);
+    }
+
+    /** Random mix of operations checked against a map of expected priorities. */
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(373);
+        DAryHeapMinPQ<Integer> minPQ = new DAryHeapMinPQ<>(arity, 0);
+        Map<Integer, Double> expected = new HashMap<>();
+        for (int i = 0; i < 50000; i += 1) {
+            int item = random.nextInt(1000);
+            int op = random.nextInt(4);
+            if (op < 2) {
+                double p = random.nextDouble();
+                if (expected.containsKey(item)) {
+                    minPQ.changePriority(item, p);
+                } else {
+                    minPQ.add(item, p);
+                }
+                expected.put(item, p);
+            } else if (op == 2 && !expected.isEmpty()) {
+                int smallest = minPQ.removeSmallest();
+                double p = expected.remove(smallest);
+                for (double other : expected.values()) {
+                    assertTrue("Failed on iteration " + i, p <= other);
+                }
+            } else {
+                assertEquals(expected.containsKey(item), minPQ.contains(item));
+            }
+            assertEquals(expected.size(), minPQ.size());
+        }
+    }
+
+    @Test
+    public void testMatchesArrayHeap() {
+        Random random = new Random(373);
+        ArrayHeapMinPQ<Integer> reference = new ArrayHeapMinPQ<>();
+        DAryHeapMinPQ<Integer> minPQ = new DAryHeapMinPQ<>(arity);
+        Map<Integer, Double> priority = new HashMap<>();
+        for (int i = 0; i < 100000; i += 1) {
+            double p = random.nextDouble();
+            reference.add(i, p);
+            minPQ.add(i, p);
+            priority.put(i, p);
+        }
+        for (int i = 0; i < 100000; i += 1) {
+            double a = priority.get(reference.removeSmallest());
+            double b = priority.get(minPQ.removeSmallest());
+            assertEquals("Failed on iteration " + i, a, b, 0.0);
+        }
+        assertTrue(minPQ.isEmpty());
+    }
+}
@@ -1,5 +1,6 @@
 package heap;
 
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -16,6 +17,23 @@ public interface ExtrinsicMinPQ<T> {
      */
     void add(T item, double priority);
 
+    /**
+     * Adds every item in items, where items.get(i) has priority priorities[i].
+     * Implementations may build the heap in one pass instead of N separate adds.
+     * If an item is already present (or repeated), the items before it stay added.
+     * @throws IllegalArgumentException if an item is already present in the PQ, or
+     *                                  items and priorities differ in length
+     */
+    default void addAll(List<? extends T> items, double[] priorities) {
+        if (items.size() != priorities.length) {
+            throw new IllegalArgumentException("Got " + items.size() + " items but "
+                    + priorities.length + " priorities");
+        }
+        for (int i = 0; i < priorities.length; i++) {
+            add(items.get(i), priorities[i]);
+        }
+    }
+
     /** Returns true if the PQ contains the given item; false otherwise. */
     boolean contains(T item);
 
@@ -37,6 +55,21 @@ public interface ExtrinsicMinPQ<T> {
      */
     void changePriority(T item, double priority);
 
+    /**
+     * Adds the item with the given priority if it is absent; otherwise lowers its
+     * priority to the given one, as in the relax step of a shortest paths search.
+     * The default implementation cannot see the current priority, so callers must
+     * only pass smaller priorities for present items; implementations that track
+     * priorities override this to do a single lookup and ignore larger ones.
+     */
+    default void addOrDecrease(T item, double priority) {
+        if (contains(item)) {
+            changePriority(item, priority);
+        } else {
+            add(item, priority);
+        }
+    }
+
     /** Returns the number of items in the PQ. */
     int size();
 
@@ -0,0 +1,109 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/** Tests shared by the ExtrinsicMinPQ implementations; subclasses choose the implementation. */
+public abstract class ExtrinsicMinPQTest {
+
+    /** Returns a new, empty PQ of the implementation under test. */
+    protected abstract <T> ExtrinsicMinPQ<T> createMinPQ();
+
+    @Test
+    public void testSimple() {
+        ExtrinsicMinPQ<Character> minPQ = createMinPQ();
+        minPQ.add('W', 1);
+        minPQ.add('a', 2);
+        minPQ.add('n', 3);
+        minPQ.add('g', 4);
+        minPQ.add('Y', 5);
+        minPQ.add('i', 4);
+        minPQ.add('R', 5);
+        minPQ.add('e', 6);
+        minPQ.add('N', 6);
+        assertEquals(9, minPQ.size());
+        assertEquals('W', (char) minPQ.getSmallest());
+        assertTrue(minPQ.contains('W'));
+        assertEquals('W', (char) minPQ.removeSmallest());
+        assertFalse(minPQ.contains('W'));
+        assertEquals(8, minPQ.size());
+        minPQ.add('W', 2);
+        minPQ.changePriority('N', 1);
+        assertEquals('N', (char) minPQ.getSmallest());
+        minPQ.changePriority('N', 10);
+        // priorities stay at least the last removed one, so monotone PQs pass too
+        minPQ.changePriority('a', 1.5);
+        assertEquals('a', (char) minPQ.removeSmallest());
+        assertEquals('W', (char) minPQ.removeSmallest());
+    }
+
+    @Test
+    public void testNegativeHash() {
+        ExtrinsicMinPQ<Integer> minPQ = createMinPQ();
+        minPQ.add(-1, 1);
+        minPQ.add(2, 2);
+        minPQ.add(-3, 3);
+        minPQ.add(4, 4);
+        minPQ.add(-5, 5);
+        minPQ.add(6, 4);
+        minPQ.add(-7, 5);
+        minPQ.add(8, 6);
+        minPQ.add(-9, 6);
+        assertEquals(9, minPQ.size());
+        assertEquals(-1, (int) minPQ.getSmallest());
+        assertTrue(minPQ.contains(-1));
+        assertEquals(-1, (int) minPQ.removeSmallest());
+        assertFalse(minPQ.contains(-1));
+        assertEquals(8, minPQ.size());
+        minPQ.add(-1, 2);
+        minPQ.changePriority(-9, 1);
+        assertEquals(-9, (int) minPQ.getSmallest());
+        minPQ.changePriority(-9, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateAdd() {
+        ExtrinsicMinPQ<String> minPQ = createMinPQ();
+        minPQ.add("a", 1);
+        minPQ.add("a", 2);
+    }
+
+    @Test
+    public void testAddAll() {
+        Random random = new Random(373);
+        ExtrinsicMinPQ<Integer> minPQ = createMinPQ();
+        NaiveMinPQ<Integer> reference = new NaiveMinPQ<>();
+        minPQ.add(-1, 0.5);
+        reference.add(-1, 0.5);
+        List<Integer> items = new ArrayList<>();
+        double[] priorities = new double[10000];
+        for (int i = 0; i < priorities.length; i += 1) {
+            items.add(i);
+            priorities[i] = random.nextDouble();
+            reference.add(i, priorities[i]);
+        }
+        minPQ.addAll(items, priorities);
+        assertEquals(10001, minPQ.size());
+        assertTrue(minPQ.contains(9999));
+        // a small batch into a large PQ takes the swim path
+        minPQ.addAll(List.of(-2, -3), new double[]{0.25, 2});
+        reference.add(-2, 0.25);
+        reference.add(-3, 2);
+        for (int i = 0; i < 10003; i += 1) {
+            assertEquals("Failed on iteration " + i, reference.removeSmallest(), minPQ.removeSmallest());
+        }
+        assertTrue(minPQ.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddAllDuplicate() {
+        ExtrinsicMinPQ<Integer> minPQ = createMinPQ();
+        minPQ.add(2, 1);
+        minPQ.addAll(List.of(1, 2), new double[]{1, 2});
+    }
+}
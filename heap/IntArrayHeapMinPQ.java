@@ -0,0 +1,173 @@
+package heap;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Binary heap implementation of the IntExtrinsicMinPQ.
+ * The heap position of every item is kept in a plain int[] indexed by the item
+ * itself, so lookups need no hashing and no boxing.
+ */
+public class IntArrayHeapMinPQ implements IntExtrinsicMinPQ {
+    private final int[] heap;
+    // aligned with heap: priorities[i] is the priority of item heap[i]
+    private final double[] priorities;
+    private final int[] position;
+    private int size;
+
+    /** Initializes an empty priority queue for items in [0, capacity). */
+    public IntArrayHeapMinPQ(int capacity) {
+        heap = new int[capacity];
+        priorities = new double[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    /** Returns the exclusive upper bound on items. */
+    public int capacity() {
+        return position.length;
+    }
+
+    private void place(int i, int item, double priority) {
+        heap[i] = item;
+        priorities[i] = priority;
+        position[item] = i;
+    }
+
+    private void swim(int i) {
+        int item = heap[i];
+        double priority = priorities[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            place(i, heap[parent], priorities[parent]);
+            i = parent;
+        }
+        place(i, item, priority);
+    }
+
+    private void sink(int i) {
+        int item = heap[i];
+        double priority = priorities[i];
+        while (2 * i + 1 < size) {
+            int j = 2 * i + 1;
+            if (j + 1 < size && priorities[j + 1] < priorities[j]) {
+                j++;
+            }
+            if (priorities[j] >= priority) {
+                break;
+            }
+            place(i, heap[j], priorities[j]);
+            i = j;
+        }
+        place(i, item, priority);
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * Runs in O(log N) time.
+     * @throws IllegalArgumentException if item is already present in the PQ
+     * @throws IndexOutOfBoundsException if item is outside [0, capacity)
+     */
+    @Override
+    public void add(int item, double priority) {
+        if (position[item] >= 0) {
+            throw new IllegalArgumentException("PQ already contain " + item);
+        }
+        place(size, item, priority);
+        size++;
+        swim(size - 1);
+    }
+
+    /**
+     * Returns true if the PQ contains the given item; false otherwise.
+     * Runs in O(1) time.
+     */
+    @Override
+    public boolean contains(int item) {
+        return item >= 0 && item < position.length && position[item] >= 0;
+    }
+
+    /**
+     * Returns the item with the smallest priority.
+     * Runs in O(1) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public int getSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Returns the smallest priority, or positive infinity if the PQ is empty.
+     * Runs in O(1) time.
+     */
+    public double smallestPriority() {
+        return size == 0 ? Double.POSITIVE_INFINITY : priorities[0];
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public int removeSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            place(0, heap[size], priorities[size]);
+            sink(0);
+        }
+        return min;
+    }
+
+    /**
+     * Changes the priority of the given item.
+     * Runs in O(log N) time.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    @Override
+    public void changePriority(int item, double priority) {
+        if (!contains(item)) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        int i = position[item];
+        double old = priorities[i];
+        priorities[i] = priority;
+        if (priority < old) {
+            swim(i);
+        } else {
+            sink(i);
+        }
+    }
+
+    /**
+     * Removes all items, so the PQ can be reused by another search.
+     * Runs in O(N) time in the number of items, not the capacity.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the number of items in the PQ.
+     * Runs in O(1) time.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+}
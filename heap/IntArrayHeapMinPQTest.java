@@ -0,0 +1,84 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class IntArrayHeapMinPQTest {
+
+    @Test
+    public void testSimple() {
+        IntArrayHeapMinPQ minPQ = new IntArrayHeapMinPQ(10);
+        minPQ.add(3, 1);
+        minPQ.add(1, 2);
+        minPQ.add(4, 3);
+        minPQ.add(5, 4);
+        minPQ.add(9, 5);
+        minPQ.add(2, 4);
+        assertEquals(6, minPQ.size());
+        assertEquals(3, minPQ.getSmallest());
+        assertTrue(minPQ.contains(3));
+        assertEquals(3, minPQ.removeSmallest());
+        assertFalse(minPQ.contains(3));
+        assertFalse(minPQ.contains(-1));
+        assertFalse(minPQ.contains(10));
+        minPQ.add(3, 2);
+        minPQ.changePriority(9, 1);
+        assertEquals(9, minPQ.getSmallest());
+        minPQ.changePriority(9, 10);
+        assertEquals(1, minPQ.getSmallest());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateAdd() {
+        IntArrayHeapMinPQ minPQ = new IntArrayHeapMinPQ(2);
+        minPQ.add(1, 1);
+        minPQ.add(1, 2);
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testEmpty() {
+        new IntArrayHeapMinPQ(2).removeSmallest();
+    }
+
+    @Test
+    public void testClear() {
+        IntArrayHeapMinPQ minPQ = new IntArrayHeapMinPQ(5);
+        minPQ.add(4, 1);
+        minPQ.add(2, 0);
+        minPQ.clear();
+        assertEquals(0, minPQ.size());
+        assertFalse(minPQ.contains(4));
+        assertEquals(Double.POSITIVE_INFINITY, minPQ.smallestPriority(), 0.0);
+        minPQ.add(4, 3);
+        assertEquals(4, minPQ.removeSmallest());
+    }
+
+    @Test
+    public void testRandomAgainstArrayHeap() {
+        int n = 100000;
+        Random random = new Random(373);
+        double[] priority = new double[n];
+        IntArrayHeapMinPQ minPQ = new IntArrayHeapMinPQ(n);
+        ArrayHeapMinPQ<Integer> reference = new ArrayHeapMinPQ<>();
+        for (int i = 0; i < n; i += 1) {
+            priority[i] = random.nextDouble();
+            minPQ.add(i, priority[i]);
+            reference.add(i, priority[i]);
+        }
+        for (int i = 0; i < n; i += 2) {
+            priority[i] = random.nextDouble();
+            minPQ.changePriority(i, priority[i]);
+            reference.changePriority(i, priority[i]);
+        }
+        for (int i = 0; i < n; i += 1) {
+            int a = reference.removeSmallest();
+            int b = minPQ.removeSmallest();
+            assertEquals("Failed on iteration " + i, priority[a], priority[b], 0.0);
+        }
+        assertTrue(minPQ.isEmpty());
+    }
+}
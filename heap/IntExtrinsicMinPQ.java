@@ -0,0 +1,47 @@
+package heap;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Priority queue over int items drawn from a fixed range [0, capacity), where
+ * priorities are provided extrinsically as in ExtrinsicMinPQ.
+ * Cannot contain duplicate items.
+ */
+public interface IntExtrinsicMinPQ {
+
+    /**
+     * Adds an item with the given priority value.
+     * @throws IllegalArgumentException if item is already present in the PQ
+     * @throws IndexOutOfBoundsException if item is outside [0, capacity)
+     */
+    void add(int item, double priority);
+
+    /** Returns true if the PQ contains the given item; false otherwise. */
+    boolean contains(int item);
+
+    /**
+     * Returns the item with the smallest priority.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    int getSmallest();
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    int removeSmallest();
+
+    /**
+     * Changes the priority of the given item.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    void changePriority(int item, double priority);
+
+    /** Returns the number of items in the PQ. */
+    int size();
+
+    /** Returns true if the PQ is empty; false otherwise. */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
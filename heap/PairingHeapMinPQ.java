@@ -0,0 +1,236 @@
+package heap;
+
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * Pairing heap implementation of the ExtrinsicMinPQ.
+ * Lowering a priority cuts the item's subtree and links it back at the root in
+ * O(1) time, so searches that decrease priorities often (e.g. A* on road
+ * networks) do less work per relaxation than with a binary heap.
+ * removeSmallest uses the standard two-pass pairing and runs in O(log N)
+ * amortized time.
+ */
+public class PairingHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
+    private HashMap<T, Node> nodes;
+    private Node root;
+
+    /**
+     * One heap node. prev is the parent for a leftmost child and the left
+     * sibling otherwise; child is the leftmost child.
+     */
+    private class Node {
+        private T item;
+        private double priority;
+        private Node child;
+        private Node sibling;
+        private Node prev;
+
+        Node(T item, double priority) {
+            this.item = item;
+            this.priority = priority;
+        }
+    }
+
+    public PairingHeapMinPQ() {
+        nodes = new HashMap<>();
+    }
+
+    /** Links two roots, making the one with the larger priority the leftmost child of the other. */
+    private Node link(Node a, Node b) {
+        if (b.priority < a.priority) {
+            Node temp = a;
+            a = b;
+            b = temp;
+        }
+        b.sibling = a.child;
+        if (a.child != null) {
+            a.child.prev = b;
+        }
+        b.prev = a;
+        a.child = b;
+        return a;
+    }
+
+    private Node meld(Node a, Node b) {
+        if (a == null) {
+            return b;
+        } else if (b == null) {
+            return a;
+        }
+        return link(a, b);
+    }
+
+    /** Detaches the subtree rooted at node from its parent and siblings. */
+    private void cut(Node node) {
+        if (node.prev.child == node) {
+            node.prev.child = node.sibling;
+        } else {
+            node.prev.sibling = node.sibling;
+        }
+        if (node.sibling != null) {
+            node.sibling.prev = node.prev;
+        }
+        node.prev = null;
+        node.sibling = null;
+    }
+
+    /**
+     * Combines the sibling list starting at first into one tree: links pairs left
+     * to right, then melds the results right to left. Iterative, so long child
+     * lists cannot overflow the stack.
+     */
+    private Node mergePairs(Node first) {
+        if (first == null) {
+            return null;
+        }
+        // first pass: pair up and push each result onto a stack threaded through sibling
+        Node stack = null;
+        Node a = first;
+        while (a != null) {
+            Node b = a.sibling;
+            a.prev = null;
+            a.sibling = null;
+            if (b == null) {
+                a.sibling = stack;
+                stack = a;
+                break;
+            }
+            Node next = b.sibling;
+            b.prev = null;
+            b.sibling = null;
+            Node pair = link(a, b);
+            pair.sibling = stack;
+            stack = pair;
+            a = next;
+        }
+        // second pass: the stack holds the rightmost pair first
+        Node result = stack;
+        Node rest = result.sibling;
+        result.sibling = null;
+        while (rest != null) {
+            Node next = rest.sibling;
+            rest.sibling = null;
+            result = link(result, rest);
+            rest = next;
+        }
+        return result;
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * Assumes that item is never null.
+     * Runs in O(1) time.
+     * @throws IllegalArgumentException if item is already present in the PQ
+     */
+    @Override
+    public void add(T item, double priority) {
+        if (nodes.containsKey(item)) {
+            throw new IllegalArgumentException("PQ already contain " + item);
+        }
+        Node node = new Node(item, priority);
+        nodes.put(item, node);
+        root = meld(root, node);
+    }
+
+    /**
+     * Adds the item, or lowers its priority if it is already present, with a
+     * single lookup.
+     * Runs in O(1) time (amortized for decreases).
+     */
+    @Override
+    public void addOrDecrease(T item, double priority) {
+        Node node = nodes.get(item);
+        if (node == null) {
+            node = new Node(item, priority);
+            nodes.put(item, node);
+            root = meld(root, node);
+        } else if (priority < node.priority) {
+            decrease(node, priority);
+        }
+    }
+
+    private void decrease(Node node, double priority) {
+        node.priority = priority;
+        if (node != root) {
+            cut(node);
+            root = link(root, node);
+        }
+    }
+
+    /**
+     * Returns true if the PQ contains the given item; false otherwise.
+     * Runs in O(1) expected time.
+     */
+    @Override
+    public boolean contains(T item) {
+        return nodes.containsKey(item);
+    }
+
+    /**
+     * Returns the item with the smallest priority.
+     * Runs in O(1) time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T getSmallest() {
+        if (root == null) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return root.item;
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * Runs in O(log N) amortized time.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    public T removeSmallest() {
+        if (root == null) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        Node min = root;
+        nodes.remove(min.item);
+        root = mergePairs(min.child);
+        min.child = null;
+        return min.item;
+    }
+
+    /**
+     * Changes the priority of the given item.
+     * Runs in O(1) amortized time for decreases and O(log N) amortized time
+     * for increases, which detach and re-merge the item's children.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        Node node = nodes.get(item);
+        if (node == null) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        if (priority <= node.priority) {
+            decrease(node, priority);
+            return;
+        }
+        // an increase may break the order with node's children, so reinsert it alone
+        if (node == root) {
+            root = mergePairs(node.child);
+        } else {
+            cut(node);
+            root = meld(root, mergePairs(node.child));
+        }
+        node.child = null;
+        node.priority = priority;
+        root = meld(root, node);
+    }
+
+    /**
+     * Returns the number of items in the PQ.
+     * Runs in O(1) time.
+     */
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+}
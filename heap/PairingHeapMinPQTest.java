@@ -0,0 +1,69 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PairingHeapMinPQTest extends ExtrinsicMinPQTest {
+
+    @Override
+    protected <T> ExtrinsicMinPQ<T> createMinPQ() {
+        return new PairingHeapMinPQ<>();
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testEmpty() {
+        new PairingHeapMinPQ<String>().removeSmallest();
+    }
+
+    /** Random mix of operations checked against a map of expected priorities. */
+    @Test
+    public void testRandomOperations() {
+        Random random = new Random(373);
+        PairingHeapMinPQ<Integer> minPQ = new PairingHeapMinPQ<>();
+        Map<Integer, Double> expected = new HashMap<>();
+        for (int i = 0; i < 50000; i += 1) {
+            int item = random.nextInt(1000);
+            int op = random.nextInt(5);
+            if (op < 2) {
+                double p = random.nextDouble();
+                if (expected.containsKey(item)) {
+                    minPQ.changePriority(item, p);
+                } else {
+                    minPQ.add(item, p);
+                }
+                expected.put(item, p);
+            } else if (op == 2) {
+                double p = random.nextDouble();
+                minPQ.addOrDecrease(item, p);
+                expected.merge(item, p, Math::min);
+            } else if (op == 3 && !expected.isEmpty()) {
+                int smallest = minPQ.removeSmallest();
+                double p = expected.remove(smallest);
+                for (double other : expected.values()) {
+                    assertTrue("Failed on iteration " + i, p <= other);
+                }
+            } else {
+                assertEquals(expected.containsKey(item), minPQ.contains(item));
+            }
+            assertEquals(expected.size(), minPQ.size());
+        }
+    }
+
+    @Test
+    public void testLongSiblingList() {
+        // many adds then one removal leaves a very long child list to pair up
+        PairingHeapMinPQ<Integer> minPQ = new PairingHeapMinPQ<>();
+        for (int i = 1000000; i >= 0; i -= 1) {
+            minPQ.add(i, i);
+        }
+        for (int i = 0; i <= 1000000; i += 1) {
+            assertEquals(i, (int) minPQ.removeSmallest());
+        }
+    }
+}
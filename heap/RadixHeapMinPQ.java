@@ -0,0 +1,228 @@
+package heap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * Radix heap implementation of the ExtrinsicMinPQ for monotone workloads, i.e.
+ * ones where no priority is ever smaller than the last removed priority. That
+ * holds for Dijkstra's algorithm and for A* with a consistent heuristic.
+ *
+ * Non-negative doubles order the same way as their IEEE 754 bit patterns, so
+ * each item is kept in the bucket numbered by the highest bit in which its
+ * priority differs from the last removed one. add and decreases take O(1) time;
+ * removeSmallest only looks at the lowest non-empty bucket, and each item moves
+ * to a lower bucket at most 64 times over its lifetime.
+ * Priorities must therefore be non-negative and at least the last removed one;
+ * ones below it by no more than rounding error (as A* sums can produce, more so
+ * over the float edge weights of a CompactStreetMapGraph) are raised to it.
+ */
+public class RadixHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
+    private static final int NUM_BUCKETS = 65;
+    private static final double ROUNDING_TOLERANCE = 1e-6;
+
+    private HashMap<T, Entry> entries;
+    private Entry[][] buckets;
+    private int[] bucketSizes;
+    private double last;
+    private long lastBits;
+
+    private static class Entry {
+        private Object item;
+        private double priority;
+        private long bits;
+        private int bucket;
+        private int index;
+
+        Entry(Object item, double priority) {
+            this.item = item;
+            setPriority(priority);
+        }
+
+        void setPriority(double priority) {
+            // adding 0.0 turns -0.0 into 0.0, which has the smaller bit pattern
+            this.priority = priority + 0.0;
+            this.bits = Double.doubleToLongBits(this.priority);
+        }
+    }
+
+    public RadixHeapMinPQ() {
+        entries = new HashMap<>();
+        buckets = new Entry[NUM_BUCKETS][0];
+        bucketSizes = new int[NUM_BUCKETS];
+        last = 0;
+        lastBits = 0;
+    }
+
+    /** Returns the number of the highest bit in which bits differs from the last removed priority. */
+    private int bucketFor(long bits) {
+        return 64 - Long.numberOfLeadingZeros(bits ^ lastBits);
+    }
+
+    /** Returns the priority to store for item, or throws if it breaks monotonicity. */
+    private double monotone(T item, double priority) {
+        if (priority >= last) {
+            return priority;
+        } else if (last - priority <= ROUNDING_TOLERANCE * Math.max(1, last)) {
+            return last;
+        }
+        throw new IllegalArgumentException("Priority " + priority + " of " + item
+                + " is below the last removed priority " + last);
+    }
+
+    private void insert(Entry e) {
+        int b = bucketFor(e.bits);
+        if (bucketSizes[b] == buckets[b].length) {
+            buckets[b] = Arrays.copyOf(buckets[b], Math.max(4, 2 * buckets[b].length));
+        }
+        e.bucket = b;
+        e.index = bucketSizes[b];
+        buckets[b][bucketSizes[b]++] = e;
+    }
+
+    /** Removes e from its bucket by moving the bucket's last entry into its place. */
+    private void unlink(Entry e) {
+        Entry[] bucket = buckets[e.bucket];
+        int lastIndex = --bucketSizes[e.bucket];
+        Entry moved = bucket[lastIndex];
+        bucket[e.index] = moved;
+        moved.index = e.index;
+        bucket[lastIndex] = null;
+    }
+
+    /** Returns the lowest non-empty bucket. Assumes the PQ is not empty. */
+    private int firstBucket() {
+        int b = 0;
+        while (bucketSizes[b] == 0) {
+            b++;
+        }
+        return b;
+    }
+
+    private Entry minIn(int b) {
+        Entry min = buckets[b][0];
+        for (int i = 1; i < bucketSizes[b]; i++) {
+            if (buckets[b][i].bits < min.bits) {
+                min = buckets[b][i];
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Adds an item with the given priority value.
+     * Assumes that item is never null.
+     * Runs in O(1) expected time.
+     * @throws IllegalArgumentException if item is already present in the PQ, or the
+     *                                  priority is below the last removed priority
+     */
+    @Override
+    public void add(T item, double priority) {
+        if (entries.containsKey(item)) {
+            throw new IllegalArgumentException("PQ already contain " + item);
+        }
+        Entry e = new Entry(item, monotone(item, priority));
+        entries.put(item, e);
+        insert(e);
+    }
+
+    /**
+     * Adds the item, or lowers its priority if it is already present, with a
+     * single lookup.
+     * Runs in O(1) expected time.
+     * @throws IllegalArgumentException if the priority is below the last removed priority
+     */
+    @Override
+    public void addOrDecrease(T item, double priority) {
+        Entry e = entries.get(item);
+        if (e == null) {
+            add(item, priority);
+        } else if (priority < e.priority) {
+            changePriority(item, priority);
+        }
+    }
+
+    /**
+     * Returns true if the PQ contains the given item; false otherwise.
+     * Runs in O(1) expected time.
+     */
+    @Override
+    public boolean contains(T item) {
+        return entries.containsKey(item);
+    }
+
+    /**
+     * Returns the item with the smallest priority.
+     * Runs in time linear in the size of the lowest non-empty bucket.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getSmallest() {
+        if (entries.isEmpty()) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return (T) minIn(firstBucket()).item;
+    }
+
+    /**
+     * Removes and returns the item with the smallest priority.
+     * Runs in O(log C) amortized time, where C is the range of priorities.
+     * @throws NoSuchElementException if the PQ is empty
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T removeSmallest() {
+        if (entries.isEmpty()) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        int b = firstBucket();
+        if (b > 0) {
+            // advance to the new minimum and spread the bucket over the lower ones;
+            // every entry of bucket b lands strictly below b, so it can be reused
+            Entry min = minIn(b);
+            last = min.priority;
+            lastBits = min.bits;
+            Entry[] old = buckets[b];
+            int n = bucketSizes[b];
+            bucketSizes[b] = 0;
+            for (int i = 0; i < n; i++) {
+                insert(old[i]);
+            }
+            Arrays.fill(old, 0, n, null);
+        }
+        // bucket 0 now holds only items whose priority equals last
+        Entry e = buckets[0][bucketSizes[0] - 1];
+        buckets[0][--bucketSizes[0]] = null;
+        entries.remove(e.item);
+        return (T) e.item;
+    }
+
+    /**
+     * Changes the priority of the given item.
+     * Runs in O(1) expected time.
+     * @throws NoSuchElementException if the item is not present in the PQ
+     * @throws IllegalArgumentException if the priority is below the last removed priority
+     */
+    @Override
+    public void changePriority(T item, double priority) {
+        Entry e = entries.get(item);
+        if (e == null) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        double p = monotone(item, priority);
+        unlink(e);
+        e.setPriority(p);
+        insert(e);
+    }
+
+    /**
+     * Returns the number of items in the PQ.
+     * Runs in O(1) time.
+     */
+    @Override
+    public int size() {
+        return entries.size();
+    }
+}
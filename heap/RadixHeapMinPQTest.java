@@ -0,0 +1,79 @@
+package heap;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RadixHeapMinPQTest extends ExtrinsicMinPQTest {
+
+    @Override
+    protected <T> ExtrinsicMinPQ<T> createMinPQ() {
+        return new RadixHeapMinPQ<>();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBelowLastRemoved() {
+        RadixHeapMinPQ<String> minPQ = new RadixHeapMinPQ<>();
+        minPQ.add("a", 5);
+        minPQ.add("b", 6);
+        minPQ.removeSmallest();
+        minPQ.changePriority("b", 4);
+    }
+
+    @Test
+    public void testRoundingBelowLastRemoved() {
+        RadixHeapMinPQ<String> minPQ = new RadixHeapMinPQ<>();
+        minPQ.add("a", 0.3);
+        minPQ.removeSmallest();
+        minPQ.add("b", 0.1 + 0.2 - 1e-12);
+        assertEquals("b", minPQ.removeSmallest());
+    }
+
+    /** A* over float edge weights can undershoot by more than double rounding error. */
+    @Test
+    public void testFloatRoundingBelowLastRemoved() {
+        RadixHeapMinPQ<String> minPQ = new RadixHeapMinPQ<>();
+        minPQ.add("a", 101.48960731742652);
+        minPQ.removeSmallest();
+        minPQ.add("b", 101.48960719082343);
+        assertEquals("b", minPQ.removeSmallest());
+    }
+
+    /** Dijkstra-like workload: new and lowered priorities never drop below the last removed one. */
+    @Test
+    public void testMonotoneOperations() {
+        Random random = new Random(373);
+        RadixHeapMinPQ<Integer> minPQ = new RadixHeapMinPQ<>();
+        ArrayHeapMinPQ<Integer> reference = new ArrayHeapMinPQ<>();
+        Map<Integer, Double> priority = new HashMap<>();
+        double last = 0;
+        int next = 0;
+        for (int i = 0; i < 200000; i += 1) {
+            int op = random.nextInt(3);
+            if (op == 0 || priority.isEmpty()) {
+                double p = last + random.nextDouble() * 50;
+                minPQ.add(next, p);
+                reference.add(next, p);
+                priority.put(next, p);
+                next += 1;
+            } else if (op == 1) {
+                int item = reference.getSmallest() + random.nextInt(10);
+                if (priority.containsKey(item)) {
+                    double p = last + (priority.get(item) - last) * random.nextDouble();
+                    minPQ.addOrDecrease(item, p);
+                    reference.changePriority(item, p);
+                    priority.put(item, p);
+                }
+            } else {
+                int expected = reference.removeSmallest();
+                assertEquals("Failed on iteration " + i, expected, (int) minPQ.removeSmallest());
+                last = priority.remove(expected);
+            }
+            assertEquals(priority.size(), minPQ.size());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package heap.benchmark;
+
+import astar.FringeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark that replays the fringe operations of real AStarSolver runs,
+ * recorded with RecordAStarTrace, against each ExtrinsicMinPQ implementation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AStarTraceBenchmark {
+
+    @Param({"ARRAY_HEAP", "DARY_HEAP", "PAIRING_HEAP", "RADIX_HEAP", "TREE_MAP"})
+    public FringeType impl;
+
+    /** Trace file written by RecordAStarTrace. */
+    @Param({"astar.trace"})
+    public String trace;
+
+    private MinPQTrace recorded;
+    private Integer[] boxed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        recorded = MinPQTrace.load(trace);
+        boxed = recorded.boxedItems();
+    }
+
+    @Benchmark
+    public long replay() {
+        return recorded.replay(impl, boxed);
+    }
+}
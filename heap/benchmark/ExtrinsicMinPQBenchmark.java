@@ -0,0 +1,62 @@
+package heap.benchmark;
+
+import astar.FringeType;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks comparing the ExtrinsicMinPQ implementations on synthetic
+ * workloads. NAIVE is left out of the default parameters since it is
+ * quadratic; run it on small sizes with e.g. -p impl=NAIVE -p size=1000.
+ * RADIX_HEAP is left out too, since it rejects the RANDOM priorities; it runs
+ * in MonotoneMinPQBenchmark instead. Use main (or AStarTraceBenchmark) to run
+ * the suite and write JSON results.
+ */
+public class ExtrinsicMinPQBenchmark extends MinPQWorkloadBenchmark {
+
+    @Param({"ARRAY_HEAP", "DARY_HEAP", "PAIRING_HEAP", "TREE_MAP"})
+    public FringeType impl;
+
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+
+    @Param({"RANDOM", "MONOTONE"})
+    public Distribution distribution;
+
+    @Override
+    protected FringeType impl() {
+        return impl;
+    }
+
+    @Override
+    protected int size() {
+        return size;
+    }
+
+    @Override
+    protected Distribution distribution() {
+        return distribution;
+    }
+
+    /**
+     * Runs the synthetic, A* trace and street map route benchmarks and writes the results as JSON to
+     * the file given as the first argument (default minpq-benchmark.json), so runs
+     * of different versions can be compared.
+     */
+    public static void main(String[] args) throws RunnerException {
+        String output = args.length > 0 ? args[0] : "minpq-benchmark.json";
+        Options options = new OptionsBuilder()
+                .include(ExtrinsicMinPQBenchmark.class.getSimpleName())
+                .include(MonotoneMinPQBenchmark.class.getSimpleName())
+                .include(AStarTraceBenchmark.class.getSimpleName())
+                .include(RouteFringeBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result(output)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,237 @@
+package heap.benchmark;
+
+import astar.FringeType;
+import heap.ExtrinsicMinPQ;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A recorded sequence of priority queue operations, e.g. the fringe operations
+ * of an AStarSolver run, that can be saved to a file and replayed against any
+ * ExtrinsicMinPQ. Items are renumbered densely in order of first appearance,
+ * so replays use Integer items regardless of the original vertex type.
+ */
+public class MinPQTrace {
+    static final byte ADD = 0;
+    static final byte REMOVE_SMALLEST = 1;
+    static final byte CHANGE_PRIORITY = 2;
+    static final byte ADD_OR_DECREASE = 3;
+    static final byte CONTAINS = 4;
+    static final byte NEW_QUEUE = 5;
+
+    private static final int MAGIC = 0x50515452; // "PQTR"
+
+    private byte[] ops;
+    private int[] items;
+    private double[] priorities;
+    private int length;
+    private int numItems;
+
+    public MinPQTrace() {
+        ops = new byte[1024];
+        items = new int[1024];
+        priorities = new double[1024];
+    }
+
+    /** Returns the number of recorded operations. */
+    public int length() {
+        return length;
+    }
+
+    /** Returns the number of distinct items that appear in the trace. */
+    public int numItems() {
+        return numItems;
+    }
+
+    private void record(byte op, int item, double priority) {
+        if (length == ops.length) {
+            ops = Arrays.copyOf(ops, length * 2);
+            items = Arrays.copyOf(items, length * 2);
+            priorities = Arrays.copyOf(priorities, length * 2);
+        }
+        ops[length] = op;
+        items[length] = item;
+        priorities[length] = priority;
+        length++;
+    }
+
+    /**
+     * Returns a priority queue that forwards every call to the given one and
+     * appends it to this trace. Pass it as the fringe of an AStarSolver to
+     * record a search.
+     */
+    public <T> ExtrinsicMinPQ<T> recording(ExtrinsicMinPQ<T> delegate) {
+        record(NEW_QUEUE, 0, 0);
+        return new RecordingMinPQ<>(delegate);
+    }
+
+    /**
+     * Replays this trace against priority queues of the given kind, starting a
+     * new queue wherever a new one was recorded and using boxedItems[i] for
+     * item i. Returns a checksum of the removed items so the
+     * work cannot be optimized away.
+     * Implementations may break priority ties differently from the one that was
+     * recorded, so the replay tolerates adds of present items, changes of absent
+     * items and removals from an empty queue by skipping them. AStarSolver's
+     * relax records one ADD_OR_DECREASE per improved open vertex, and its loop a
+     * REMOVE_SMALLEST per expansion; the checks are for the ADD, CONTAINS and
+     * CHANGE_PRIORITY ops of traces from other callers.
+     */
+    public long replay(FringeType impl, Integer[] boxedItems) {
+        ExtrinsicMinPQ<Integer> pq = impl.create();
+        long checksum = 0;
+        for (int i = 0; i < length; i++) {
+            Integer item = boxedItems[items[i]];
+            switch (ops[i]) {
+                case ADD:
+                    if (!pq.contains(item)) {
+                        pq.add(item, priorities[i]);
+                    }
+                    break;
+                case REMOVE_SMALLEST:
+                    if (!pq.isEmpty()) {
+                        checksum += pq.removeSmallest();
+                    }
+                    break;
+                case CHANGE_PRIORITY:
+                    if (pq.contains(item)) {
+                        pq.changePriority(item, priorities[i]);
+                    }
+                    break;
+                case ADD_OR_DECREASE:
+                    pq.addOrDecrease(item, priorities[i]);
+                    break;
+                case NEW_QUEUE:
+                    pq = impl.create();
+                    break;
+                case CONTAINS:
+                    if (pq.contains(item)) {
+                        checksum++;
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation " + ops[i]);
+            }
+        }
+        return checksum;
+    }
+
+    /** Returns an array of boxed items 0 to numItems() - 1 for use with replay. */
+    public Integer[] boxedItems() {
+        Integer[] boxed = new Integer[numItems];
+        for (int i = 0; i < numItems; i++) {
+            boxed[i] = i;
+        }
+        return boxed;
+    }
+
+    /** Writes this trace to the given file. */
+    public void save(String filename) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(length);
+            out.writeInt(numItems);
+            for (int i = 0; i < length; i++) {
+                out.writeByte(ops[i]);
+                out.writeInt(items[i]);
+                out.writeDouble(priorities[i]);
+            }
+        }
+    }
+
+    /** Reads a trace written by save. */
+    public static MinPQTrace load(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a priority queue trace: " + filename);
+            }
+            MinPQTrace trace = new MinPQTrace();
+            int n = in.readInt();
+            trace.numItems = in.readInt();
+            trace.ops = new byte[Math.max(n, 1)];
+            trace.items = new int[Math.max(n, 1)];
+            trace.priorities = new double[Math.max(n, 1)];
+            for (int i = 0; i < n; i++) {
+                trace.ops[i] = in.readByte();
+                trace.items[i] = in.readInt();
+                trace.priorities[i] = in.readDouble();
+            }
+            trace.length = n;
+            return trace;
+        }
+    }
+
+    private class RecordingMinPQ<T> implements ExtrinsicMinPQ<T> {
+        private final ExtrinsicMinPQ<T> delegate;
+        private final Map<T, Integer> ids = new HashMap<>();
+
+        RecordingMinPQ(ExtrinsicMinPQ<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        private int id(T item) {
+            Integer id = ids.get(item);
+            if (id == null) {
+                id = numItems++;
+                ids.put(item, id);
+            }
+            return id;
+        }
+
+        @Override
+        public void add(T item, double priority) {
+            delegate.add(item, priority);
+            record(ADD, id(item), priority);
+        }
+
+        @Override
+        public void addOrDecrease(T item, double priority) {
+            delegate.addOrDecrease(item, priority);
+            record(ADD_OR_DECREASE, id(item), priority);
+        }
+
+        @Override
+        public boolean contains(T item) {
+            record(CONTAINS, id(item), 0);
+            return delegate.contains(item);
+        }
+
+        @Override
+        public T getSmallest() {
+            return delegate.getSmallest();
+        }
+
+        @Override
+        public T removeSmallest() {
+            if (delegate.isEmpty()) {
+                throw new NoSuchElementException("PQ is empty");
+            }
+            T item = delegate.removeSmallest();
+            record(REMOVE_SMALLEST, id(item), 0);
+            return item;
+        }
+
+        @Override
+        public void changePriority(T item, double priority) {
+            delegate.changePriority(item, priority);
+            record(CHANGE_PRIORITY, id(item), priority);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package heap.benchmark;
+
+import astar.FringeType;
+import heap.ExtrinsicMinPQ;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic workloads for comparing the ExtrinsicMinPQ implementations.
+ * Subclasses choose the implementations, sizes and priority distributions to
+ * run them with, since not every implementation accepts every distribution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public abstract class MinPQWorkloadBenchmark {
+    private static final int SEED = 373;
+    /** Range of new priorities above the last removed one in the MONOTONE distribution. */
+    private static final double MONOTONE_SPREAD = 100;
+
+    /** How priorities are drawn. */
+    public enum Distribution {
+        /** Uniform over [0, size), independent of what has been removed. */
+        RANDOM,
+        /** Never below the last removed priority, as in Dijkstra or consistent A*. */
+        MONOTONE
+    }
+
+    /** Returns the implementation to run. */
+    protected abstract FringeType impl();
+
+    /** Returns the number of items. */
+    protected abstract int size();
+
+    /** Returns how priorities are drawn. */
+    protected abstract Distribution distribution();
+
+    private Integer[] boxed;
+    private double[] fillPriorities;
+    private byte[] mixOps;
+    private int[] mixTargets;
+    private double[] mixFractions;
+
+    // state of the mixed workload, rebuilt before each invocation
+    private ExtrinsicMinPQ<Integer> pq;
+    private double[] current;
+    private int[] live;
+    private int[] liveIndex;
+    private int numLive;
+    private int[] free;
+    private int numFree;
+    private double lastMin;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        int size = size();
+        Random random = new Random(SEED);
+        boxed = new Integer[size];
+        fillPriorities = new double[size];
+        for (int i = 0; i < size; i++) {
+            boxed[i] = i;
+            if (distribution() == Distribution.RANDOM) {
+                fillPriorities[i] = random.nextDouble() * size;
+            } else {
+                fillPriorities[i] = i + random.nextDouble();
+            }
+        }
+        // 40% add, 20% decrease priority, 40% removeSmallest
+        mixOps = new byte[size];
+        mixTargets = new int[size];
+        mixFractions = new double[size];
+        for (int i = 0; i < size; i++) {
+            int r = random.nextInt(10);
+            mixOps[i] = (byte) (r < 4 ? 0 : (r < 6 ? 1 : 2));
+            mixTargets[i] = random.nextInt(Integer.MAX_VALUE);
+            mixFractions[i] = random.nextDouble();
+        }
+        current = new double[size];
+        live = new int[size];
+        liveIndex = new int[size];
+        free = new int[size];
+    }
+
+    /** Prefills a fresh queue with half of the items for the mixed workload. */
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        int size = size();
+        pq = impl().create();
+        numLive = 0;
+        numFree = 0;
+        lastMin = 0;
+        for (int i = size - 1; i >= size / 2; i--) {
+            free[numFree++] = i;
+        }
+        for (int i = 0; i < size / 2; i++) {
+            current[i] = fillPriorities[i];
+            pq.add(boxed[i], current[i]);
+            liveIndex[i] = numLive;
+            live[numLive++] = i;
+        }
+    }
+
+    /** Adds size items and then removes them all. */
+    @Benchmark
+    public void fillThenDrain(Blackhole bh) {
+        int size = size();
+        ExtrinsicMinPQ<Integer> fresh = impl().create();
+        for (int i = 0; i < size; i++) {
+            fresh.add(boxed[i], fillPriorities[i]);
+        }
+        while (!fresh.isEmpty()) {
+            bh.consume(fresh.removeSmallest());
+        }
+    }
+
+    /**
+     * Runs size operations against a half-full queue: 40% add, 20% decrease
+     * priority of a random present item, 40% removeSmallest.
+     */
+    @Benchmark
+    public void mixed(Blackhole bh) {
+        int size = size();
+        boolean monotone = distribution() == Distribution.MONOTONE;
+        for (int i = 0; i < size; i++) {
+            byte op = mixOps[i];
+            if (op == 0 && numFree > 0) {
+                int item = free[--numFree];
+                current[item] = monotone
+                        ? lastMin + mixFractions[i] * MONOTONE_SPREAD
+                        : mixFractions[i] * size;
+                pq.add(boxed[item], current[item]);
+                liveIndex[item] = numLive;
+                live[numLive++] = item;
+            } else if (op == 1 && numLive > 0) {
+                int item = live[mixTargets[i] % numLive];
+                double floor = monotone ? lastMin : 0;
+                current[item] = floor + (current[item] - floor) * mixFractions[i];
+                pq.changePriority(boxed[item], current[item]);
+            } else if (numLive > 0) {
+                int item = pq.removeSmallest();
+                lastMin = current[item];
+                int moved = live[--numLive];
+                live[liveIndex[item]] = moved;
+                liveIndex[moved] = liveIndex[item];
+                free[numFree++] = item;
+                bh.consume(item);
+            }
+        }
+    }
+}
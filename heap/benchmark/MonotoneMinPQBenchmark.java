@@ -0,0 +1,33 @@
+package heap.benchmark;
+
+import astar.FringeType;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * The synthetic workloads of ExtrinsicMinPQBenchmark with MONOTONE priorities
+ * only, as Dijkstra or consistent A* produce them, so that RADIX_HEAP can be
+ * compared with the other implementations.
+ */
+public class MonotoneMinPQBenchmark extends MinPQWorkloadBenchmark {
+
+    @Param({"ARRAY_HEAP", "DARY_HEAP", "PAIRING_HEAP", "RADIX_HEAP", "TREE_MAP"})
+    public FringeType impl;
+
+    @Param({"1000", "100000", "10000000"})
+    public int size;
+
+    @Override
+    protected FringeType impl() {
+        return impl;
+    }
+
+    @Override
+    protected int size() {
+        return size;
+    }
+
+    @Override
+    protected Distribution distribution() {
+        return Distribution.MONOTONE;
+    }
+}
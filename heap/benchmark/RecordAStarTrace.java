@@ -0,0 +1,38 @@
+package heap.benchmark;
+
+import astar.AStarSolver;
+import heap.ArrayHeapMinPQ;
+import huskymaps.StreetMapGraph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static huskymaps.utils.Constants.OSM_DB_PATH;
+
+/**
+ * Records the fringe operations of AStarSolver routes between random vertices
+ * of a street map into a trace file for AStarTraceBenchmark.
+ * Usage: RecordAStarTrace [osm file] [trace file] [number of routes]
+ */
+public class RecordAStarTrace {
+    public static void main(String[] args) throws IOException {
+        String osm = args.length > 0 ? args[0] : OSM_DB_PATH;
+        String output = args.length > 1 ? args[1] : "astar.trace";
+        int routes = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        StreetMapGraph graph = new StreetMapGraph(osm);
+        List<Long> vertices = new ArrayList<>(graph.vertices());
+        Random random = new Random(373);
+        MinPQTrace trace = new MinPQTrace();
+        for (int i = 0; i < routes; i += 1) {
+            long start = vertices.get(random.nextInt(vertices.size()));
+            long goal = vertices.get(random.nextInt(vertices.size()));
+            new AStarSolver<>(graph, start, goal, 20, trace.recording(new ArrayHeapMinPQ<>()));
+        }
+        trace.save(output);
+        System.out.println("Recorded " + trace.length() + " operations on "
+                + trace.numItems() + " items to " + output);
+    }
+}
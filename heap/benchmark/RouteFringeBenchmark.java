@@ -0,0 +1,85 @@
+package heap.benchmark;
+
+import astar.AStarSolver;
+import astar.FringeType;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.StreetMapGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static huskymaps.utils.Constants.OSM_DB_PATH;
+
+/**
+ * JMH benchmark running AStarSolver between fixed random vertex pairs of the
+ * street map with each fringe implementation. indexedRoutes runs the same
+ * routes with the allocation-free search over the compact graph as a baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class RouteFringeBenchmark {
+    private static final int NUM_ROUTES = 50;
+
+    @Param({"ARRAY_HEAP", "DARY_HEAP", "PAIRING_HEAP", "RADIX_HEAP"})
+    public FringeType fringe;
+
+    @Param({OSM_DB_PATH})
+    public String osm;
+
+    private CompactStreetMapGraph graph;
+    private long[] starts;
+    private long[] goals;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StreetMapGraph streetMap = new StreetMapGraph(osm);
+        graph = streetMap.compact();
+        List<Long> vertices = new ArrayList<>(streetMap.vertices());
+        Random random = new Random(373);
+        starts = new long[NUM_ROUTES];
+        goals = new long[NUM_ROUTES];
+        for (int i = 0; i < NUM_ROUTES; i += 1) {
+            starts[i] = vertices.get(random.nextInt(vertices.size()));
+            goals[i] = vertices.get(random.nextInt(vertices.size()));
+        }
+    }
+
+    /** Solves all the routes; returns the total number of states explored. */
+    @Benchmark
+    public long routes() {
+        long explored = 0;
+        for (int i = 0; i < NUM_ROUTES; i += 1) {
+            explored += new AStarSolver<>(graph, starts[i], goals[i], 20,
+                    fringe.<Long>create()).numStatesExplored();
+        }
+        return explored;
+    }
+
+    /** Solves all the routes with the int-indexed search; ignores the fringe parameter. */
+    @Benchmark
+    public long indexedRoutes() {
+        long explored = 0;
+        for (int i = 0; i < NUM_ROUTES; i += 1) {
+            explored += new AStarSolver<>(graph, starts[i], goals[i], 20).numStatesExplored();
+        }
+        return explored;
+    }
+}
@@ -0,0 +1,330 @@
+package huskymaps;
+
+import astar.BidirectionalAStarGraph;
+import astar.WeightedEdge;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static huskymaps.utils.Spatial.greatCircleDistance;
+
+/**
+ * Frozen copy of a street map graph in compressed sparse row (CSR) layout.
+ * OSM ids are sorted into a long[] and vertices are numbered by their position
+ * in it; the outgoing edges of vertex v are entries offsets[v] to
+ * offsets[v + 1] - 1 of the parallel edge arrays. Everything lives in a few
+ * primitive arrays, so the graph costs tens of bytes per vertex and edge instead
+ * of a HashMap entry, a HashSet and a WeightedEdge object for each.
+ * Built by StreetMapGraph once OSMGraphHandler has finished; see
+ * StreetMapGraph.compact().
+ * The incoming edges, used by BidirectionalAStarSolver, are kept in a second
+ * CSR built from the first on first use.
+ */
+public class CompactStreetMapGraph implements BidirectionalAStarGraph<Long> {
+    private final long[] ids;
+    private final double[] lat;
+    private final double[] lon;
+    private final int[] offsets;
+    private final int[] targets;
+    private final float[] weights;
+    // names are repeated along every edge of a way, so each edge keeps an index into edgeNames
+    private final int[] nameIndex;
+    private final String[] edgeNames;
+    private volatile Reverse reverse;
+
+    /** Incoming edges in CSR layout: entries offsets[v] to offsets[v + 1] - 1 end at v. */
+    private static class Reverse {
+        private final int[] offsets;
+        private final int[] sources;
+        private final float[] weights;
+
+        Reverse(int[] offsets, int[] sources, float[] weights) {
+            this.offsets = offsets;
+            this.sources = sources;
+            this.weights = weights;
+        }
+    }
+
+    CompactStreetMapGraph(Map<Long, Node> nodes, Map<Long, ? extends Collection<WeightedEdge<Long>>> neighbors) {
+        int n = nodes.size();
+        ids = new long[n];
+        int i = 0;
+        for (long id : nodes.keySet()) {
+            ids[i] = id;
+            i += 1;
+        }
+        Arrays.sort(ids);
+
+        lat = new double[n];
+        lon = new double[n];
+        offsets = new int[n + 1];
+        for (int v = 0; v < n; v += 1) {
+            Node node = nodes.get(ids[v]);
+            lat[v] = node.lat();
+            lon[v] = node.lon();
+            offsets[v + 1] = offsets[v] + neighbors.get(ids[v]).size();
+        }
+
+        int m = offsets[n];
+        targets = new int[m];
+        weights = new float[m];
+        nameIndex = new int[m];
+        Map<String, Integer> nameIds = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (int v = 0; v < n; v += 1) {
+            int e = offsets[v];
+            for (WeightedEdge<Long> edge : neighbors.get(ids[v])) {
+                targets[e] = indexOf((long) edge.to());
+                weights[e] = (float) edge.weight();
+                Integer name = nameIds.get(edge.name());
+                if (name == null) {
+                    name = names.size();
+                    nameIds.put(edge.name(), name);
+                    names.add(edge.name());
+                }
+                nameIndex[e] = name;
+                e += 1;
+            }
+        }
+        edgeNames = names.toArray(new String[0]);
+    }
+
+    private CompactStreetMapGraph(long[] ids, double[] lat, double[] lon, int[] offsets,
+                                  int[] targets, float[] weights, int[] nameIndex, String[] edgeNames) {
+        this.ids = ids;
+        this.lat = lat;
+        this.lon = lon;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.nameIndex = nameIndex;
+        this.edgeNames = edgeNames;
+    }
+
+    /** Writes the arrays of this graph in the layout read by read. */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(ids.length);
+        out.writeInt(targets.length);
+        out.writeInt(edgeNames.length);
+        for (int v = 0; v < ids.length; v += 1) {
+            out.writeLong(ids[v]);
+        }
+        for (int v = 0; v < ids.length; v += 1) {
+            out.writeDouble(lat[v]);
+        }
+        for (int v = 0; v < ids.length; v += 1) {
+            out.writeDouble(lon[v]);
+        }
+        for (int v = 0; v <= ids.length; v += 1) {
+            out.writeInt(offsets[v]);
+        }
+        for (int e = 0; e < targets.length; e += 1) {
+            out.writeInt(targets[e]);
+        }
+        for (int e = 0; e < targets.length; e += 1) {
+            out.writeFloat(weights[e]);
+        }
+        for (int e = 0; e < targets.length; e += 1) {
+            out.writeInt(nameIndex[e]);
+        }
+        for (String name : edgeNames) {
+            GraphSnapshot.writeString(out, name);
+        }
+    }
+
+    /** Reads a graph written by write, advancing the buffer past it. */
+    static CompactStreetMapGraph read(ByteBuffer in) {
+        int n = in.getInt();
+        int m = in.getInt();
+        int numNames = in.getInt();
+        long[] ids = new long[n];
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        float[] weights = new float[m];
+        int[] nameIndex = new int[m];
+        // bulk copies out of the (mapped) buffer instead of one get per value
+        in.asLongBuffer().get(ids);
+        in.position(in.position() + 8 * n);
+        in.asDoubleBuffer().get(lat);
+        in.position(in.position() + 8 * n);
+        in.asDoubleBuffer().get(lon);
+        in.position(in.position() + 8 * n);
+        in.asIntBuffer().get(offsets);
+        in.position(in.position() + 4 * (n + 1));
+        in.asIntBuffer().get(targets);
+        in.position(in.position() + 4 * m);
+        in.asFloatBuffer().get(weights);
+        in.position(in.position() + 4 * m);
+        in.asIntBuffer().get(nameIndex);
+        in.position(in.position() + 4 * m);
+        String[] edgeNames = new String[numNames];
+        for (int i = 0; i < numNames; i += 1) {
+            edgeNames[i] = GraphSnapshot.readString(in);
+        }
+        return new CompactStreetMapGraph(ids, lat, lon, offsets, targets, weights, nameIndex, edgeNames);
+    }
+
+    /** Returns the number of vertices. */
+    @Override
+    public int numVertices() {
+        return ids.length;
+    }
+
+    /** Returns the number of directed edges. */
+    public int numEdges() {
+        return targets.length;
+    }
+
+    /** Returns the index of the vertex with the given OSM id, or -1 if there is none. Runs in O(log N) time. */
+    public int indexOf(long id) {
+        int v = Arrays.binarySearch(ids, id);
+        return v < 0 ? -1 : v;
+    }
+
+    @Override
+    public int indexOf(Long id) {
+        return indexOf((long) id);
+    }
+
+    @Override
+    public Long vertexAt(int v) {
+        return ids[v];
+    }
+
+    /** Returns the OSM id of vertex v. */
+    public long id(int v) {
+        return ids[v];
+    }
+
+    /** Returns the latitude of vertex v. */
+    public double lat(int v) {
+        return lat[v];
+    }
+
+    /** Returns the longitude of vertex v. */
+    public double lon(int v) {
+        return lon[v];
+    }
+
+    /** Returns the number of outgoing edges of vertex v. */
+    public int outDegree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    @Override
+    public int edgeStart(int v) {
+        return offsets[v];
+    }
+
+    @Override
+    public int edgeEnd(int v) {
+        return offsets[v + 1];
+    }
+
+    @Override
+    public int edgeTarget(int e) {
+        return targets[e];
+    }
+
+    @Override
+    public double edgeWeight(int e) {
+        return weights[e];
+    }
+
+    @Override
+    public int reverseEdgeStart(int v) {
+        return reverse().offsets[v];
+    }
+
+    @Override
+    public int reverseEdgeEnd(int v) {
+        return reverse().offsets[v + 1];
+    }
+
+    @Override
+    public int reverseEdgeSource(int e) {
+        return reverse().sources[e];
+    }
+
+    @Override
+    public double reverseEdgeWeight(int e) {
+        return reverse().weights[e];
+    }
+
+    /** Returns the incoming edges, transposing the outgoing ones on first use. Runs in O(N + M) time once. */
+    private Reverse reverse() {
+        Reverse r = reverse;
+        if (r == null) {
+            synchronized (this) {
+                r = reverse;
+                if (r == null) {
+                    r = transpose();
+                    reverse = r;
+                }
+            }
+        }
+        return r;
+    }
+
+    private Reverse transpose() {
+        int n = ids.length;
+        int[] reverseOffsets = new int[n + 1];
+        for (int e = 0; e < targets.length; e += 1) {
+            reverseOffsets[targets[e] + 1] += 1;
+        }
+        for (int v = 0; v < n; v += 1) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        int[] next = Arrays.copyOf(reverseOffsets, n);
+        int[] sources = new int[targets.length];
+        float[] reverseWeights = new float[targets.length];
+        for (int u = 0; u < n; u += 1) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e += 1) {
+                int slot = next[targets[e]];
+                sources[slot] = u;
+                reverseWeights[slot] = weights[e];
+                next[targets[e]] = slot + 1;
+            }
+        }
+        return new Reverse(reverseOffsets, sources, reverseWeights);
+    }
+
+    /** Returns the name of the way edge e belongs to. */
+    public String edgeName(int e) {
+        return edgeNames[nameIndex[e]];
+    }
+
+    /**
+     * Returns a new list of the outgoing edges of V. Prefer edgeStart and
+     * edgeEnd, which do not allocate. Assumes V exists in this graph.
+     */
+    @Override
+    public List<WeightedEdge<Long>> neighbors(Long v) {
+        int u = indexOf((long) v);
+        List<WeightedEdge<Long>> edges = new ArrayList<>(outDegree(u));
+        for (int e = offsets[u]; e < offsets[u + 1]; e += 1) {
+            edges.add(new WeightedEdge<>(v, ids[targets[e]], weights[e], edgeName(e)));
+        }
+        return edges;
+    }
+
+    /** Returns the great-circle distance between S and GOAL. Assumes both exist in this graph. */
+    @Override
+    public double estimatedDistanceToGoal(Long s, Long goal) {
+        return estimatedDistanceToGoal(indexOf((long) s), indexOf((long) goal));
+    }
+
+    @Override
+    public double estimatedDistanceToGoal(int v, int goal) {
+        return greatCircleDistance(lon[v], lon[goal], lat[v], lat[goal]);
+    }
+}
@@ -0,0 +1,718 @@
+package huskymaps;
+
+import astar.ShortestPathsSolver;
+import edu.princeton.cs.algs4.Stopwatch;
+import heap.IntArrayHeapMinPQ;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Contraction hierarchy over a CompactStreetMapGraph, for routes that settle a
+ * few hundred vertices instead of the tens of thousands A* explores.
+ *
+ * build contracts the vertices one at a time, cheapest first: removing vertex v
+ * adds a shortcut u -> w for every path u -> v -> w that has no shorter witness
+ * path avoiding v. Every edge then leads either up or down the order, and the
+ * shortest path between any two vertices goes up from the start and down to
+ * the goal. solve runs Dijkstra upwards from both ends and unpacks the shortcuts
+ * on the best meeting path back into original edges.
+ *
+ * Building takes a while on a city, so it is done offline and stored in the
+ * GraphSnapshot; see StreetMapGraph.contractionHierarchy().
+ */
+public class ContractionHierarchy {
+    // witness searches give up after settling this many vertices; a missed
+    // witness only costs an unneeded shortcut
+    private static final int WITNESS_SETTLE_LIMIT = 200;
+
+    private final CompactStreetMapGraph g;
+    // upward edges by lower endpoint: entries upOffsets[v] to upOffsets[v + 1] - 1 go from v to upTargets
+    private final int[] upOffsets;
+    private final int[] upTargets;
+    private final double[] upWeights;
+    // the vertex a shortcut skips, or -1 for an original edge
+    private final int[] upMiddles;
+    // downward edges by lower endpoint: entries downOffsets[v] to downOffsets[v + 1] - 1 go from downSources to v
+    private final int[] downOffsets;
+    private final int[] downSources;
+    private final double[] downWeights;
+    private final int[] downMiddles;
+    private final ThreadLocal<Query> queries;
+
+    private ContractionHierarchy(CompactStreetMapGraph g, int[] upOffsets, int[] upTargets, double[] upWeights,
+                                 int[] upMiddles, int[] downOffsets, int[] downSources, double[] downWeights,
+                                 int[] downMiddles) {
+        this.g = g;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downWeights = downWeights;
+        this.downMiddles = downMiddles;
+        queries = ThreadLocal.withInitial(Query::new);
+    }
+
+    /** Contracts every vertex of g. Runs in roughly O(N log N) time on road networks. */
+    public static ContractionHierarchy build(CompactStreetMapGraph g) {
+        return new Builder(g).build();
+    }
+
+    /** Returns the number of upward and downward edges, shortcuts included. */
+    public int numEdges() {
+        return upTargets.length + downSources.length;
+    }
+
+    /**
+     * Returns the shortest path from start to end as a solver whose outcome is
+     * SOLVED or UNSOLVABLE. Safe to call from several threads at once.
+     * @throws IllegalArgumentException if start or end is not in the graph
+     */
+    public ShortestPathsSolver<Long> solve(long start, long end) {
+        int s = g.indexOf(start);
+        int t = g.indexOf(end);
+        if (s < 0 || t < 0) {
+            throw new IllegalArgumentException("Not in the graph: " + (s < 0 ? start : end));
+        }
+        return queries.get().run(s, t);
+    }
+
+    /**
+     * Returns the distances from every source to every target, infinite where
+     * there is no path. The upward search from each target leaves its distance
+     * in a bucket at every vertex it reaches; the upward searches from the
+     * sources, run in parallel, then only read the buckets of the vertices they
+     * reach. Each search is a few hundred vertices, so this takes about as
+     * long as sources.length + targets.length point-to-point queries.
+     * @throws IllegalArgumentException if a source or target is not in the graph
+     */
+    public double[][] distances(long[] sources, long[] targets) {
+        int[] s = indices(sources);
+        int[] t = indices(targets);
+        int n = g.numVertices();
+        int[][] reached = new int[t.length][];
+        double[][] reachedDist = new double[t.length][];
+        IntStream.range(0, t.length).parallel().forEach(j -> {
+            Query q = queries.get();
+            int count = q.sweep(t[j], true);
+            reached[j] = Arrays.copyOf(q.settled, count);
+            reachedDist[j] = new double[count];
+            for (int i = 0; i < count; i += 1) {
+                reachedDist[j][i] = q.distFrom[reached[j][i]];
+            }
+        });
+
+        // buckets in CSR layout: entries offsets[v] to offsets[v + 1] - 1 are the targets that reached v
+        int[] offsets = new int[n + 1];
+        for (int[] vertices : reached) {
+            for (int v : vertices) {
+                offsets[v + 1] += 1;
+            }
+        }
+        for (int v = 0; v < n; v += 1) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] bucketTargets = new int[offsets[n]];
+        double[] bucketDists = new double[offsets[n]];
+        for (int j = 0; j < t.length; j += 1) {
+            for (int i = 0; i < reached[j].length; i += 1) {
+                int b = next[reached[j][i]];
+                bucketTargets[b] = j;
+                bucketDists[b] = reachedDist[j][i];
+                next[reached[j][i]] = b + 1;
+            }
+        }
+
+        double[][] result = new double[s.length][];
+        IntStream.range(0, s.length).parallel().forEach(i -> {
+            Query q = queries.get();
+            int count = q.sweep(s[i], false);
+            double[] row = new double[t.length];
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            for (int k = 0; k < count; k += 1) {
+                int u = q.settled[k];
+                double d = q.distTo[u];
+                for (int b = offsets[u]; b < offsets[u + 1]; b += 1) {
+                    row[bucketTargets[b]] = Math.min(row[bucketTargets[b]], d + bucketDists[b]);
+                }
+            }
+            result[i] = row;
+        });
+        return result;
+    }
+
+    private int[] indices(long[] ids) {
+        int[] indices = new int[ids.length];
+        for (int i = 0; i < ids.length; i += 1) {
+            indices[i] = g.indexOf(ids[i]);
+            if (indices[i] < 0) {
+                throw new IllegalArgumentException("Not in the graph: " + ids[i]);
+            }
+        }
+        return indices;
+    }
+
+    /** Writes the edges for GraphSnapshot, in the layout read by read. */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(upOffsets.length - 1);
+        out.writeInt(upTargets.length);
+        out.writeInt(downSources.length);
+        writeInts(out, upOffsets);
+        writeInts(out, upTargets);
+        writeDoubles(out, upWeights);
+        writeInts(out, upMiddles);
+        writeInts(out, downOffsets);
+        writeInts(out, downSources);
+        writeDoubles(out, downWeights);
+        writeInts(out, downMiddles);
+    }
+
+    /** Reads a hierarchy of g written by write, advancing the buffer past it. */
+    static ContractionHierarchy read(ByteBuffer in, CompactStreetMapGraph g) {
+        int n = in.getInt();
+        int up = in.getInt();
+        int down = in.getInt();
+        if (n != g.numVertices()) {
+            throw new IllegalArgumentException("Hierarchy has " + n + " vertices, graph has " + g.numVertices());
+        }
+        return new ContractionHierarchy(g, readInts(in, n + 1), readInts(in, up), readDoubles(in, up),
+                readInts(in, up), readInts(in, n + 1), readInts(in, down), readDoubles(in, down),
+                readInts(in, down));
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in, int length) {
+        int[] values = new int[length];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + 4 * length);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer in, int length) {
+        double[] values = new double[length];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + 8 * length);
+        return values;
+    }
+
+    /**
+     * Per-thread search state. A vertex has been reached by a search iff its
+     * stamp equals the current generation, so nothing is cleared between queries.
+     */
+    private class Query {
+        private final double[] distTo;
+        private final int[] edgeTo;
+        private final int[] stampTo;
+        private final double[] distFrom;
+        private final int[] edgeFrom;
+        private final int[] stampFrom;
+        private final IntArrayHeapMinPQ forward;
+        private final IntArrayHeapMinPQ backward;
+        // vertices settled by the last sweep, in order
+        private final int[] settled;
+        private int generation;
+
+        Query() {
+            int n = g.numVertices();
+            distTo = new double[n];
+            edgeTo = new int[n];
+            stampTo = new int[n];
+            distFrom = new double[n];
+            edgeFrom = new int[n];
+            stampFrom = new int[n];
+            forward = new IntArrayHeapMinPQ(n);
+            backward = new IntArrayHeapMinPQ(n);
+            settled = new int[n];
+        }
+
+        /**
+         * Settles every vertex reachable upwards from root, over the upward edges
+         * or, if backward, the downward ones reversed. Returns how many there are;
+         * they are in settled, with their distances in distTo or distFrom.
+         */
+        int sweep(int root, boolean backward) {
+            generation += 1;
+            IntArrayHeapMinPQ pq = backward ? this.backward : forward;
+            double[] dist = backward ? distFrom : distTo;
+            int[] edge = backward ? edgeFrom : edgeTo;
+            int[] stamp = backward ? stampFrom : stampTo;
+            int[] offsets = backward ? downOffsets : upOffsets;
+            int[] ends = backward ? downSources : upTargets;
+            double[] weights = backward ? downWeights : upWeights;
+            stamp[root] = generation;
+            dist[root] = 0;
+            pq.add(root, 0);
+            int count = 0;
+            while (!pq.isEmpty()) {
+                int u = pq.removeSmallest();
+                settled[count] = u;
+                count += 1;
+                for (int e = offsets[u]; e < offsets[u + 1]; e += 1) {
+                    int v = ends[e];
+                    double d = dist[u] + weights[e];
+                    if (stamp[v] != generation || d < dist[v]) {
+                        relax(pq, dist, edge, stamp, v, d, e);
+                    }
+                }
+            }
+            return count;
+        }
+
+        Result run(int s, int t) {
+            Stopwatch sw = new Stopwatch();
+            generation += 1;
+            int settled = 0;
+            double best = Double.POSITIVE_INFINITY;
+            int meet = -1;
+            stampTo[s] = generation;
+            distTo[s] = 0;
+            edgeTo[s] = -1;
+            forward.add(s, 0);
+            stampFrom[t] = generation;
+            distFrom[t] = 0;
+            edgeFrom[t] = -1;
+            backward.add(t, 0);
+            if (s == t) {
+                best = 0;
+                meet = s;
+            }
+
+            // neither search can improve on best once its smallest distance reaches it
+            while (Math.min(forward.smallestPriority(), backward.smallestPriority()) < best) {
+                settled += 1;
+                if (forward.smallestPriority() <= backward.smallestPriority()) {
+                    int u = forward.removeSmallest();
+                    for (int e = upOffsets[u]; e < upOffsets[u + 1]; e += 1) {
+                        int v = upTargets[e];
+                        double d = distTo[u] + upWeights[e];
+                        if (stampTo[v] != generation || d < distTo[v]) {
+                            relax(forward, distTo, edgeTo, stampTo, v, d, e);
+                            if (stampFrom[v] == generation && d + distFrom[v] < best) {
+                                best = d + distFrom[v];
+                                meet = v;
+                            }
+                        }
+                    }
+                } else {
+                    int u = backward.removeSmallest();
+                    for (int e = downOffsets[u]; e < downOffsets[u + 1]; e += 1) {
+                        int v = downSources[e];
+                        double d = distFrom[u] + downWeights[e];
+                        if (stampFrom[v] != generation || d < distFrom[v]) {
+                            relax(backward, distFrom, edgeFrom, stampFrom, v, d, e);
+                            if (stampTo[v] == generation && d + distTo[v] < best) {
+                                best = d + distTo[v];
+                                meet = v;
+                            }
+                        }
+                    }
+                }
+            }
+            forward.clear();
+            backward.clear();
+
+            List<Long> path = new ArrayList<>();
+            if (meet != -1) {
+                List<Integer> vertices = new ArrayList<>();
+                for (int v = meet; edgeTo[v] != -1; v = upSource(edgeTo[v])) {
+                    unpack(upSource(edgeTo[v]), v, upMiddles[edgeTo[v]], vertices, true);
+                }
+                vertices.add(s);
+                Collections.reverse(vertices);
+                for (int v = meet; edgeFrom[v] != -1; v = downTarget(edgeFrom[v])) {
+                    unpack(v, downTarget(edgeFrom[v]), downMiddles[edgeFrom[v]], vertices, false);
+                }
+                for (int v : vertices) {
+                    path.add(g.id(v));
+                }
+            }
+            return new Result(path, best, settled, sw.elapsedTime());
+        }
+
+        private void relax(IntArrayHeapMinPQ pq, double[] dist, int[] edge, int[] stamp, int v, double d, int e) {
+            dist[v] = d;
+            edge[v] = e;
+            if (stamp[v] != generation) {
+                stamp[v] = generation;
+                pq.add(v, d);
+            } else if (pq.contains(v)) {
+                pq.changePriority(v, d);
+            }
+        }
+    }
+
+    /** Returns the lower endpoint of upward edge e. Runs in O(log N) time. */
+    private int upSource(int e) {
+        return endpoint(upOffsets, e);
+    }
+
+    /** Returns the lower endpoint of downward edge e. Runs in O(log N) time. */
+    private int downTarget(int e) {
+        return endpoint(downOffsets, e);
+    }
+
+    /** Returns the vertex v whose entries offsets[v] to offsets[v + 1] - 1 hold e. */
+    private static int endpoint(int[] offsets, int e) {
+        int v = Arrays.binarySearch(offsets, e);
+        if (v < 0) {
+            return -v - 2;
+        }
+        // vertices without edges share an offset with the next one
+        while (offsets[v + 1] == e) {
+            v += 1;
+        }
+        return v;
+    }
+
+    /**
+     * Adds the original path of edge u -> w, which skips middle (-1 if none), to
+     * vertices without u. If reversed, the vertices are added from w back to u.
+     */
+    private void unpack(int u, int w, int middle, List<Integer> vertices, boolean reversed) {
+        if (middle == -1) {
+            vertices.add(w);
+            return;
+        }
+        // the middle was contracted first, so u -> middle points down and middle -> w up
+        int first = -1;
+        for (int e = downOffsets[middle]; e < downOffsets[middle + 1]; e += 1) {
+            if (downSources[e] == u) {
+                first = e;
+            }
+        }
+        int second = -1;
+        for (int e = upOffsets[middle]; e < upOffsets[middle + 1]; e += 1) {
+            if (upTargets[e] == w) {
+                second = e;
+            }
+        }
+        if (reversed) {
+            unpack(middle, w, upMiddles[second], vertices, true);
+            unpack(u, middle, downMiddles[first], vertices, true);
+        } else {
+            unpack(u, middle, downMiddles[first], vertices, false);
+            unpack(middle, w, upMiddles[second], vertices, false);
+        }
+    }
+
+    private static class Result implements ShortestPathsSolver<Long> {
+        private final List<Long> solution;
+        private final double solutionWeight;
+        private final int numStatesExplored;
+        private final double explorationTime;
+
+        Result(List<Long> solution, double solutionWeight, int numStatesExplored, double explorationTime) {
+            this.solution = solution;
+            this.solutionWeight = solutionWeight;
+            this.numStatesExplored = numStatesExplored;
+            this.explorationTime = explorationTime;
+        }
+
+        @Override
+        public SolverOutcome outcome() {
+            return solution.isEmpty() ? SolverOutcome.UNSOLVABLE : SolverOutcome.SOLVED;
+        }
+
+        @Override
+        public List<Long> solution() {
+            return solution;
+        }
+
+        @Override
+        public double solutionWeight() {
+            return solutionWeight;
+        }
+
+        @Override
+        public int numStatesExplored() {
+            return numStatesExplored;
+        }
+
+        @Override
+        public double explorationTime() {
+            return explorationTime;
+        }
+    }
+
+    /** Edges of one vertex in the graph being contracted, at most one per neighbor. */
+    private static class EdgeList {
+        private int[] vertices = new int[4];
+        private double[] weights = new double[4];
+        private int[] middles = new int[4];
+        private int size;
+
+        /** Adds the edge, or lowers the weight of the existing edge to v; returns false if it is no better. */
+        boolean relax(int v, double weight, int middle) {
+            for (int i = 0; i < size; i += 1) {
+                if (vertices[i] == v) {
+                    if (weights[i] <= weight) {
+                        return false;
+                    }
+                    weights[i] = weight;
+                    middles[i] = middle;
+                    return true;
+                }
+            }
+            if (size == vertices.length) {
+                vertices = Arrays.copyOf(vertices, 2 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+                middles = Arrays.copyOf(middles, 2 * size);
+            }
+            vertices[size] = v;
+            weights[size] = weight;
+            middles[size] = middle;
+            size += 1;
+            return true;
+        }
+
+        void remove(int v) {
+            for (int i = 0; i < size; i += 1) {
+                if (vertices[i] == v) {
+                    size -= 1;
+                    vertices[i] = vertices[size];
+                    weights[i] = weights[size];
+                    middles[i] = middles[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class Builder {
+        private final CompactStreetMapGraph g;
+        private final int n;
+        // edges among the vertices not contracted yet
+        private final EdgeList[] out;
+        private final EdgeList[] in;
+        private final int[] contractedNeighbors;
+        // the edges each vertex had when it was contracted, i.e. its edges to higher vertices
+        private final EdgeList[] up;
+        private final EdgeList[] down;
+
+        private final double[] dist;
+        private final int[] stamp;
+        private final int[] target;
+        private final IntArrayHeapMinPQ witnesses;
+        private int generation;
+        // shortcuts found by the last call to shortcuts, as (u, w) pairs and weights
+        private int[] shortcutEnds = new int[16];
+        private double[] shortcutWeights = new double[8];
+        private int numShortcuts;
+
+        Builder(CompactStreetMapGraph g) {
+            this.g = g;
+            n = g.numVertices();
+            out = new EdgeList[n];
+            in = new EdgeList[n];
+            up = new EdgeList[n];
+            down = new EdgeList[n];
+            for (int v = 0; v < n; v += 1) {
+                out[v] = new EdgeList();
+                in[v] = new EdgeList();
+            }
+            for (int u = 0; u < n; u += 1) {
+                for (int e = g.edgeStart(u); e < g.edgeEnd(u); e += 1) {
+                    int w = g.edgeTarget(e);
+                    if (w != u) {
+                        out[u].relax(w, g.edgeWeight(e), -1);
+                        in[w].relax(u, g.edgeWeight(e), -1);
+                    }
+                }
+            }
+            contractedNeighbors = new int[n];
+            dist = new double[n];
+            stamp = new int[n];
+            target = new int[n];
+            witnesses = new IntArrayHeapMinPQ(n);
+        }
+
+        /**
+         * Contracts the vertices by edge difference plus contracted neighbors. The
+         * neighbors of a contracted vertex are re-evaluated right away; anything
+         * else that changed is caught lazily, by re-evaluating the cheapest vertex
+         * and putting it back if it is no longer the cheapest.
+         */
+        ContractionHierarchy build() {
+            IntArrayHeapMinPQ order = new IntArrayHeapMinPQ(n);
+            for (int v = 0; v < n; v += 1) {
+                order.add(v, priority(v));
+            }
+            while (!order.isEmpty()) {
+                int v = order.removeSmallest();
+                double p = priority(v);
+                if (p > order.smallestPriority()) {
+                    order.add(v, p);
+                    continue;
+                }
+                contract(v);
+                for (int i = 0; i < up[v].size; i += 1) {
+                    int w = up[v].vertices[i];
+                    order.changePriority(w, priority(w));
+                }
+                for (int i = 0; i < down[v].size; i += 1) {
+                    int u = down[v].vertices[i];
+                    order.changePriority(u, priority(u));
+                }
+            }
+            return freeze();
+        }
+
+        private double priority(int v) {
+            return shortcuts(v) - in[v].size - out[v].size + contractedNeighbors[v];
+        }
+
+        /** Finds the shortcuts needed to contract v; returns how many there are. */
+        private int shortcuts(int v) {
+            numShortcuts = 0;
+            EdgeList from = in[v];
+            EdgeList to = out[v];
+            double maxOut = 0;
+            for (int j = 0; j < to.size; j += 1) {
+                maxOut = Math.max(maxOut, to.weights[j]);
+            }
+            for (int i = 0; i < from.size; i += 1) {
+                int u = from.vertices[i];
+                witnessSearch(u, v, from.weights[i] + maxOut, to);
+                for (int j = 0; j < to.size; j += 1) {
+                    int w = to.vertices[j];
+                    double via = from.weights[i] + to.weights[j];
+                    if (w != u && distance(w) > via) {
+                        addShortcut(u, w, via);
+                    }
+                }
+            }
+            return numShortcuts;
+        }
+
+        private void addShortcut(int u, int w, double weight) {
+            if (numShortcuts == shortcutWeights.length) {
+                shortcutEnds = Arrays.copyOf(shortcutEnds, 4 * numShortcuts);
+                shortcutWeights = Arrays.copyOf(shortcutWeights, 2 * numShortcuts);
+            }
+            shortcutEnds[2 * numShortcuts] = u;
+            shortcutEnds[2 * numShortcuts + 1] = w;
+            shortcutWeights[numShortcuts] = weight;
+            numShortcuts += 1;
+        }
+
+        /**
+         * Dijkstra from source among the remaining vertices other than skip, up to
+         * the limit, until every vertex in targets other than source is settled.
+         */
+        private void witnessSearch(int source, int skip, double limit, EdgeList targets) {
+            generation += 1;
+            int remaining = 0;
+            for (int j = 0; j < targets.size; j += 1) {
+                if (targets.vertices[j] != source) {
+                    target[targets.vertices[j]] = generation;
+                    remaining += 1;
+                }
+            }
+            stamp[source] = generation;
+            dist[source] = 0;
+            witnesses.add(source, 0);
+            int settled = 0;
+            while (remaining > 0 && !witnesses.isEmpty() && witnesses.smallestPriority() <= limit
+                    && settled < WITNESS_SETTLE_LIMIT) {
+                int x = witnesses.removeSmallest();
+                settled += 1;
+                if (target[x] == generation) {
+                    remaining -= 1;
+                }
+                EdgeList edges = out[x];
+                for (int i = 0; i < edges.size; i += 1) {
+                    int y = edges.vertices[i];
+                    double d = dist[x] + edges.weights[i];
+                    if (y == skip) {
+                        continue;
+                    }
+                    if (stamp[y] != generation) {
+                        stamp[y] = generation;
+                        dist[y] = d;
+                        witnesses.add(y, d);
+                    } else if (d < dist[y]) {
+                        dist[y] = d;
+                        if (witnesses.contains(y)) {
+                            witnesses.changePriority(y, d);
+                        }
+                    }
+                }
+            }
+            witnesses.clear();
+        }
+
+        private double distance(int v) {
+            return stamp[v] == generation ? dist[v] : Double.POSITIVE_INFINITY;
+        }
+
+        private void contract(int v) {
+            shortcuts(v);
+            up[v] = out[v];
+            down[v] = in[v];
+            for (int i = 0; i < up[v].size; i += 1) {
+                int w = up[v].vertices[i];
+                in[w].remove(v);
+                contractedNeighbors[w] += 1;
+            }
+            for (int i = 0; i < down[v].size; i += 1) {
+                int u = down[v].vertices[i];
+                out[u].remove(v);
+                contractedNeighbors[u] += 1;
+            }
+            for (int k = 0; k < numShortcuts; k += 1) {
+                int u = shortcutEnds[2 * k];
+                int w = shortcutEnds[2 * k + 1];
+                if (out[u].relax(w, shortcutWeights[k], v)) {
+                    in[w].relax(u, shortcutWeights[k], v);
+                }
+            }
+            out[v] = null;
+            in[v] = null;
+        }
+
+        private ContractionHierarchy freeze() {
+            int[] upOffsets = new int[n + 1];
+            int[] downOffsets = new int[n + 1];
+            for (int v = 0; v < n; v += 1) {
+                upOffsets[v + 1] = upOffsets[v] + up[v].size;
+                downOffsets[v + 1] = downOffsets[v] + down[v].size;
+            }
+            int[] upTargets = new int[upOffsets[n]];
+            double[] upWeights = new double[upOffsets[n]];
+            int[] upMiddles = new int[upOffsets[n]];
+            int[] downSources = new int[downOffsets[n]];
+            double[] downWeights = new double[downOffsets[n]];
+            int[] downMiddles = new int[downOffsets[n]];
+            for (int v = 0; v < n; v += 1) {
+                System.arraycopy(up[v].vertices, 0, upTargets, upOffsets[v], up[v].size);
+                System.arraycopy(up[v].weights, 0, upWeights, upOffsets[v], up[v].size);
+                System.arraycopy(up[v].middles, 0, upMiddles, upOffsets[v], up[v].size);
+                System.arraycopy(down[v].vertices, 0, downSources, downOffsets[v], down[v].size);
+                System.arraycopy(down[v].weights, 0, downWeights, downOffsets[v], down[v].size);
+                System.arraycopy(down[v].middles, 0, downMiddles, downOffsets[v], down[v].size);
+            }
+            return new ContractionHierarchy(g, upOffsets, upTargets, upWeights, upMiddles,
+                    downOffsets, downSources, downWeights, downMiddles);
+        }
+    }
+}
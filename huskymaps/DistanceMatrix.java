@@ -0,0 +1,108 @@
+package huskymaps;
+
+import astar.IntAStarGraph;
+import astar.SearchWorkspace;
+import heap.IntArrayHeapMinPQ;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Many-to-many travel distances over a StreetMapGraph, e.g. from every depot
+ * to every stop, for dispatch planning. Far faster than a route per pair.
+ */
+public class DistanceMatrix {
+
+    /**
+     * Returns the distances from every source vertex to every target vertex,
+     * infinite where there is no path. Uses the bucket search of the contraction
+     * hierarchy if the graph has one, and one Dijkstra per source otherwise.
+     * @throws IllegalArgumentException if a source or target is not in the graph
+     */
+    public static double[][] compute(StreetMapGraph g, long[] sources, long[] targets) {
+        ContractionHierarchy hierarchy = g.contractionHierarchy();
+        if (hierarchy != null) {
+            return hierarchy.distances(sources, targets);
+        }
+        return oneToMany(g.compact(), sources, targets);
+    }
+
+    /**
+     * Returns the same distances by running Dijkstra from each source, in
+     * parallel, until every target is settled.
+     * @throws IllegalArgumentException if a source or target is not in the graph
+     */
+    public static double[][] oneToMany(IntAStarGraph<Long> g, long[] sources, long[] targets) {
+        int n = g.numVertices();
+        // the columns of vertex v are column[v], nextColumn[column[v]], ... up to -1
+        int[] column = new int[n];
+        int[] nextColumn = new int[targets.length];
+        Arrays.fill(column, -1);
+        int distinct = 0;
+        for (int j = targets.length - 1; j >= 0; j -= 1) {
+            int t = index(g, targets[j]);
+            if (column[t] == -1) {
+                distinct += 1;
+            }
+            nextColumn[j] = column[t];
+            column[t] = j;
+        }
+        int[] s = new int[sources.length];
+        for (int i = 0; i < sources.length; i += 1) {
+            s[i] = index(g, sources[i]);
+        }
+
+        int numTargets = distinct;
+        double[][] result = new double[sources.length][];
+        IntStream.range(0, sources.length).parallel().forEach(i -> {
+            double[] row = new double[targets.length];
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+            search(g, s[i], column, nextColumn, numTargets, row);
+            result[i] = row;
+        });
+        return result;
+    }
+
+    private static int index(IntAStarGraph<Long> g, long id) {
+        int v = g.indexOf(id);
+        if (v < 0) {
+            throw new IllegalArgumentException("Not in the graph: " + id);
+        }
+        return v;
+    }
+
+    /**
+     * Runs Dijkstra from source in this thread's SearchWorkspace, writing the
+     * distance of each of the remaining target vertices into its columns of row.
+     */
+    private static void search(IntAStarGraph<Long> g, int source, int[] column, int[] nextColumn,
+                               int remaining, double[] row) {
+        SearchWorkspace ws = SearchWorkspace.local(0, g.numVertices());
+        IntArrayHeapMinPQ pq = ws.fringe();
+        ws.set(source, 0, -1);
+        pq.add(source, 0);
+        while (!pq.isEmpty() && remaining > 0) {
+            int u = pq.removeSmallest();
+            double distU = ws.dist(u);
+            if (column[u] != -1) {
+                for (int j = column[u]; j != -1; j = nextColumn[j]) {
+                    row[j] = distU;
+                }
+                remaining -= 1;
+            }
+            for (int e = g.edgeStart(u); e < g.edgeEnd(u); e += 1) {
+                int v = g.edgeTarget(e);
+                double d = distU + g.edgeWeight(e);
+                if (!ws.seen(v)) {
+                    ws.set(v, d, u);
+                    pq.add(v, d);
+                } else if (d < ws.dist(v)) {
+                    ws.set(v, d, u);
+                    if (pq.contains(v)) {
+                        pq.changePriority(v, d);
+                    }
+                }
+            }
+        }
+    }
+}
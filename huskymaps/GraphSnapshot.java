@@ -0,0 +1,306 @@
+package huskymaps;
+
+import kdtree.Point;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static huskymaps.utils.Constants.GRAPH_SNAPSHOT_PATH;
+import static huskymaps.utils.Constants.HEROKU_DEPLOYMENT;
+import static huskymaps.utils.Constants.LANDMARK_STRATEGY;
+import static huskymaps.utils.Constants.NUM_LANDMARKS;
+import static huskymaps.utils.Constants.OSM_DB_PATH;
+import static huskymaps.utils.Constants.PLACES_PATH;
+
+/**
+ * Binary snapshot of a loaded StreetMapGraph, so the server can start without
+ * parsing the OSM XML. It holds the compact graph with its contraction
+ * hierarchy and landmark tables, the named nodes with their importance, and the
+ * navigable points in the order the k-d tree was built from.
+ * The autocomplete terms are written sorted, so rebuilding the index is a
+ * single pass.
+ *
+ * Layout: a 32 byte header (magic, VERSION, fingerprint of the OSM and places
+ * files it was built from, payload length and CRC32 of the payload) followed by
+ * the payload. Snapshots are written by main and read through a memory-mapped
+ * FileChannel. read returns null for a missing, corrupt or stale snapshot so the
+ * caller can fall back to the XML; bump VERSION whenever the layout changes.
+ *
+ * Usage: GraphSnapshot [osm file] [snapshot file]
+ */
+public class GraphSnapshot {
+    private static final int MAGIC = 0x484d4753; // "HMGS"
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 32;
+
+    public static void main(String[] args) throws IOException {
+        String osm = args.length > 0 ? args[0] : OSM_DB_PATH;
+        String output = args.length > 1 ? args[1] : GRAPH_SNAPSHOT_PATH;
+        StreetMapGraph g = new StreetMapGraph(osm);
+        write(g, osm, output);
+        System.out.println("Wrote snapshot of " + osm + " to " + output);
+    }
+
+    /**
+     * Writes a snapshot of g, which must have been loaded from the OSM file
+     * osmFilename, to the given file. Builds the contraction hierarchy and the
+     * landmarks of g if it does not have them yet. The snapshot is written to
+     * a temporary file and then put in place, so a server that has the old
+     * snapshot mapped keeps reading it, and a failed write leaves it as it was.
+     */
+    public static void write(StreetMapGraph g, String osmFilename, String filename) throws IOException {
+        long fingerprint = fingerprint(osmFilename);
+        CRC32 crc = new CRC32();
+        Path temp = tempFileFor(filename);
+        try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+            file.write(new byte[HEADER_BYTES]);
+            // shares the file position, so the payload goes right after the header
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(file.getFD())), crc));
+            writePayload(g, out);
+            out.flush();
+            long length = file.getFilePointer() - HEADER_BYTES;
+
+            file.seek(0);
+            file.writeInt(MAGIC);
+            file.writeInt(VERSION);
+            file.writeLong(fingerprint);
+            file.writeLong(length);
+            file.writeLong(crc.getValue());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        replace(temp, filename);
+    }
+
+    private static void writePayload(StreetMapGraph g, DataOutputStream out) throws IOException {
+        g.compact().write(out);
+        ContractionHierarchy hierarchy = g.contractionHierarchy();
+        if (hierarchy == null) {
+            hierarchy = ContractionHierarchy.build(g.compact());
+        }
+        hierarchy.write(out);
+        Landmarks landmarks = g.landmarks();
+        if (landmarks == null) {
+            landmarks = Landmarks.build(g.compact(), NUM_LANDMARKS, LANDMARK_STRATEGY);
+        }
+        landmarks.write(out);
+
+        Map<Point, Long> points = g.points();
+        out.writeInt(points.size());
+        for (Map.Entry<Point, Long> entry : points.entrySet()) {
+            out.writeDouble(entry.getKey().x());
+            out.writeDouble(entry.getKey().y());
+            out.writeLong(entry.getValue());
+        }
+
+        List<Node> named = g.namedNodes();
+        named.sort((a, b) -> a.name().compareTo(b.name()));
+        out.writeInt(named.size());
+        for (Node node : named) {
+            out.writeLong(node.id());
+            out.writeDouble(node.lat());
+            out.writeDouble(node.lon());
+            writeString(out, node.name());
+            out.writeInt(node.importance());
+        }
+    }
+
+    /**
+     * Returns the graph stored in the snapshot file, or null if the file is
+     * missing, corrupt, of another VERSION, or was built from a different OSM
+     * or places file than osmFilename and the current places file. If the OSM
+     * file itself is missing, the snapshot is trusted.
+     */
+    public static StreetMapGraph read(String filename, String osmFilename) {
+        try {
+            ByteBuffer in = map(filename);
+            if (in == null) {
+                return null;
+            }
+            if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+                System.err.println("Not a graph snapshot: " + filename);
+                return null;
+            }
+            if (in.getInt() != VERSION) {
+                System.err.println("Graph snapshot " + filename + " has an old version; parsing XML");
+                return null;
+            }
+            long fingerprint = in.getLong();
+            long length = in.getLong();
+            long checksum = in.getLong();
+            if (length != in.remaining()) {
+                System.err.println("Graph snapshot " + filename + " is truncated; parsing XML");
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(in.duplicate());
+            if (crc.getValue() != checksum) {
+                System.err.println("Graph snapshot " + filename + " is corrupt; parsing XML");
+                return null;
+            }
+            long current = fingerprint(osmFilename);
+            if (current != -1 && current != fingerprint) {
+                System.err.println("Graph snapshot " + filename + " is stale; parsing XML");
+                return null;
+            }
+            return readPayload(in);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private static StreetMapGraph readPayload(ByteBuffer in) {
+        CompactStreetMapGraph compact = CompactStreetMapGraph.read(in);
+        ContractionHierarchy hierarchy = ContractionHierarchy.read(in, compact);
+        Landmarks landmarks = Landmarks.read(in);
+
+        int numPoints = in.getInt();
+        LinkedHashMap<Point, Long> points = new LinkedHashMap<>(numPoints * 4 / 3 + 1);
+        for (int i = 0; i < numPoints; i += 1) {
+            double x = in.getDouble();
+            double y = in.getDouble();
+            points.put(new Point(x, y), in.getLong());
+        }
+
+        int numNamed = in.getInt();
+        List<Node> named = new ArrayList<>(numNamed);
+        for (int i = 0; i < numNamed; i += 1) {
+            long id = in.getLong();
+            double lat = in.getDouble();
+            double lon = in.getDouble();
+            String name = readString(in);
+            named.add(new Node(id, lat, lon, name, in.getInt()));
+        }
+        return new StreetMapGraph(compact, hierarchy, landmarks, points, named);
+    }
+
+    /**
+     * Returns a new empty file in the same directory as filename, to write in
+     * its place with replace.
+     */
+    static Path tempFileFor(String filename) throws IOException {
+        Path path = Paths.get(filename).toAbsolutePath();
+        return Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+    }
+
+    /**
+     * Renames temp to filename in one step, so that readers see either the
+     * old file or the new one. A server that has the old file mapped keeps
+     * its mapping, which stays valid until it is dropped.
+     */
+    static void replace(Path temp, String filename) throws IOException {
+        try {
+            Files.move(temp, Paths.get(filename), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the snapshot file, or any other file, into memory. When deployed, a
+     * file that is not in the file system is looked up on the classpath; one
+     * inside a jar cannot be mapped and is read into the heap. Returns null if
+     * there is no such file.
+     */
+    static ByteBuffer map(String filename) throws IOException {
+        Path path = Paths.get(filename);
+        if (HEROKU_DEPLOYMENT && !Files.isRegularFile(path)) {
+            URL url = Thread.currentThread().getContextClassLoader().getResource(filename);
+            if (url == null) {
+                return null;
+            }
+            if (!url.getProtocol().equals("file")) {
+                try (InputStream in = url.openStream()) {
+                    return ByteBuffer.wrap(in.readAllBytes());
+                }
+            }
+            try {
+                path = Paths.get(url.toURI());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /** Returns a CRC32 of the OSM file followed by the places file, or -1 if the OSM file is missing. */
+    private static long fingerprint(String osmFilename) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[1 << 16];
+        for (String filename : new String[]{osmFilename, PLACES_PATH}) {
+            InputStream in;
+            try {
+                in = OSMGraphHandler.open(filename);
+            } catch (FileNotFoundException e) {
+                in = null;
+            }
+            if (in == null) {
+                if (filename.equals(osmFilename)) {
+                    return -1;
+                }
+                continue;
+            }
+            try (InputStream stream = in) {
+                int read;
+                while ((read = stream.read(buffer)) > 0) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    /** Writes a string, possibly null, as its UTF-8 length followed by its bytes. */
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** Reads a string written by writeString. */
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
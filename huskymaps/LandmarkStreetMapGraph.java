@@ -0,0 +1,97 @@
+package huskymaps;
+
+import astar.BidirectionalAStarGraph;
+import astar.WeightedEdge;
+
+import java.util.List;
+
+/**
+ * A CompactStreetMapGraph whose heuristic is the larger of the great-circle
+ * distance and the landmark bound. Both are consistent, and so is their maximum,
+ * so every solver that accepts the compact graph accepts this one.
+ */
+public class LandmarkStreetMapGraph implements BidirectionalAStarGraph<Long> {
+    private final CompactStreetMapGraph g;
+    private final Landmarks landmarks;
+
+    public LandmarkStreetMapGraph(CompactStreetMapGraph g, Landmarks landmarks) {
+        this.g = g;
+        this.landmarks = landmarks;
+    }
+
+    /** Returns the landmarks this graph's heuristic uses. */
+    public Landmarks landmarks() {
+        return landmarks;
+    }
+
+    @Override
+    public double estimatedDistanceToGoal(int v, int goal) {
+        return Math.max(g.estimatedDistanceToGoal(v, goal), landmarks.lowerBound(v, goal));
+    }
+
+    @Override
+    public double estimatedDistanceToGoal(Long s, Long goal) {
+        return estimatedDistanceToGoal(g.indexOf(s), g.indexOf(goal));
+    }
+
+    // the remaining methods are answered by the compact graph
+    @Override
+    public int numVertices() {
+        return g.numVertices();
+    }
+
+    @Override
+    public int indexOf(Long v) {
+        return g.indexOf(v);
+    }
+
+    @Override
+    public Long vertexAt(int v) {
+        return g.vertexAt(v);
+    }
+
+    @Override
+    public int edgeStart(int v) {
+        return g.edgeStart(v);
+    }
+
+    @Override
+    public int edgeEnd(int v) {
+        return g.edgeEnd(v);
+    }
+
+    @Override
+    public int edgeTarget(int e) {
+        return g.edgeTarget(e);
+    }
+
+    @Override
+    public double edgeWeight(int e) {
+        return g.edgeWeight(e);
+    }
+
+    @Override
+    public int reverseEdgeStart(int v) {
+        return g.reverseEdgeStart(v);
+    }
+
+    @Override
+    public int reverseEdgeEnd(int v) {
+        return g.reverseEdgeEnd(v);
+    }
+
+    @Override
+    public int reverseEdgeSource(int e) {
+        return g.reverseEdgeSource(e);
+    }
+
+    @Override
+    public double reverseEdgeWeight(int e) {
+        return g.reverseEdgeWeight(e);
+    }
+
+    @Override
+    public List<WeightedEdge<Long>> neighbors(Long v) {
+        return g.neighbors(v);
+    }
+}
@@ -0,0 +1,294 @@
+package huskymaps;
+
+import heap.IntArrayHeapMinPQ;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Distance tables for the ALT (A*, landmarks, triangle inequality) heuristic.
+ * For a few landmark vertices L, the distances d(L, v) and d(v, L) to and from
+ * every vertex v are precomputed, and the triangle inequality gives
+ * d(v, t) >= d(L, t) - d(L, v) and d(v, t) >= d(v, L) - d(t, L). Unlike the
+ * great-circle distance, these bounds follow the roads around water, so A*
+ * explores far fewer vertices when the straight line crosses a lake.
+ *
+ * The tables are float[] per landmark, rounded down. Like the contraction
+ * hierarchy they are built offline and stored in the GraphSnapshot; see
+ * LandmarkStreetMapGraph for the heuristic itself.
+ */
+public class Landmarks {
+    private static final long SEED = 373;
+
+    /** How landmarks are picked. */
+    public enum Strategy {
+        /** Each landmark is the vertex farthest from the ones picked so far. */
+        FARTHEST,
+        /**
+         * Each landmark is the leaf of the shortest path tree of a random root
+         * that is worst served by the landmarks picked so far (Goldberg and
+         * Werneck's avoid), which tends to cover more directions than FARTHEST.
+         */
+        AVOID
+    }
+
+    private final int[] landmarks;
+    // from[i][v] is d(landmarks[i], v) and to[i][v] is d(v, landmarks[i]); infinite if there is no path
+    private final float[][] from;
+    private final float[][] to;
+
+    private Landmarks(int[] landmarks, float[][] from, float[][] to) {
+        this.landmarks = landmarks;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Picks k landmarks of g with the given strategy and computes their tables.
+     * Runs 2 to 3 full Dijkstra searches per landmark.
+     */
+    public static Landmarks build(CompactStreetMapGraph g, int k, Strategy strategy) {
+        int n = g.numVertices();
+        int[] landmarks = new int[k];
+        float[][] from = new float[k][];
+        float[][] to = new float[k][];
+        Landmarks result = new Landmarks(landmarks, from, to);
+        Random random = new Random(SEED);
+        double[] dist = new double[n];
+        int[] parent = new int[n];
+        int[] order = new int[n];
+        int count = 0;
+        while (count < k) {
+            int landmark = strategy == Strategy.AVOID
+                    ? result.avoid(g, count, random, dist, parent, order)
+                    : result.farthest(g, count, random, dist, parent, order);
+            if (landmark == -1) {
+                break;
+            }
+            landmarks[count] = landmark;
+            dijkstra(g, landmark, false, dist, parent, order);
+            from[count] = round(dist);
+            dijkstra(g, landmark, true, dist, parent, order);
+            to[count] = round(dist);
+            count += 1;
+        }
+        if (count < k) {
+            return new Landmarks(Arrays.copyOf(landmarks, count), Arrays.copyOf(from, count),
+                    Arrays.copyOf(to, count));
+        }
+        return result;
+    }
+
+    /** Returns the number of landmarks. */
+    public int size() {
+        return landmarks.length;
+    }
+
+    /** Returns the index of the i-th landmark vertex. */
+    public int landmark(int i) {
+        return landmarks[i];
+    }
+
+    /**
+     * Returns the best lower bound the landmarks give on the distance from v to
+     * goal, or 0 if they give none. Runs in O(k) time.
+     */
+    public double lowerBound(int v, int goal) {
+        double best = 0;
+        for (int i = 0; i < landmarks.length; i += 1) {
+            float[] f = from[i];
+            float[] t = to[i];
+            // both values were rounded down, so the one subtracted may be short by an ulp
+            if (f[v] != Float.POSITIVE_INFINITY && f[goal] != Float.POSITIVE_INFINITY) {
+                best = Math.max(best, (double) f[goal] - f[v] - Math.ulp(f[v]));
+            }
+            if (t[v] != Float.POSITIVE_INFINITY && t[goal] != Float.POSITIVE_INFINITY) {
+                best = Math.max(best, (double) t[v] - t[goal] - Math.ulp(t[goal]));
+            }
+        }
+        return best;
+    }
+
+    /** Returns a random vertex with at least one edge, or -1 if there is none. */
+    private static int randomRoot(CompactStreetMapGraph g, Random random) {
+        int n = g.numVertices();
+        for (int tries = 0; tries < 1000; tries += 1) {
+            int v = random.nextInt(n);
+            if (g.outDegree(v) > 0) {
+                return v;
+            }
+        }
+        for (int v = 0; v < n; v += 1) {
+            if (g.outDegree(v) > 0) {
+                return v;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the reachable vertex farthest from the first count landmarks, or
+     * from a random root if there are none yet.
+     */
+    private int farthest(CompactStreetMapGraph g, int count, Random random,
+                         double[] dist, int[] parent, int[] order) {
+        int n = g.numVertices();
+        double[] nearest = new double[n];
+        if (count == 0) {
+            int root = randomRoot(g, random);
+            if (root == -1) {
+                return -1;
+            }
+            dijkstra(g, root, false, dist, parent, order);
+            System.arraycopy(dist, 0, nearest, 0, n);
+        } else {
+            Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < count; i += 1) {
+                for (int v = 0; v < n; v += 1) {
+                    nearest[v] = Math.min(nearest[v], from[i][v]);
+                }
+            }
+        }
+        int best = -1;
+        for (int v = 0; v < n; v += 1) {
+            if (nearest[v] != Double.POSITIVE_INFINITY && nearest[v] > 0
+                    && (best == -1 || nearest[v] > nearest[best])) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Grows the shortest path tree of a random root, and weighs each vertex by
+     * how far its distance from the root exceeds the current lower bound. The
+     * size of a vertex is the weight of its subtree, or 0 if the subtree holds a
+     * landmark. Walking down from the root to the heaviest child ends at a leaf
+     * in the region the landmarks serve worst.
+     */
+    private int avoid(CompactStreetMapGraph g, int count, Random random,
+                      double[] dist, int[] parent, int[] order) {
+        int root = randomRoot(g, random);
+        if (root == -1) {
+            return -1;
+        }
+        int reached = dijkstra(g, root, false, dist, parent, order);
+        int n = g.numVertices();
+        double[] size = new double[n];
+        boolean[] covered = new boolean[n];
+        int[] heaviest = new int[n];
+        Landmarks current = new Landmarks(Arrays.copyOf(landmarks, count), from, to);
+        for (int i = 0; i < count; i += 1) {
+            covered[landmarks[i]] = true;
+        }
+        for (int i = 0; i < reached; i += 1) {
+            int v = order[i];
+            double bound = Math.max(current.lowerBound(root, v), g.estimatedDistanceToGoal(root, v));
+            size[v] = Math.max(0, dist[v] - bound);
+        }
+        Arrays.fill(heaviest, -1);
+        // children are settled after their parents, so a backwards pass sees every subtree whole
+        for (int i = reached - 1; i > 0; i -= 1) {
+            int v = order[i];
+            int p = parent[v];
+            if (covered[v]) {
+                covered[p] = true;
+            } else if (heaviest[p] == -1 || size[v] > size[heaviest[p]]) {
+                heaviest[p] = v;
+            }
+            size[p] += size[v];
+        }
+        int v = root;
+        while (heaviest[v] != -1) {
+            v = heaviest[v];
+        }
+        if (covered[v]) {
+            // every branch of the root already has a landmark
+            return farthest(g, count, random, dist, parent, order);
+        }
+        return v;
+    }
+
+    /**
+     * Runs Dijkstra from source over the outgoing edges, or the incoming ones if
+     * reverse, filling in dist and the shortest path tree. order receives the
+     * vertices in the order they were settled; returns how many there are.
+     */
+    private static int dijkstra(CompactStreetMapGraph g, int source, boolean reverse,
+                                double[] dist, int[] parent, int[] order) {
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        IntArrayHeapMinPQ pq = new IntArrayHeapMinPQ(g.numVertices());
+        dist[source] = 0;
+        parent[source] = -1;
+        pq.add(source, 0);
+        int settled = 0;
+        while (!pq.isEmpty()) {
+            int u = pq.removeSmallest();
+            order[settled] = u;
+            settled += 1;
+            int start = reverse ? g.reverseEdgeStart(u) : g.edgeStart(u);
+            int end = reverse ? g.reverseEdgeEnd(u) : g.edgeEnd(u);
+            for (int e = start; e < end; e += 1) {
+                int v = reverse ? g.reverseEdgeSource(e) : g.edgeTarget(e);
+                double d = dist[u] + (reverse ? g.reverseEdgeWeight(e) : g.edgeWeight(e));
+                if (d < dist[v]) {
+                    boolean seen = dist[v] != Double.POSITIVE_INFINITY;
+                    dist[v] = d;
+                    parent[v] = u;
+                    if (!seen) {
+                        pq.add(v, d);
+                    } else if (pq.contains(v)) {
+                        pq.changePriority(v, d);
+                    }
+                }
+            }
+        }
+        return settled;
+    }
+
+    /** Returns the distances as floats, rounded down so the bounds stay admissible. */
+    private static float[] round(double[] dist) {
+        float[] rounded = new float[dist.length];
+        for (int v = 0; v < dist.length; v += 1) {
+            float f = (float) dist[v];
+            rounded[v] = f > dist[v] ? Math.nextDown(f) : f;
+        }
+        return rounded;
+    }
+
+    /** Writes the landmarks and their tables for GraphSnapshot, in the layout read by read. */
+    void write(DataOutputStream out) throws IOException {
+        int n = landmarks.length == 0 ? 0 : from[0].length;
+        out.writeInt(landmarks.length);
+        out.writeInt(n);
+        for (int i = 0; i < landmarks.length; i += 1) {
+            out.writeInt(landmarks[i]);
+            for (float d : from[i]) {
+                out.writeFloat(d);
+            }
+            for (float d : to[i]) {
+                out.writeFloat(d);
+            }
+        }
+    }
+
+    /** Reads landmarks written by write, advancing the buffer past them. */
+    static Landmarks read(ByteBuffer in) {
+        int k = in.getInt();
+        int n = in.getInt();
+        int[] landmarks = new int[k];
+        float[][] from = new float[k][n];
+        float[][] to = new float[k][n];
+        for (int i = 0; i < k; i += 1) {
+            landmarks[i] = in.getInt();
+            in.asFloatBuffer().get(from[i]);
+            in.position(in.position() + 4 * n);
+            in.asFloatBuffer().get(to[i]);
+            in.position(in.position() + 4 * n);
+        }
+        return new Landmarks(landmarks, from, to);
+    }
+}
@@ -14,14 +14,14 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.zip.GZIPInputStream;
 
 import static huskymaps.utils.Constants.HEROKU_DEPLOYMENT;
 import static huskymaps.utils.Constants.PLACES_PATH;
@@ -52,31 +52,30 @@ class OSMGraphHandler extends DefaultHandler {
     private String activeState;
     private boolean validWay;
     private String wayName;
-    private final StreetMapGraph g;
-    private Node.Builder nodeBuilder;
-    private Queue<Long> nodePath;
-    private Map<String, Integer> places;
+    private final OSMIngestPipeline pipeline;
+    private String nodeId;
+    private String nodeLat;
+    private String nodeLon;
+    private String nodeName;
+    private List<String> nodePath;
 
-    private OSMGraphHandler(StreetMapGraph g) {
+    private OSMGraphHandler(OSMIngestPipeline pipeline) {
         this.activeState = "";
         this.validWay = false;
         this.wayName = "";
-        this.g = g;
-        this.nodeBuilder = g.nodeBuilder();
-        this.nodePath = new ArrayDeque<>();
+        this.pipeline = pipeline;
+        this.nodePath = new ArrayList<>();
+    }
+
+    /** Reads the place importances, or returns an empty map if the file is missing. */
+    private static Map<String, Integer> loadPlaces() {
         try {
-            InputStream fileStream;
-            if (!HEROKU_DEPLOYMENT) {
-                File inputFile = new File(PLACES_PATH);
-                fileStream = new FileInputStream(inputFile);
-            } else {
-                fileStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(PLACES_PATH);
-            }
+            InputStream fileStream = open(PLACES_PATH);
             Reader fileReader = new InputStreamReader(fileStream);
-            places = new Gson().fromJson(fileReader, new TypeToken<HashMap<String, Integer>>() {}.getType());
+            return new Gson().fromJson(fileReader, new TypeToken<HashMap<String, Integer>>() {}.getType());
         } catch (IOException | NullPointerException e) {
             e.printStackTrace();
-            places = Map.of();
+            return Map.of();
         }
     }
 
@@ -85,7 +84,7 @@ class OSMGraphHandler extends DefaultHandler {
      * @param s Input string.
      * @return Cleaned string.
      */
-    private static String normalize(String s) {
+    static String normalize(String s) {
         return s.strip()
                 .replace('“', '"')
                 .replace('”', '"')
@@ -93,22 +92,35 @@ class OSMGraphHandler extends DefaultHandler {
                 .replace('’', '\'');
     }
 
-    /** Initialize the graph from an OSM file. Assumes file is correctly formatted. */
+    /**
+     * Opens a data file: from the file system when running locally, or from the
+     * classpath when deployed. Returns null if a deployed resource is missing.
+     */
+    static InputStream open(String filename) throws IOException {
+        if (!HEROKU_DEPLOYMENT) {
+            return new FileInputStream(new File(filename));
+        }
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
+    }
+
+    /**
+     * Initialize the graph from an OSM file. Assumes file is correctly formatted.
+     * The file is decompressed, parsed and converted on separate threads; see
+     * OSMIngestPipeline.
+     */
     public static void initializeFromXML(StreetMapGraph g, String filename) {
+        OSMIngestPipeline pipeline = new OSMIngestPipeline(g, loadPlaces());
         try {
             SAXParserFactory factory = SAXParserFactory.newInstance();
             SAXParser saxParser = factory.newSAXParser();
-            OSMGraphHandler handler = new OSMGraphHandler(g);
-            InputStream fileStream;
-            if (!HEROKU_DEPLOYMENT) {
-                File inputFile = new File(filename);
-                fileStream = new FileInputStream(inputFile);
-            } else {
-                fileStream = Thread.currentThread().getContextClassLoader().getResourceAsStream(filename);
-            }
-            saxParser.parse(new GZIPInputStream(fileStream), handler);
+            OSMGraphHandler handler = new OSMGraphHandler(pipeline);
+            InputStream fileStream = open(filename);
+            saxParser.parse(pipeline.start(fileStream), handler);
+            pipeline.finish();
         } catch (ParserConfigurationException | SAXException | IOException e) {
             e.printStackTrace();
+        } finally {
+            pipeline.close();
         }
     }
 
@@ -131,15 +143,15 @@ class OSMGraphHandler extends DefaultHandler {
         if (qName.equals("node")) {
             /* We encountered a new <node...> tag. */
             activeState = "node";
-            nodeBuilder.setId(Long.parseLong(attributes.getValue("id")))
-                    .setLat(Double.parseDouble(attributes.getValue("lat")))
-                    .setLon(Double.parseDouble(attributes.getValue("lon")));
+            nodeId = attributes.getValue("id");
+            nodeLat = attributes.getValue("lat");
+            nodeLon = attributes.getValue("lon");
         } else if (qName.equals("way")) {
             /* We encountered a new <way...> tag. */
             activeState = "way";
         } else if (activeState.equals("way") && qName.equals("nd")) {
             /* While looking at a way, we found a <nd...> tag. */
-            nodePath.add(Long.parseLong(attributes.getValue("ref")));
+            nodePath.add(attributes.getValue("ref"));
         } else if (activeState.equals("way") && qName.equals("tag")) {
             /* While looking at a way, we found a <tag...> tag. */
             String k = attributes.getValue("k");
@@ -150,8 +162,7 @@ class OSMGraphHandler extends DefaultHandler {
                 wayName = v;
             }
         } else if (activeState.equals("node") && qName.equals("tag") && attributes.getValue("k").equals("name")) {
-            String name = normalize(attributes.getValue("v"));
-            nodeBuilder.setName(name).setImportance(places.getOrDefault(name, 0));
+            nodeName = attributes.getValue("v");
         }
     }
 
@@ -167,20 +178,23 @@ class OSMGraphHandler extends DefaultHandler {
      */
     @Override
     public void endElement(String uri, String localName, String qName) throws SAXException {
+        try {
+            endRecord(qName);
+        } catch (InterruptedIOException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    private void endRecord(String qName) throws InterruptedIOException {
         if (qName.equals("way")) {
             /* We are done looking at a way. (We finished looking at the nodes, speeds, etc...)*/
             if (validWay && !nodePath.isEmpty()) {
-                long from = nodePath.remove();
-                while (!nodePath.isEmpty()) {
-                    long to = nodePath.remove();
-                    g.addWeightedEdge(from, to, wayName);
-                    g.addWeightedEdge(to, from, wayName);
-                    from = to;
-                }
+                // edges are built once all nodes are known
+                pipeline.way(nodePath.toArray(new String[0]), wayName);
             }
             clearStates();
         } else if (qName.equals("node")) {
-            g.addNode(nodeBuilder.createNode());
+            pipeline.node(nodeId, nodeLat, nodeLon, nodeName);
             clearStates();
         }
     }
@@ -189,7 +203,7 @@ class OSMGraphHandler extends DefaultHandler {
         activeState = "";
         validWay = false;
         nodePath.clear();
-        nodeBuilder = g.nodeBuilder();
+        nodeName = null;
         wayName = "";
     }
 }
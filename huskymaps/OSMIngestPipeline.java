@@ -0,0 +1,358 @@
+package huskymaps;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static huskymaps.utils.Spatial.greatCircleDistance;
+
+/**
+ * Loads an OSM file into a StreetMapGraph in stages that run on separate threads:
+ *
+ * 1. an inflater thread decompresses the gzip file into fixed-size chunks;
+ * 2. the SAX parser (OSMGraphHandler, on the calling thread) reads the chunks and
+ *    emits raw node and way records, with attributes still as strings, in batches;
+ * 3. a pool of workers converts the batches: it parses numbers, normalizes names
+ *    and looks up their importance, building Nodes and way id arrays;
+ * 4. once all nodes are known, the great-circle weights of all way segments are
+ *    computed in parallel, and the nodes and edges are added to the graph.
+ *
+ * The stages are connected by bounded queues, so a slow stage holds back the
+ * earlier ones instead of buffering the whole file. Unlike adding edges as each
+ * way ends, ways that appear before their nodes in the file keep their edges.
+ */
+class OSMIngestPipeline {
+    private static final int CHUNK_BYTES = 1 << 16;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int BATCH_SIZE = 4096;
+    private static final byte[] END_OF_CHUNKS = new byte[0];
+    private static final Object[] END_OF_RECORDS = new Object[0];
+
+    private final StreetMapGraph g;
+    private final Map<String, Integer> places;
+    private final BlockingQueue<byte[]> chunks;
+    private final BlockingQueue<Object[]> records;
+    private final ConcurrentHashMap<Long, Node> nodes;
+    private final ConcurrentLinkedQueue<Way> ways;
+    private final int numWorkers;
+
+    private Thread inflater;
+    private volatile IOException inflateError;
+    private ExecutorService workers;
+    private List<Future<?>> workerResults;
+    private Object[] batch;
+    private int batchSize;
+
+    /** Raw node attributes as they appear in the file; name may be null. */
+    private static class RawNode {
+        private final String id;
+        private final String lat;
+        private final String lon;
+        private final String name;
+
+        RawNode(String id, String lat, String lon, String name) {
+            this.id = id;
+            this.lat = lat;
+            this.lon = lon;
+            this.name = name;
+        }
+    }
+
+    /** Raw node references of a drivable way. */
+    private static class RawWay {
+        private final String[] refs;
+        private final String name;
+
+        RawWay(String[] refs, String name) {
+            this.refs = refs;
+            this.name = name;
+        }
+    }
+
+    private static class Way {
+        private final long[] refs;
+        private final String name;
+
+        Way(long[] refs, String name) {
+            this.refs = refs;
+            this.name = name;
+        }
+    }
+
+    OSMIngestPipeline(StreetMapGraph g, Map<String, Integer> places) {
+        this.g = g;
+        this.places = places;
+        chunks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        records = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        nodes = new ConcurrentHashMap<>();
+        ways = new ConcurrentLinkedQueue<>();
+        numWorkers = Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+        batch = new Object[BATCH_SIZE];
+    }
+
+    /**
+     * Starts decompressing the gzipped stream and the record workers, and
+     * returns the decompressed stream for the parser to read.
+     */
+    InputStream start(InputStream compressed) {
+        inflater = new Thread(() -> inflate(compressed), "osm-inflater");
+        inflater.setDaemon(true);
+        inflater.start();
+        workers = Executors.newFixedThreadPool(numWorkers, r -> {
+            Thread t = new Thread(r, "osm-records");
+            t.setDaemon(true);
+            return t;
+        });
+        workerResults = new ArrayList<>();
+        for (int i = 0; i < numWorkers; i += 1) {
+            workerResults.add(workers.submit(this::convertRecords));
+        }
+        return new ChunkInputStream();
+    }
+
+    /** Called by the parser for each node. */
+    void node(String id, String lat, String lon, String name) throws InterruptedIOException {
+        emit(new RawNode(id, lat, lon, name));
+    }
+
+    /** Called by the parser for each drivable way with at least one node. */
+    void way(String[] refs, String name) throws InterruptedIOException {
+        emit(new RawWay(refs, name));
+    }
+
+    private void emit(Object record) throws InterruptedIOException {
+        batch[batchSize] = record;
+        batchSize += 1;
+        if (batchSize == BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() throws InterruptedIOException {
+        if (batchSize > 0) {
+            put(records, Arrays.copyOf(batch, batchSize));
+            batchSize = 0;
+        }
+    }
+
+    /**
+     * Called once the parser is done: waits for the workers, then weighs the way
+     * segments in parallel and fills the graph.
+     */
+    void finish() throws IOException {
+        flush();
+        for (int i = 0; i < numWorkers; i += 1) {
+            put(records, END_OF_RECORDS);
+        }
+        for (Future<?> result : workerResults) {
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while loading the OSM file");
+            } catch (ExecutionException e) {
+                throw new IOException("Could not convert OSM records", e.getCause());
+            }
+        }
+
+        for (Node node : nodes.values()) {
+            g.addNode(node);
+        }
+        List<Way> wayList = new ArrayList<>(ways);
+        List<double[]> weights = wayList.parallelStream().map(this::weigh).collect(Collectors.toList());
+        for (int i = 0; i < wayList.size(); i += 1) {
+            Way way = wayList.get(i);
+            double[] w = weights.get(i);
+            for (int j = 0; j < w.length; j += 1) {
+                if (!Double.isNaN(w[j])) {
+                    g.addWeightedEdge(way.refs[j], way.refs[j + 1], w[j], way.name);
+                    g.addWeightedEdge(way.refs[j + 1], way.refs[j], w[j], way.name);
+                }
+            }
+        }
+    }
+
+    /** Stops all stages; safe to call after finish or after a failure. */
+    void close() {
+        if (inflater != null) {
+            inflater.interrupt();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Decompresses the file into chunks for the parser, then puts the end
+     * marker. A read error is left in inflateError for the parser to rethrow.
+     */
+    private void inflate(InputStream compressed) {
+        try (InputStream in = new GZIPInputStream(compressed, CHUNK_BYTES)) {
+            while (true) {
+                byte[] chunk = new byte[CHUNK_BYTES];
+                int n = in.readNBytes(chunk, 0, CHUNK_BYTES);
+                if (n == 0) {
+                    break;
+                }
+                chunks.put(n == CHUNK_BYTES ? chunk : Arrays.copyOf(chunk, n));
+            }
+        } catch (IOException e) {
+            inflateError = e;
+        } catch (RuntimeException e) {
+            // e.g. a missing deployed resource, which open returns as null
+            inflateError = new IOException(e);
+        } catch (InterruptedException e) {
+            // the parser gave up; nobody is reading any more
+            return;
+        }
+        try {
+            chunks.put(END_OF_CHUNKS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Converts batches until the end marker. After a bad record the worker keeps
+     * draining the queue, so the parser never blocks on a dead worker, and
+     * rethrows the error at the end.
+     */
+    private Void convertRecords() throws InterruptedException {
+        RuntimeException error = null;
+        while (true) {
+            Object[] next = records.take();
+            if (next == END_OF_RECORDS) {
+                if (error != null) {
+                    throw error;
+                }
+                return null;
+            }
+            if (error != null) {
+                continue;
+            }
+            try {
+                for (Object record : next) {
+                    if (record instanceof RawNode) {
+                        convert((RawNode) record);
+                    } else {
+                        convert((RawWay) record);
+                    }
+                }
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+    }
+
+    /** Parses the attributes of raw into a Node, looking up the importance of its name. */
+    private void convert(RawNode raw) {
+        long id = Long.parseLong(raw.id);
+        Node.Builder builder = g.nodeBuilder()
+                .setId(id)
+                .setLat(Double.parseDouble(raw.lat))
+                .setLon(Double.parseDouble(raw.lon));
+        if (raw.name != null) {
+            String name = OSMGraphHandler.normalize(raw.name);
+            builder.setName(name).setImportance(places.getOrDefault(name, 0));
+        }
+        // a repeated id keeps whichever copy a worker converts first, which with
+        // several workers need not be the first one in the file
+        nodes.putIfAbsent(id, builder.createNode());
+    }
+
+    /** Parses the node references of raw into a Way. */
+    private void convert(RawWay raw) {
+        long[] refs = new long[raw.refs.length];
+        for (int i = 0; i < refs.length; i += 1) {
+            refs[i] = Long.parseLong(raw.refs[i]);
+        }
+        ways.add(new Way(refs, raw.name));
+    }
+
+    /** Returns the weights of the segments of the way, NaN where a node is missing. */
+    private double[] weigh(Way way) {
+        double[] weights = new double[way.refs.length - 1];
+        for (int i = 0; i < weights.length; i += 1) {
+            Node from = nodes.get(way.refs[i]);
+            Node to = nodes.get(way.refs[i + 1]);
+            weights[i] = from == null || to == null
+                    ? Double.NaN
+                    : greatCircleDistance(from.lon(), to.lon(), from.lat(), to.lat());
+        }
+        return weights;
+    }
+
+    /** Puts item on queue, reporting an interrupt as an IOException, which the parser callbacks may throw. */
+    private static <T> void put(BlockingQueue<T> queue, T item) throws InterruptedIOException {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading the OSM file");
+        }
+    }
+
+    /** Reads the chunks produced by the inflater as one stream. */
+    private class ChunkInputStream extends InputStream {
+        private byte[] chunk = new byte[0];
+        private int position;
+
+        /** Moves to the next chunk if the current one is used up; returns false at the end. */
+        private boolean fill() throws IOException {
+            while (position == chunk.length) {
+                if (chunk == END_OF_CHUNKS) {
+                    if (inflateError != null) {
+                        throw inflateError;
+                    }
+                    return false;
+                }
+                try {
+                    chunk = chunks.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while loading the OSM file");
+                }
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            int b = chunk[position] & 0xff;
+            position += 1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, n);
+            position += n;
+            return n;
+        }
+    }
+}
@@ -1,70 +1,258 @@
 package huskymaps;
 
 import astar.AStarGraph;
+import astar.BidirectionalAStarGraph;
 import astar.WeightedEdge;
 import autocomplete.Autocomplete;
 import autocomplete.BinaryRangeSearch;
 import autocomplete.Term;
-import kdtree.KDTreePointSet;
+import kdtree.FlatKDTreePointSet;
 import kdtree.Point;
-import kdtree.PointSet;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static huskymaps.utils.Constants.R;
 import static huskymaps.utils.Spatial.greatCircleDistance;
 import static huskymaps.utils.Spatial.projectToX;
 import static huskymaps.utils.Spatial.projectToY;
 
+/**
+ * Street map graph loaded from an OSM file. The edges are only kept in maps
+ * while the file is parsed; afterwards the graph is frozen into a
+ * CompactStreetMapGraph, which answers all routing queries.
+ * Use load to start from a GraphSnapshot instead of parsing the XML.
+ */
 public class StreetMapGraph implements AStarGraph<Long> {
     private Map<Long, Node> nodes = new HashMap<>();
     private Map<Long, Set<WeightedEdge<Long>>> neighbors = new HashMap<>();
     private Map<Point, Long> points2D = new HashMap<>();
-    private Map<String, List<Long>> names = new HashMap<>();
-    private PointSet pointSet2D;
+    private Map<String, List<Node>> names = new HashMap<>();
+    private FlatKDTreePointSet pointSet2D;
+    // the ids of the points pointSet2D was built from, in the same order
+    private long[] pointIds;
+    // each thread's space for the indexes of the points near a lookup, grown as needed
+    private static final ThreadLocal<int[]> INDEXES = ThreadLocal.withInitial(() -> new int[16]);
     private Autocomplete binaryAuto;
+    private CompactStreetMapGraph compact;
+    private ContractionHierarchy hierarchy;
+    private LandmarkStreetMapGraph landmarkGraph;
 
     public StreetMapGraph(String filename) {
         OSMGraphHandler.initializeFromXML(this, filename);
-        List<Term> tempName = new ArrayList<>();
-        for (Long v : nodes.keySet()) {
-            if (isNavigable(nodes.get(v))) {
-                double lon = nodes.get(v).lon();
-                double lat = nodes.get(v).lat();
-                points2D.put(new Point(projectToX(lon, lat), projectToY(lon, lat)), v);
+        compact = new CompactStreetMapGraph(nodes, neighbors);
+        List<Node> named = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            if (isNavigable(node)) {
+                double lon = node.lon();
+                double lat = node.lat();
+                points2D.put(new Point(projectToX(lon, lat), projectToY(lon, lat)), node.id());
+            }
+            if (node.name() != null) {
+                named.add(node);
             }
-            String q = nodes.get(v).name();
-            if (q != null) {
-                if (!names.containsKey(q)) {
-                    names.put(q, new ArrayList<>());
-                }
-                names.get(q).add(v);
-                tempName.add(new Term(q, nodes.get(v).importance()));
+        }
+        // everything else is answered by the compact graph from here on
+        nodes = null;
+        neighbors = null;
+        buildIndexes(named);
+    }
+
+    /**
+     * Rebuilds a graph from the parts stored in a GraphSnapshot. points2D must
+     * iterate in the order its points were put, so the k-d tree is built from
+     * them in the same order, and splits ties between equal points the same way.
+     */
+    StreetMapGraph(CompactStreetMapGraph compact, ContractionHierarchy hierarchy, Landmarks landmarks,
+                   LinkedHashMap<Point, Long> points2D, List<Node> named) {
+        this.compact = compact;
+        this.hierarchy = hierarchy;
+        if (landmarks != null) {
+            landmarkGraph = new LandmarkStreetMapGraph(compact, landmarks);
+        }
+        this.points2D = points2D;
+        nodes = null;
+        neighbors = null;
+        buildIndexes(named);
+    }
+
+    /**
+     * Loads the graph from the snapshot file if it exists and was built from the
+     * current OSM file; otherwise parses the OSM file.
+     */
+    public static StreetMapGraph load(String filename, String snapshotFilename) {
+        StreetMapGraph g = GraphSnapshot.read(snapshotFilename, filename);
+        if (g == null) {
+            g = new StreetMapGraph(filename);
+        }
+        return g;
+    }
+
+    /** Builds the name lookup, the flat k-d tree and the autocomplete index. */
+    private void buildIndexes(List<Node> named) {
+        List<Term> tempName = new ArrayList<>();
+        for (Node node : named) {
+            String q = node.name();
+            if (!names.containsKey(q)) {
+                names.put(q, new ArrayList<>());
             }
+            names.get(q).add(node);
+            tempName.add(new Term(q, node.importance()));
+        }
+        List<Point> points = new ArrayList<>(points2D.size());
+        pointIds = new long[points2D.size()];
+        for (Map.Entry<Point, Long> entry : points2D.entrySet()) {
+            pointIds[points.size()] = entry.getValue();
+            points.add(entry.getKey());
         }
-        List<Point> tempPoint = new ArrayList<>(points2D.keySet());
-        pointSet2D = new KDTreePointSet(tempPoint);
+        pointSet2D = new FlatKDTreePointSet(points);
         Term[] tempTerm = new Term[tempName.size()];
         tempTerm = tempName.toArray(tempTerm);
         binaryAuto = new BinaryRangeSearch(tempTerm);
     }
 
+    /**
+     * Returns the frozen CSR form of this graph. Solvers should search it
+     * instead of this graph: AStarSolver walks its edges without allocating.
+     */
+    public CompactStreetMapGraph compact() {
+        return compact;
+    }
+
+    /**
+     * Returns the contraction hierarchy of this graph, or null if there is none.
+     * Only graphs read from a GraphSnapshot have one, since building it is too
+     * slow to do at startup.
+     */
+    public ContractionHierarchy contractionHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Returns the landmarks of this graph, or null if there are none. Like the
+     * contraction hierarchy, only graphs read from a GraphSnapshot have them.
+     */
+    public Landmarks landmarks() {
+        return landmarkGraph == null ? null : landmarkGraph.landmarks();
+    }
+
+    /**
+     * Returns the graph solvers should search: the compact graph, with the
+     * landmark heuristic if this graph has landmarks.
+     */
+    public BidirectionalAStarGraph<Long> routingGraph() {
+        return landmarkGraph == null ? compact : landmarkGraph;
+    }
+
+    /**
+     * Returns the travel distance from every source vertex to every target
+     * vertex, infinite where there is no path. See DistanceMatrix.
+     * @throws IllegalArgumentException if a source or target is not in this graph
+     */
+    public double[][] distances(long[] sources, long[] targets) {
+        return DistanceMatrix.compute(this, sources, targets);
+    }
+
     /**
      * Returns the vertex closest to the given longitude and latitude.
      * @param lat The target latitude.
      * @param lon The target longitude.
-     * @return The id of the node in the graph closest to the target.
+     * @return The id of the node in the graph closest to the target, or -1
+     *         if the graph has no vertices with edges.
      */
     public long closest(double lat, double lon) {
         // Use x and y, not lon and lat, when working with Point instances
         double x = projectToX(lon, lat);
         double y = projectToY(lon, lat);
-        Point result = pointSet2D.nearest(x, y);
-        return points2D.get(result);
+        int index = pointSet2D.nearestIndex(x, y);
+        return index < 0 ? -1 : pointIds[index];
+    }
+
+    /**
+     * Returns the k vertices closest to the given longitude and latitude,
+     * nearest first, e.g. to snap to the best of several candidate nodes.
+     * As in closest, only vertices with edges are considered.
+     * @return The ids of the k closest nodes, or of every node if there are fewer.
+     */
+    public long[] closest(double lat, double lon, int k) {
+        long[] ids = new long[Math.max(0, Math.min(k, pointIds.length))];
+        closest(lat, lon, ids, new double[ids.length]);
+        return ids;
+    }
+
+    /**
+     * Writes the vertices closest to the given longitude and latitude into
+     * ids, nearest first, and their distances from it in miles into miles,
+     * one for each element of ids, e.g. to match each point of a GPS trace
+     * into the same arrays. Allocates nothing once its thread has looked up
+     * as many vertices before. Distances are measured on the projection, so
+     * they are accurate near ROOT.
+     * @param miles An array at least as long as ids.
+     * @return The number of nodes written, fewer only if the graph has fewer.
+     */
+    public int closest(double lat, double lon, long[] ids, double[] miles) {
+        double x = projectToX(lon, lat);
+        double y = projectToY(lon, lat);
+        int k = Math.min(ids.length, pointIds.length);
+        int[] indexes = indexes(k);
+        int n = pointSet2D.kNearestIndexes(x, y, k, indexes, miles);
+        for (int i = 0; i < n; i += 1) {
+            ids[i] = pointIds[indexes[i]];
+            // projected distances are in Earth radii
+            miles[i] *= R;
+        }
+        return n;
+    }
+
+    /**
+     * Returns this thread's array for the point set to write indexes into,
+     * with room for at least length of them.
+     */
+    private static int[] indexes(int length) {
+        int[] indexes = INDEXES.get();
+        if (indexes.length < length) {
+            indexes = new int[Math.max(length, 2 * indexes.length)];
+            INDEXES.set(indexes);
+        }
+        return indexes;
+    }
+
+    /**
+     * Returns the vertices at most the given number of miles from the given
+     * longitude and latitude, in no particular order, e.g. to find places near
+     * the user. Distances are measured on the projection, as in closest.
+     */
+    public long[] withinRadius(double lat, double lon, double miles) {
+        long[] ids = new long[16];
+        int n = withinRadius(lat, lon, miles, ids);
+        if (n > ids.length) {
+            ids = new long[n];
+            withinRadius(lat, lon, miles, ids);
+        }
+        return Arrays.copyOf(ids, n);
+    }
+
+    /**
+     * Writes the vertices at most the given number of miles from the given
+     * longitude and latitude into ids, as many as fit, and returns how many
+     * there are in all. Allocates nothing once its thread has looked up as
+     * many vertices before.
+     */
+    public int withinRadius(double lat, double lon, double miles, long[] ids) {
+        double x = projectToX(lon, lat);
+        double y = projectToY(lon, lat);
+        int[] indexes = indexes(ids.length);
+        int n = pointSet2D.withinRadiusIndexes(x, y, miles / R, indexes);
+        for (int i = 0; i < Math.min(n, ids.length); i += 1) {
+            ids[i] = pointIds[indexes[i]];
+        }
+        return n;
     }
 
     /**
@@ -88,37 +276,36 @@ public class StreetMapGraph implements AStarGraph<Long> {
      * @return A list of locations whose name matches the <code>locationName</code>.
      */
     public List<Node> getLocations(String locationName) {
-        List<Node> tempNode = new ArrayList<>();
-        for (Long v : names.get(locationName)) {
-            tempNode.add(nodes.get(v));
-        }
-        return tempNode;
+        return new ArrayList<>(names.get(locationName));
     }
 
     /** Returns a list of outgoing edges for V. Assumes V exists in this graph. */
     @Override
     public List<WeightedEdge<Long>> neighbors(Long v) {
-        return new ArrayList<>(neighbors.get(v));
+        return compact.neighbors(v);
     }
 
     /**
-     * Returns the great-circle distance between S and GOAL. Assumes
-     * S and GOAL exist in this graph.
+     * Returns the great-circle distance between S and GOAL, or the landmark
+     * bound if that is larger. Assumes S and GOAL exist in this graph.
      */
     @Override
     public double estimatedDistanceToGoal(Long s, Long goal) {
-        Node sNode = nodes.get(s);
-        Node goalNode = nodes.get(goal);
-        return greatCircleDistance(sNode.lon(), goalNode.lon(), sNode.lat(), goalNode.lat());
+        return routingGraph().estimatedDistanceToGoal(s, goal);
     }
 
     /** Returns a set of my vertices. Altering this set does not alter this graph. */
     public Set<Long> vertices() {
-        return new HashSet<>(nodes.keySet());
+        Set<Long> vertices = new HashSet<>();
+        for (int v = 0; v < compact.numVertices(); v += 1) {
+            vertices.add(compact.id(v));
+        }
+        return vertices;
     }
 
     /** Adds an edge to this graph if it doesn't already exist, using distance as the weight. */
     public void addWeightedEdge(long from, long to, String name) {
+        checkNotFrozen();
         if (nodes.containsKey(from) && nodes.containsKey(to)) {
             Node fromNode = nodes.get(from);
             Node toNode = nodes.get(to);
@@ -129,6 +316,7 @@ public class StreetMapGraph implements AStarGraph<Long> {
 
     /** Adds an edge to this graph if it doesn't already exist. */
     public void addWeightedEdge(long from, long to, double weight, String name) {
+        checkNotFrozen();
         if (nodes.containsKey(from) && nodes.containsKey(to)) {
             neighbors.get(from).add(new WeightedEdge<>(from, to, weight, name));
         }
@@ -136,6 +324,7 @@ public class StreetMapGraph implements AStarGraph<Long> {
 
     /** Adds an edge to this graph if it doesn't already exist. */
     public void addWeightedEdge(WeightedEdge<Long> edge) {
+        checkNotFrozen();
         if (nodes.containsKey(edge.from()) && nodes.containsKey(edge.to())) {
             neighbors.get(edge.from()).add(edge);
         }
@@ -143,7 +332,17 @@ public class StreetMapGraph implements AStarGraph<Long> {
 
     /** Checks if a vertex has 0 out-degree from graph. */
     private boolean isNavigable(Node node) {
-        return !neighbors.get(node.id()).isEmpty();
+        return compact.outDegree(compact.indexOf(node.id())) > 0;
+    }
+
+    /**
+     * The graph is frozen into its compact form once loaded.
+     * @throws IllegalStateException if it is called after loading finished
+     */
+    private void checkNotFrozen() {
+        if (compact != null) {
+            throw new IllegalStateException("StreetMapGraph cannot change once loaded");
+        }
     }
 
     /**
@@ -152,10 +351,11 @@ public class StreetMapGraph implements AStarGraph<Long> {
      * @return The latitude of the vertex.
      */
     public double lat(long v) {
-        if (!nodes.containsKey(v)) {
+        int index = compact.indexOf(v);
+        if (index < 0) {
             return 0.0;
         }
-        return nodes.get(v).lat();
+        return compact.lat(index);
     }
 
     /**
@@ -164,21 +364,38 @@ public class StreetMapGraph implements AStarGraph<Long> {
      * @return The longitude of the vertex.
      */
     public double lon(long v) {
-        if (!nodes.containsKey(v)) {
+        int index = compact.indexOf(v);
+        if (index < 0) {
             return 0.0;
         }
-        return nodes.get(v).lon();
+        return compact.lon(index);
     }
 
     /** Adds a node to this graph, if it doesn't yet exist. */
     void addNode(Node node) {
+        checkNotFrozen();
         if (!nodes.containsKey(node.id())) {
             nodes.put(node.id(), node);
             neighbors.put(node.id(), new HashSet<>());
         }
     }
 
+    /** Returns the named nodes, in the order the autocomplete index was built from. */
+    List<Node> namedNodes() {
+        List<Node> named = new ArrayList<>();
+        for (List<Node> list : names.values()) {
+            named.addAll(list);
+        }
+        return named;
+    }
+
+    /** Returns the projected points of the navigable vertices, in the order the k-d tree is built from. */
+    Map<Point, Long> points() {
+        return points2D;
+    }
+
     Node getNode(long id) {
+        checkNotFrozen();
         return nodes.get(id);
     }
 
@@ -0,0 +1,299 @@
+package huskymaps;
+
+import huskymaps.utils.TileGrid;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static huskymaps.utils.Constants.IMG_ROOT;
+import static huskymaps.utils.Constants.NUM_X_TILES_AT_DEPTH;
+import static huskymaps.utils.Constants.NUM_Y_TILES_AT_DEPTH;
+import static huskymaps.utils.Constants.TILE_ARCHIVE_PATH;
+
+/**
+ * Every map tile packed into one file, so the server maps a single file into
+ * memory at startup instead of opening, reading and closing a file per tile.
+ * Tiles are handed out as read-only slices of the mapping, which the server
+ * can send to the browser or decode without copying them onto the heap.
+ *
+ * Layout: a 40 byte header (magic, VERSION, number of depths, number of index
+ * slots, fingerprint of the tile files it was packed from, file length and
+ * CRC32 of the index) followed by the index and the tiles. The index has a
+ * slot per tile of every depth from 0, row by row, each the offset of the tile
+ * in the file and its length, or -1 for a missing tile. Tiles are written in
+ * index order, so neighboring tiles of a row are next to each other in the
+ * file. Archives are written by main; open returns null for a missing, corrupt
+ * or stale archive so the caller can fall back to the tile files. Bump VERSION
+ * whenever the layout changes.
+ *
+ * Usage: TileArchive [tiles folder] [archive file]
+ */
+public class TileArchive {
+    private static final int MAGIC = 0x484d5441; // "HMTA"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 40;
+    private static final int SLOT_BYTES = Long.BYTES + Integer.BYTES;
+
+    private final ByteBuffer data;
+    private final ByteBuffer index;
+    private final int size;
+
+    public static void main(String[] args) throws IOException {
+        String folder = args.length > 0 ? args[0] : IMG_ROOT;
+        String output = args.length > 1 ? args[1] : TILE_ARCHIVE_PATH;
+        int numTiles = pack(folder, output);
+        System.out.println("Packed " + numTiles + " tiles from " + folder + " into " + output);
+    }
+
+    /**
+     * Packs the tiles of every depth in the given folder, named as
+     * TileGrid.filename names them, into an archive in the given file. Tiles
+     * that are not in the folder are left out. Returns the number of tiles
+     * packed. Like a GraphSnapshot, the archive is written to a temporary file
+     * and then put in place, so a server that has the old one mapped keeps
+     * reading it.
+     */
+    public static int pack(String folder, String filename) throws IOException {
+        long fingerprint = fingerprint(folder);
+        int numSlots = numSlots();
+        long offset = HEADER_BYTES + (long) numSlots * SLOT_BYTES;
+        ByteBuffer index = ByteBuffer.allocate(numSlots * SLOT_BYTES);
+        int numTiles = 0;
+        Path temp = GraphSnapshot.tempFileFor(filename);
+        try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+            file.seek(offset);
+            for (int depth = 0; depth < NUM_X_TILES_AT_DEPTH.length; depth += 1) {
+                for (int y = 0; y < NUM_Y_TILES_AT_DEPTH[depth]; y += 1) {
+                    for (int x = 0; x < NUM_X_TILES_AT_DEPTH[depth]; x += 1) {
+                        Path path = Paths.get(folder, TileGrid.filename(depth, x, y));
+                        if (!Files.isRegularFile(path)) {
+                            index.putLong(-1).putInt(-1);
+                            continue;
+                        }
+                        byte[] bytes = Files.readAllBytes(path);
+                        file.write(bytes);
+                        index.putLong(offset).putInt(bytes.length);
+                        offset += bytes.length;
+                        numTiles += 1;
+                    }
+                }
+            }
+            CRC32 crc = new CRC32();
+            crc.update(index.array());
+
+            file.seek(0);
+            file.writeInt(MAGIC);
+            file.writeInt(VERSION);
+            file.writeInt(NUM_X_TILES_AT_DEPTH.length);
+            file.writeInt(numSlots);
+            file.writeLong(fingerprint);
+            file.writeLong(offset);
+            file.writeLong(crc.getValue());
+            file.write(index.array());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        GraphSnapshot.replace(temp, filename);
+        return numTiles;
+    }
+
+    /**
+     * Returns the archive in the given file, mapped into memory, or null if
+     * the file is missing, corrupt, of another VERSION, or was packed for a
+     * different number of tiles than the map has or from different tile files
+     * than those in folder. If folder is missing, e.g. when the tiles are only
+     * packaged as resources, the archive is trusted.
+     */
+    public static TileArchive open(String filename, String folder) {
+        try {
+            ByteBuffer in = GraphSnapshot.map(filename);
+            if (in == null) {
+                return null;
+            }
+            if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC) {
+                System.err.println("Not a tile archive: " + filename);
+                return null;
+            }
+            if (in.getInt() != VERSION) {
+                System.err.println("Tile archive " + filename + " has an old version; reading tile files");
+                return null;
+            }
+            int numDepths = in.getInt();
+            int numSlots = in.getInt();
+            long packedFingerprint = in.getLong();
+            long length = in.getLong();
+            long checksum = in.getLong();
+            if (numDepths != NUM_X_TILES_AT_DEPTH.length || numSlots != numSlots()) {
+                System.err.println("Tile archive " + filename + " does not fit the map; reading tile files");
+                return null;
+            }
+            if (length != in.limit() || in.remaining() < numSlots * SLOT_BYTES) {
+                System.err.println("Tile archive " + filename + " is truncated; reading tile files");
+                return null;
+            }
+            ByteBuffer index = in.slice();
+            index.limit(numSlots * SLOT_BYTES);
+            CRC32 crc = new CRC32();
+            crc.update(index.duplicate());
+            if (crc.getValue() != checksum) {
+                System.err.println("Tile archive " + filename + " is corrupt; reading tile files");
+                return null;
+            }
+            long current = fingerprint(folder);
+            if (current != -1 && current != packedFingerprint) {
+                System.err.println("Tile archive " + filename + " is stale; reading tile files");
+                return null;
+            }
+            return new TileArchive(in.duplicate().clear(), index);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private TileArchive(ByteBuffer data, ByteBuffer index) {
+        this.data = data;
+        this.index = index;
+        int numTiles = 0;
+        for (int slot = 0; slot < index.limit() / SLOT_BYTES; slot += 1) {
+            if (index.getInt(slot * SLOT_BYTES + Long.BYTES) >= 0) {
+                numTiles += 1;
+            }
+        }
+        size = numTiles;
+    }
+
+    /**
+     * Returns the bytes of the tile at (x, y) of the given depth as a
+     * read-only slice of the archive, or null if the archive does not have
+     * it. Runs in O(1) time, and is thread-safe.
+     */
+    public ByteBuffer get(int depth, int x, int y) {
+        int slot = slot(depth, x, y);
+        if (slot < 0) {
+            return null;
+        }
+        long offset = index.getLong(slot * SLOT_BYTES);
+        int length = index.getInt(slot * SLOT_BYTES + Long.BYTES);
+        if (length < 0 || offset + length > data.limit()) {
+            return null;
+        }
+        // the shared buffer's position is never moved, so duplicating it is safe
+        ByteBuffer bytes = data.duplicate();
+        bytes.position((int) offset).limit((int) offset + length);
+        return bytes.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a stream of the bytes of the tile at (x, y) of the given depth,
+     * e.g. to decode it, or null if the archive does not have it.
+     */
+    public InputStream stream(int depth, int x, int y) {
+        ByteBuffer bytes = get(depth, x, y);
+        return bytes == null ? null : new ByteBufferInputStream(bytes);
+    }
+
+    /** Returns the number of tiles in the archive. */
+    public int size() {
+        return size;
+    }
+
+    /** Returns the number of tiles of every depth. */
+    private static int numSlots() {
+        int numSlots = 0;
+        for (int depth = 0; depth < NUM_X_TILES_AT_DEPTH.length; depth += 1) {
+            numSlots += NUM_X_TILES_AT_DEPTH[depth] * NUM_Y_TILES_AT_DEPTH[depth];
+        }
+        return numSlots;
+    }
+
+    /** Returns the index slot of the tile at (x, y) of depth, or -1 if it is not on the map. */
+    private static int slot(int depth, int x, int y) {
+        if (!TileGrid.exists(depth, x, y)) {
+            return -1;
+        }
+        int slot = 0;
+        for (int d = 0; d < depth; d += 1) {
+            slot += NUM_X_TILES_AT_DEPTH[d] * NUM_Y_TILES_AT_DEPTH[d];
+        }
+        return slot + y * NUM_X_TILES_AT_DEPTH[depth] + x;
+    }
+
+    /**
+     * Returns a CRC32 of the names, sizes and modification times of the tile
+     * files in folder, in index order, or -1 if there is no such folder. Only
+     * the files' attributes are read, so checking an archive at startup does
+     * not read every tile.
+     */
+    private static long fingerprint(String folder) throws IOException {
+        if (!Files.isDirectory(Paths.get(folder))) {
+            return -1;
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer attributes = ByteBuffer.allocate(2 * Long.BYTES);
+        for (int depth = 0; depth < NUM_X_TILES_AT_DEPTH.length; depth += 1) {
+            for (int y = 0; y < NUM_Y_TILES_AT_DEPTH[depth]; y += 1) {
+                for (int x = 0; x < NUM_X_TILES_AT_DEPTH[depth]; x += 1) {
+                    String name = TileGrid.filename(depth, x, y);
+                    BasicFileAttributes file;
+                    try {
+                        file = Files.readAttributes(Paths.get(folder, name), BasicFileAttributes.class);
+                    } catch (NoSuchFileException e) {
+                        continue;
+                    }
+                    if (!file.isRegularFile()) {
+                        continue;
+                    }
+                    crc.update(name.getBytes(StandardCharsets.UTF_8));
+                    attributes.clear();
+                    attributes.putLong(file.size()).putLong(file.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+                    crc.update(attributes.array());
+                }
+            }
+        }
+        return crc.getValue();
+    }
+
+    /** Reads a buffer from its position to its limit. */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer bytes;
+
+        ByteBufferInputStream(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return bytes.hasRemaining() ? bytes.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!bytes.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, bytes.remaining());
+            bytes.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return bytes.remaining();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package huskymaps.params;
+
+import spark.Request;
+
+import java.util.Arrays;
+
+import static huskymaps.utils.Constants.HALT_RESPONSE;
+import static huskymaps.utils.Constants.MAX_MATRIX_CELLS;
+import static spark.Spark.halt;
+
+/**
+ * Represents a distance matrix request received from the browser. The sources
+ * and targets parameters are lists of points written "lat,lon;lat,lon;...".
+ */
+public final class MatrixRequest {
+
+    /** The latitude and longitude of each source and each target. */
+    public final double[] sourceLats;
+    public final double[] sourceLons;
+    public final double[] targetLats;
+    public final double[] targetLons;
+
+    /**
+     * Returns a MatrixRequest with the required parameters.
+     * @param request Spark Request
+     * @return A populated MatrixRequest of the sources and targets
+     */
+    public static MatrixRequest from(Request request) {
+        try {
+            double[][] sources = parsePoints(request.queryParams("sources"));
+            double[][] targets = parsePoints(request.queryParams("targets"));
+            if ((long) sources[0].length * targets[0].length > MAX_MATRIX_CELLS) {
+                halt(HALT_RESPONSE, "Request failed: more than " + MAX_MATRIX_CELLS + " distances.");
+            }
+            return new MatrixRequest(sources[0], sources[1], targets[0], targets[1]);
+        } catch (NullPointerException e) {
+            halt(HALT_RESPONSE, "Request failed: parameter not found.");
+        } catch (NumberFormatException e) {
+            e.printStackTrace();
+            halt(HALT_RESPONSE, "Request failed: unable to parse double.");
+        }
+        return null;
+    }
+
+    /**
+     * Returns the latitudes and longitudes of the points in s.
+     * @throws NumberFormatException if a point is not two numbers
+     */
+    private static double[][] parsePoints(String s) {
+        String[] points = s.split(";");
+        double[] lats = new double[points.length];
+        double[] lons = new double[points.length];
+        for (int i = 0; i < points.length; i += 1) {
+            String[] latLon = points[i].split(",");
+            if (latLon.length != 2) {
+                throw new NumberFormatException("Not a point: " + points[i]);
+            }
+            lats[i] = Double.parseDouble(latLon[0]);
+            lons[i] = Double.parseDouble(latLon[1]);
+        }
+        return new double[][]{lats, lons};
+    }
+
+    public MatrixRequest(double[] sourceLats, double[] sourceLons, double[] targetLats, double[] targetLons) {
+        this.sourceLats = sourceLats;
+        this.sourceLons = sourceLons;
+        this.targetLats = targetLats;
+        this.targetLons = targetLons;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MatrixRequest that = (MatrixRequest) o;
+        return Arrays.equals(sourceLats, that.sourceLats) &&
+                Arrays.equals(sourceLons, that.sourceLons) &&
+                Arrays.equals(targetLats, that.targetLats) &&
+                Arrays.equals(targetLons, that.targetLons);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(sourceLats);
+        result = 31 * result + Arrays.hashCode(sourceLons);
+        result = 31 * result + Arrays.hashCode(targetLats);
+        result = 31 * result + Arrays.hashCode(targetLons);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "MatrixRequest{" +
+                "sources=" + sourceLats.length +
+                ", targets=" + targetLats.length +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package huskymaps.params;
+
+import java.util.Arrays;
+
+/** The computed distance matrix in response to a browser request. */
+public class MatrixResult {
+
+    /** The nodes the sources and targets snapped to. */
+    public final long[] sources;
+    public final long[] targets;
+    /**
+     * The distance from each source to each target, or null where there is no
+     * path: JSON has no infinity.
+     */
+    public final Double[][] distances;
+
+    /**
+     * Constructs a MatrixResult from the snapped nodes and their distances.
+     * @param sources The sources field.
+     * @param targets The targets field.
+     * @param distances The distances, infinite where there is no path.
+     */
+    public MatrixResult(long[] sources, long[] targets, double[][] distances) {
+        this.sources = sources;
+        this.targets = targets;
+        this.distances = new Double[distances.length][];
+        for (int i = 0; i < distances.length; i += 1) {
+            this.distances[i] = new Double[distances[i].length];
+            for (int j = 0; j < distances[i].length; j += 1) {
+                if (distances[i][j] != Double.POSITIVE_INFINITY) {
+                    this.distances[i][j] = distances[i][j];
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MatrixResult that = (MatrixResult) o;
+        return Arrays.equals(sources, that.sources) &&
+                Arrays.equals(targets, that.targets) &&
+                Arrays.deepEquals(distances, that.distances);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Arrays.hashCode(sources);
+        result = 31 * result + Arrays.hashCode(targets);
+        result = 31 * result + Arrays.deepHashCode(distances);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "MatrixResult{" +
+                "sources=" + Arrays.toString(sources) +
+                ", targets=" + Arrays.toString(targets) +
+                ", distances=" + Arrays.deepToString(distances) +
+                '}';
+    }
+}
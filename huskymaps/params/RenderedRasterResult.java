@@ -12,6 +12,8 @@ public class RenderedRasterResult {
 
     /** The base-64 encoded string of the image. */
     public final String image;
+    /** The MIME type of the image, e.g. image/png. */
+    public final String mimeType;
     /** The bounding upper-left, lower-right latitudes and longitudes of the final image. */
     public final double ullat;
     public final double ullon;
@@ -21,8 +23,9 @@ public class RenderedRasterResult {
     public final boolean success;
 
     /** Construct a new RenderedRasterResult with the given parameters. */
-    public RenderedRasterResult(RasterResult result, String image) {
+    public RenderedRasterResult(RasterResult result, String image, String mimeType) {
         this.image = image;
+        this.mimeType = mimeType;
         this.ullat = result.ullat;
         this.ullon = result.ullon;
         this.lrlat = result.lrlat;
@@ -30,6 +33,11 @@ public class RenderedRasterResult {
         this.success = result.grid != null;
     }
 
+    /** Construct a new RenderedRasterResult with the given parameters, for a PNG image. */
+    public RenderedRasterResult(RasterResult result, String image) {
+        this(result, image, "image/png");
+    }
+
     /** Construct a new RenderedRasterResult with the given parameters. */
     public RenderedRasterResult(RasterResult result) {
         this(result, null);
@@ -49,7 +57,8 @@ public class RenderedRasterResult {
                 Precision.equals(that.lrlat, lrlat, EPSILON) &&
                 Precision.equals(that.lrlon, lrlon, EPSILON) &&
                 success == that.success &&
-                Objects.equals(image, that.image);
+                Objects.equals(image, that.image) &&
+                Objects.equals(mimeType, that.mimeType);
     }
 
     @Override
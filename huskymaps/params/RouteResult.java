@@ -1,5 +1,6 @@
 package huskymaps.params;
 
+import java.util.List;
 import java.util.Objects;
 
 /** The computed routing result in response to a browser request. */
@@ -9,6 +10,8 @@ public class RouteResult {
     public final boolean success;
     /** The HTML-friendly String representation of the navigation directions. */
     public final String directions;
+    /** The ids of the vertices along the route, kept for the session but not sent. */
+    public final transient List<Long> route;
 
     /**
      * Constructs a RouteResult instance and sets the success and distance fields.
@@ -16,8 +19,17 @@ public class RouteResult {
      * @param directions The directions field.
      */
     public RouteResult(boolean success, String directions) {
+        this(success, directions, List.of());
+    }
+
+    /**
+     * Same as above, also keeping the route the directions are for.
+     * @param route The route field.
+     */
+    public RouteResult(boolean success, String directions, List<Long> route) {
         this.success = success;
         this.directions = directions;
+        this.route = route;
     }
 
     @Override
@@ -0,0 +1,79 @@
+package huskymaps.params;
+
+import huskymaps.server.logic.Rasterer;
+import spark.Request;
+
+import java.util.Objects;
+
+import static huskymaps.utils.Constants.HALT_RESPONSE;
+import static spark.Spark.halt;
+
+/** Represents a request from the browser for a single tile, e.g. /tile/3/5/2. */
+public final class TileRequest {
+
+    /** The requested tile. */
+    public final Rasterer.Tile tile;
+    /** The entity tags of the browser's copies of the tile, or null if it has none. */
+    public final String ifNoneMatch;
+
+    /**
+     * Returns a TileRequest from the :depth, :x and :y path parameters.
+     * @param request Spark Request
+     * @return A populated TileRequest
+     */
+    public static TileRequest from(Request request) {
+        try {
+            return new TileRequest(
+                    new Rasterer.Tile(
+                            Integer.parseInt(request.params(":depth")),
+                            Integer.parseInt(request.params(":x")),
+                            Integer.parseInt(stripExtension(request.params(":y")))
+                    ),
+                    request.headers("If-None-Match")
+            );
+        } catch (NullPointerException e) {
+            halt(HALT_RESPONSE, "Request failed: parameter not found.");
+        } catch (NumberFormatException e) {
+            e.printStackTrace();
+            halt(HALT_RESPONSE, "Request failed: unable to parse value.");
+        }
+        return null;
+    }
+
+    /** Use the from factory method to avoid misplacing parameters. */
+    private TileRequest(Rasterer.Tile tile, String ifNoneMatch) {
+        this.tile = tile;
+        this.ifNoneMatch = ifNoneMatch;
+    }
+
+    /** Lets the last path parameter carry an extension, e.g. 2.jpg. */
+    private static String stripExtension(String y) {
+        int dot = y.indexOf('.');
+        return dot < 0 ? y : y.substring(0, dot);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TileRequest that = (TileRequest) o;
+        return tile.equals(that.tile) && Objects.equals(ifNoneMatch, that.ifNoneMatch);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tile, ifNoneMatch);
+    }
+
+    @Override
+    public String toString() {
+        return "TileRequest{" +
+                "tile=" + tile +
+                ", ifNoneMatch=" + ifNoneMatch +
+                '}';
+    }
+}
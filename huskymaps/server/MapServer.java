@@ -1,39 +1,67 @@
 package huskymaps.server;
 
 import huskymaps.StreetMapGraph;
+import huskymaps.TileArchive;
 import huskymaps.server.handler.APIRouteHandler;
+import huskymaps.server.handler.RequestExecutor;
 import huskymaps.server.handler.impl.ClearRouteAPIHandler;
+import huskymaps.server.handler.impl.MatrixAPIHandler;
 import huskymaps.server.handler.impl.RasterAPIHandler;
 import huskymaps.server.handler.impl.RedirectAPIHandler;
+import huskymaps.server.handler.impl.RouteTileAPIHandler;
 import huskymaps.server.handler.impl.RoutingAPIHandler;
 import huskymaps.server.handler.impl.SearchAPIHandler;
+import huskymaps.server.handler.impl.TileAPIHandler;
+import huskymaps.server.logic.Router;
+import spark.Route;
 
 import java.util.Map;
 
+import static huskymaps.utils.Constants.GRAPH_SNAPSHOT_PATH;
 import static huskymaps.utils.Constants.HEROKU_DEPLOYMENT;
+import static huskymaps.utils.Constants.IMG_ROOT;
 import static huskymaps.utils.Constants.OSM_DB_PATH;
 import static huskymaps.utils.Constants.PORT;
+import static huskymaps.utils.Constants.REQUEST_QUEUE_CAPACITY;
+import static huskymaps.utils.Constants.REQUEST_THREADS;
+import static huskymaps.utils.Constants.REQUEST_TIMEOUT_MS;
 import static huskymaps.utils.Constants.SEMANTIC_STREET_GRAPH;
+import static huskymaps.utils.Constants.SERVER_THREADS;
+import static huskymaps.utils.Constants.TILE_ARCHIVE;
+import static huskymaps.utils.Constants.TILE_ARCHIVE_PATH;
+import static huskymaps.utils.Constants.TILE_CACHE_WARM_DEPTH;
 import static spark.Spark.before;
 import static spark.Spark.get;
 import static spark.Spark.port;
+import static spark.Spark.post;
 import static spark.Spark.staticFileLocation;
+import static spark.Spark.threadPool;
 
 public class MapServer {
 
-    private static final Map<String, APIRouteHandler> HANDLERS = Map.of(
+    private static final Map<String, Route> HANDLERS = Map.of(
             "/raster", new RasterAPIHandler(),
+            "/tile/:depth/:x/:y", new TileAPIHandler(),
+            "/route_tile/:depth/:x/:y", new RouteTileAPIHandler(),
             "/route", new RoutingAPIHandler(),
             "/clear_route", new ClearRouteAPIHandler(),
             "/search", new SearchAPIHandler(),
+            "/matrix", new MatrixAPIHandler(),
             "/", new RedirectAPIHandler()
             );
 
     /** Entry point for the MapServer. Everything starts here. */
     public static void main(String[] args) {
         port(getPort());
+        threadPool(SERVER_THREADS);
+        // apart from serving tiles, the server's threads only wait on the request
+        // workers, which bound the work in flight
+        APIRouteHandler.setExecutor(new RequestExecutor(REQUEST_THREADS, REQUEST_QUEUE_CAPACITY,
+                REQUEST_TIMEOUT_MS));
 
-        SEMANTIC_STREET_GRAPH = new StreetMapGraph(OSM_DB_PATH);
+        SEMANTIC_STREET_GRAPH = StreetMapGraph.load(OSM_DB_PATH, GRAPH_SNAPSHOT_PATH);
+        TILE_ARCHIVE = TileArchive.open(TILE_ARCHIVE_PATH, IMG_ROOT);
+        Router.routeCache().invalidate();
         staticFileLocation("/static/page");
         /* Allow for all origin requests (since this is not an authenticated server, we do not
          * care about CSRF).  */
@@ -43,9 +71,15 @@ public class MapServer {
             response.header("Access-Control-Allow-Headers", "*");
         });
 
-        for (Map.Entry<String, APIRouteHandler> apiRoute : HANDLERS.entrySet()) {
+        for (Map.Entry<String, Route> apiRoute : HANDLERS.entrySet()) {
             get(apiRoute.getKey(), apiRoute.getValue());
         }
+        post("/matrix", HANDLERS.get("/matrix"));
+
+        // decode the zoomed-out tiles while the first requests come in
+        Thread warmer = new Thread(() -> RasterAPIHandler.tileCache().warm(TILE_CACHE_WARM_DEPTH));
+        warmer.setDaemon(true);
+        warmer.start();
     }
 
     private static int getPort() {
@@ -3,17 +3,33 @@ package huskymaps.server.handler;
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import huskymaps.server.logic.SessionRoutes;
 import spark.Request;
 import spark.Response;
 import spark.Route;
 
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static huskymaps.utils.Constants.BUSY_RESPONSE;
+import static spark.Spark.halt;
+
 /**
  * This is the base class that defines the procedure for handling an API request
  * The process is defined as such that first the request parameters are read, then
  * request is process based on those parameters and finally the response is built.
+ * Once the server sets an executor, requests are processed on its workers, so
+ * handlers must keep per-user state in the request or its session, never in
+ * static fields. Workers never touch the request, its session or the
+ * response: a worker the server gave up on keeps running, and by the time it
+ * finishes they may belong to another user. Instead handle reads the session's
+ * route before processing, and updateSession and updateResponse apply the
+ * result after, all on the server's thread.
  */
 public abstract class APIRouteHandler<Req, Res> implements Route {
 
+    private static volatile RequestExecutor executor;
     private Gson gson;
 
     public APIRouteHandler() {
@@ -22,10 +38,34 @@ public abstract class APIRouteHandler<Req, Res> implements Route {
             .create();
     }
 
+    /**
+     * Processes every later request on the given executor, or on the server's
+     * thread if it is null. Requests it turns away or gives up on are halted
+     * with BUSY_RESPONSE.
+     */
+    public static void setExecutor(RequestExecutor requestExecutor) {
+        executor = requestExecutor;
+    }
+
     @Override
     public Object handle(Request request, Response response) throws Exception {
         Req req = parseRequest(request);
-        Res res = processRequest(req, response);
+        List<Long> route = SessionRoutes.get(request);
+        RequestExecutor current = executor;
+        Res res;
+        if (current == null) {
+            res = processRequest(req, route);
+        } else {
+            try {
+                res = current.call(() -> processRequest(req, route));
+            } catch (RejectedExecutionException e) {
+                throw halt(BUSY_RESPONSE, "Request failed: server busy.");
+            } catch (TimeoutException e) {
+                throw halt(BUSY_RESPONSE, "Request failed: timed out.");
+            }
+        }
+        updateSession(request, res);
+        updateResponse(response, res);
         return buildJsonResponse(res);
     }
 
@@ -39,10 +79,38 @@ public abstract class APIRouteHandler<Req, Res> implements Route {
     /**
      * Process the request using the given parameters
      * @param request parameters
-     * @param response response object
      * @return the result computed after processing request
      */
-    protected abstract Res processRequest(Req request, Response response);
+    protected abstract Res processRequest(Req request);
+
+    /**
+     * Same as above, for handlers that need the route of the user's session.
+     * By default ignores it.
+     * @param request parameters
+     * @param route the session's route, read before processing
+     * @return the result computed after processing request
+     */
+    protected Res processRequest(Req request, List<Long> route) {
+        return processRequest(request);
+    }
+
+    /**
+     * Updates the user's session with the result of processing request, once
+     * processing is done. By default leaves the session as it is.
+     * @param request the request whose session to update
+     * @param result the result computed after processing request
+     */
+    protected void updateSession(Request request, Res result) {
+    }
+
+    /**
+     * Sets the status and headers of response from the result of processing
+     * request, once processing is done. By default leaves them as they are.
+     * @param response the response to the request
+     * @param result the result computed after processing request
+     */
+    protected void updateResponse(Response response, Res result) {
+    }
 
     /**
      * Builds a JSON response to return from the result object
@@ -0,0 +1,76 @@
+package huskymaps.server.handler;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs request handlers on a fixed number of worker threads, with a bounded
+ * queue in front of them and a time limit on each request. Whatever the number of
+ * server threads, no more than threads requests compute at once, and a burst
+ * beyond the queue is turned away at once instead of piling up.
+ */
+public class RequestExecutor {
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMillis;
+
+    /**
+     * Creates an executor with the given number of worker threads and room for
+     * queueCapacity waiting requests, which gives up on a request after
+     * timeoutMillis milliseconds.
+     */
+    public RequestExecutor(int threads, int queueCapacity, long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger count = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "request-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Runs task on a worker thread and returns its result, rethrowing whatever
+     * it throws. The solvers do not check for interrupts, so a timed-out task
+     * keeps its worker until it finishes; only the caller is released.
+     * @throws RejectedExecutionException if every worker is busy and the queue is full
+     * @throws TimeoutException if the task does not finish in time
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        Future<T> future = pool.submit(task);
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+
+    /** Returns the number of worker threads. */
+    public int threads() {
+        return pool.getMaximumPoolSize();
+    }
+
+    /** Returns the number of requests waiting for a worker. */
+    public int pending() {
+        return pool.getQueue().size();
+    }
+
+    /** Stops accepting requests; those already submitted still run. */
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
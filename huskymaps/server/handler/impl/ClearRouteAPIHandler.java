@@ -1,10 +1,8 @@
 package huskymaps.server.handler.impl;
 
 import huskymaps.server.handler.APIRouteHandler;
+import huskymaps.server.logic.SessionRoutes;
 import spark.Request;
-import spark.Response;
-
-import static huskymaps.utils.Constants.ROUTE_LIST;
 
 /** Handles the "Clear Route" button in Bearmaps. */
 public class ClearRouteAPIHandler extends APIRouteHandler {
@@ -14,9 +12,14 @@ public class ClearRouteAPIHandler extends APIRouteHandler {
         return null;
     }
 
+    /** Nothing to compute: the route is cleared from the session by updateSession. */
     @Override
-    protected Object processRequest(Object request, Response response) {
-        ROUTE_LIST.clear();
+    protected Object processRequest(Object request) {
         return true;
     }
+
+    @Override
+    protected void updateSession(Request request, Object result) {
+        SessionRoutes.clear(request);
+    }
 }
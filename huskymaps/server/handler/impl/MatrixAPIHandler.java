@@ -0,0 +1,42 @@
+package huskymaps.server.handler.impl;
+
+import huskymaps.params.MatrixRequest;
+import huskymaps.params.MatrixResult;
+import huskymaps.server.handler.APIRouteHandler;
+import spark.Request;
+
+import static huskymaps.utils.Constants.SEMANTIC_STREET_GRAPH;
+
+/**
+ * Handles requests for the travel distances from each of a list of sources to
+ * each of a list of targets. Accepts POST as well as GET, since a matrix of a few
+ * thousand points does not fit in a URL.
+ */
+public class MatrixAPIHandler extends APIRouteHandler<MatrixRequest, MatrixResult> {
+
+    @Override
+    protected MatrixRequest parseRequest(Request request) {
+        return MatrixRequest.from(request);
+    }
+
+    /**
+     * Snaps every source and target to its closest node, and finds the distances
+     * between them.
+     * @param request MatrixRequest
+     * @return MatrixResult
+     */
+    @Override
+    protected MatrixResult processRequest(MatrixRequest request) {
+        long[] sources = closest(request.sourceLats, request.sourceLons);
+        long[] targets = closest(request.targetLats, request.targetLons);
+        return new MatrixResult(sources, targets, SEMANTIC_STREET_GRAPH.distances(sources, targets));
+    }
+
+    private static long[] closest(double[] lats, double[] lons) {
+        long[] nodes = new long[lats.length];
+        for (int i = 0; i < lats.length; i += 1) {
+            nodes[i] = SEMANTIC_STREET_GRAPH.closest(lats[i], lons[i]);
+        }
+        return nodes;
+    }
+}
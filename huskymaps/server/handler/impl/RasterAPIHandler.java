@@ -4,31 +4,54 @@ import huskymaps.params.RasterRequest;
 import huskymaps.params.RasterResult;
 import huskymaps.params.RenderedRasterResult;
 import huskymaps.server.handler.APIRouteHandler;
+import huskymaps.server.logic.RasterCache;
+import huskymaps.server.logic.RasterRenderer;
 import huskymaps.server.logic.Rasterer;
+import huskymaps.server.logic.TileCache;
 import spark.Request;
-import spark.Response;
 
 import javax.imageio.ImageIO;
-import java.awt.*;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Base64;
+import java.util.List;
 
 import static huskymaps.utils.Constants.HEROKU_DEPLOYMENT;
 import static huskymaps.utils.Constants.IMG_ROOT;
-import static huskymaps.utils.Constants.ROUTE_LIST;
-import static huskymaps.utils.Constants.ROUTE_STROKE_COLOR;
-import static huskymaps.utils.Constants.ROUTE_STROKE_WIDTH_PX;
+import static huskymaps.utils.Constants.RASTER_CACHE_BYTES;
+import static huskymaps.utils.Constants.RASTER_FORMAT;
+import static huskymaps.utils.Constants.RASTER_JPEG_QUALITY;
+import static huskymaps.utils.Constants.RASTER_PARALLEL;
+import static huskymaps.utils.Constants.RASTER_PNG_DEFLATE_LEVEL;
 import static huskymaps.utils.Constants.SEMANTIC_STREET_GRAPH;
-import static huskymaps.utils.Constants.TILE_SIZE;
+import static huskymaps.utils.Constants.TILE_ARCHIVE;
+import static huskymaps.utils.Constants.TILE_CACHE_BYTES;
+import static huskymaps.utils.Constants.TILE_CACHE_EVICTION;
+import static huskymaps.utils.Constants.TILE_CACHE_STORAGE;
 
 /**
  * Handles requests from the web browser for map images. These images will be
  * rastered into one large image to be displayed to the user.
  */
 public class RasterAPIHandler extends APIRouteHandler<RasterRequest, RenderedRasterResult> {
+    private static final TileCache TILE_CACHE = new TileCache(TILE_CACHE_BYTES, TILE_CACHE_EVICTION,
+            TILE_CACHE_STORAGE, RasterAPIHandler::decodeTile);
+    private static final RasterCache RASTER_CACHE = new RasterCache(RASTER_CACHE_BYTES);
+    private static final RasterRenderer RENDERER = new RasterRenderer(TILE_CACHE::get, RASTER_PARALLEL,
+            RASTER_FORMAT, RASTER_PNG_DEFLATE_LEVEL, RASTER_JPEG_QUALITY);
+
+    /** Returns the cache of decoded tiles, e.g. to warm it or for its counters. */
+    public static TileCache tileCache() {
+        return TILE_CACHE;
+    }
+
+    /** Returns the cache of encoded rasters, e.g. for its counters. */
+    public static RasterCache rasterCache() {
+        return RASTER_CACHE;
+    }
 
     @Override
     protected RasterRequest parseRequest(Request request) {
@@ -38,78 +61,55 @@ public class RasterAPIHandler extends APIRouteHandler<RasterRequest, RenderedRas
     /**
      * Takes a user query and finds the grid of images that best matches the query.
      * @param request RasterRequest
-     * @param response Ignored
      * @return RenderedRasterResult
      */
     @Override
-    protected RenderedRasterResult processRequest(RasterRequest request, Response response) {
-        RasterResult raster = Rasterer.rasterizeMap(request);
-        if (raster.grid != null) {
-            // Render the result as an image if successful
-            BufferedImage image = render(raster);
-            ByteArrayOutputStream os = new ByteArrayOutputStream();
-            try {
-                ImageIO.write(image, "png", os);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            return new RenderedRasterResult(raster, Base64.getEncoder().encodeToString(os.toByteArray()));
-        } else {
-            return new RenderedRasterResult(raster);
-        }
+    protected RenderedRasterResult processRequest(RasterRequest request) {
+        return rasterize(request, List.of());
     }
 
-    private static BufferedImage render(RasterResult result) {
-        int numVertTiles = result.grid.length;
-        int numHorizTiles = result.grid[0].length;
-
-        BufferedImage image = new BufferedImage(
-                numHorizTiles * TILE_SIZE,
-                numVertTiles * TILE_SIZE,
-                BufferedImage.TYPE_INT_RGB
-        );
-        Graphics graphic = image.getGraphics();
-        int x = 0;
-        int y = 0;
+    /** Same as above, drawing the route of the user's session over the map. */
+    @Override
+    protected RenderedRasterResult processRequest(RasterRequest request, List<Long> route) {
+        return rasterize(request, route);
+    }
 
-        for (int r = 0; r < numVertTiles; r += 1) {
-            for (int c = 0; c < numHorizTiles; c += 1) {
-                graphic.drawImage(getTile(result.grid[r][c]), x, y, null);
-                x += TILE_SIZE;
-                if (x >= image.getWidth()) {
-                    x = 0;
-                    y += TILE_SIZE;
+    /** Renders the raster for request with route drawn over it, or reuses the one rendered last time. */
+    private static RenderedRasterResult rasterize(RasterRequest request, List<Long> route) {
+        RasterResult raster = Rasterer.rasterizeMap(request);
+        if (raster.grid != null) {
+            String encoded = RASTER_CACHE.get(raster.grid, route);
+            if (encoded == null) {
+                // Render the result as an image if successful
+                BufferedImage image = RENDERER.render(raster, route, SEMANTIC_STREET_GRAPH);
+                try {
+                    encoded = Base64.getEncoder().encodeToString(RENDERER.encode(image));
+                    RASTER_CACHE.put(raster.grid, route, encoded);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    encoded = "";
                 }
             }
+            return new RenderedRasterResult(raster, encoded, RENDERER.format().mimeType);
+        } else {
+            return new RenderedRasterResult(raster);
         }
-
-        final double wdpp = (result.lrlon - result.ullon) / image.getWidth();
-        final double hdpp = (result.ullat - result.lrlat) / image.getHeight();
-        if (ROUTE_LIST != null && !ROUTE_LIST.isEmpty()) {
-            Graphics2D g2d = (Graphics2D) graphic;
-            g2d.setColor(ROUTE_STROKE_COLOR);
-            g2d.setStroke(new BasicStroke(ROUTE_STROKE_WIDTH_PX,
-                    BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            ROUTE_LIST.stream().reduce((v, w) -> {
-                g2d.drawLine(
-                        (int) ((SEMANTIC_STREET_GRAPH.lon(v) - result.ullon) * (1 / wdpp)),
-                        (int) ((result.ullat - SEMANTIC_STREET_GRAPH.lat(v)) * (1 / hdpp)),
-                        (int) ((SEMANTIC_STREET_GRAPH.lon(w) - result.ullon) * (1 / wdpp)),
-                        (int) ((result.ullat - SEMANTIC_STREET_GRAPH.lat(w)) * (1 / hdpp))
-                );
-                return w;
-            });
-        }
-        return image;
     }
 
-    private static BufferedImage getTile(Rasterer.Tile name) {
+    /**
+     * Reads and decodes the tile's image, from the archive if there is one, or
+     * returns null if it cannot.
+     */
+    private static BufferedImage decodeTile(Rasterer.Tile name) {
         String path = IMG_ROOT + name;
         BufferedImage tile = null;
         try {
             File in = new File(path);
-            if (!HEROKU_DEPLOYMENT) {
+            if (TILE_ARCHIVE != null) {
+                InputStream archived = TILE_ARCHIVE.stream(name.depth, name.x, name.y);
+                // buffered in memory; by default ImageIO buffers a stream in a temporary file
+                tile = archived == null ? null : ImageIO.read(new MemoryCacheImageInputStream(archived));
+            } else if (!HEROKU_DEPLOYMENT) {
                 tile = ImageIO.read(in);
             } else {
                 tile = ImageIO.read(Thread.currentThread().getContextClassLoader().getResource(path));
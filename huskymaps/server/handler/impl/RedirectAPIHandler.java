@@ -11,11 +11,15 @@ public class RedirectAPIHandler extends APIRouteHandler {
     }
 
     @Override
-    protected Object processRequest(Object request, Response response) {
-        response.redirect("/map.html", 301);
+    protected Object processRequest(Object request) {
         return true;
     }
 
+    @Override
+    protected void updateResponse(Response response, Object result) {
+        response.redirect("/map.html", 301);
+    }
+
     @Override
     protected Object buildJsonResponse(Object result) {
         return true;
@@ -0,0 +1,72 @@
+package huskymaps.server.handler.impl;
+
+import huskymaps.params.TileRequest;
+import huskymaps.server.logic.RasterRenderer;
+import huskymaps.server.logic.SessionRoutes;
+import huskymaps.server.logic.TileStore;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static huskymaps.utils.Constants.NOT_FOUND_RESPONSE;
+import static huskymaps.utils.Constants.NOT_MODIFIED_RESPONSE;
+import static huskymaps.utils.Constants.RASTER_PNG_DEFLATE_LEVEL;
+import static huskymaps.utils.Constants.ROUTE_TILE_CACHE_CONTROL;
+import static huskymaps.utils.Constants.SEMANTIC_STREET_GRAPH;
+import static huskymaps.utils.Constants.TILE_SIZE;
+import static spark.Spark.halt;
+
+/**
+ * Handles requests from the web browser for the tiles of the route overlay,
+ * e.g. /route_tile/3/5/2: transparent PNGs with the route of the user's
+ * session drawn on them, which the browser lays over the map tiles. The ETag
+ * of an overlay tile depends only on the tile and the route, so while the
+ * route stays the same, the browser's copies stay current.
+ */
+public class RouteTileAPIHandler implements Route {
+    private static final RasterRenderer RENDERER = new RasterRenderer(tile -> null, false,
+            RasterRenderer.Format.PNG, RASTER_PNG_DEFLATE_LEVEL, 0);
+    /** Most tiles are not on the route, and all of those look the same. */
+    private static final byte[] EMPTY_TILE = encode(
+            new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB));
+    private static final byte[] NOT_MODIFIED = new byte[0];
+
+    /**
+     * Returns the overlay of the session's route over the requested tile, or
+     * no bytes with a 304 if the browser's copy is current. Overlays are drawn
+     * on the server's thread rather than a request worker: most tiles are off
+     * the route and share EMPTY_TILE, and the rest draw a few segments, so they
+     * need no worker and are never queued behind a slow route.
+     */
+    @Override
+    public Object handle(Request request, Response response) {
+        TileRequest tileRequest = TileRequest.from(request);
+        if (!TileStore.exists(tileRequest.tile)) {
+            throw halt(NOT_FOUND_RESPONSE, "Request failed: no such tile.");
+        }
+        List<Long> route = SessionRoutes.get(request);
+        String etag = TileStore.etag(tileRequest.tile, route);
+        response.header("ETag", etag);
+        response.header("Cache-Control", ROUTE_TILE_CACHE_CONTROL);
+        if (TileStore.matches(tileRequest.ifNoneMatch, etag)) {
+            response.status(NOT_MODIFIED_RESPONSE);
+            return NOT_MODIFIED;
+        }
+        response.type(RENDERER.format().mimeType);
+        BufferedImage image = RENDERER.renderOverlay(tileRequest.tile, route, SEMANTIC_STREET_GRAPH);
+        return image == null ? EMPTY_TILE : encode(image);
+    }
+
+    private static byte[] encode(BufferedImage image) {
+        try {
+            return RENDERER.encode(image);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
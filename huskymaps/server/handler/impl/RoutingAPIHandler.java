@@ -5,17 +5,17 @@ import huskymaps.params.RouteResult;
 import huskymaps.server.handler.APIRouteHandler;
 import huskymaps.server.logic.NavigationDirection;
 import huskymaps.server.logic.Router;
+import huskymaps.server.logic.SessionRoutes;
 import spark.Request;
-import spark.Response;
 
 import java.util.List;
 
-import static huskymaps.utils.Constants.ROUTE_LIST;
 import static huskymaps.utils.Constants.SEMANTIC_STREET_GRAPH;
 
 /**
  * Handles requests from the web browser for routes between locations. The
- * route will be returned as image data, as well as (optionally) driving directions.
+ * route is kept in the user's session, to be drawn over the map by the
+ * RasterAPIHandler, and returned as (optionally) driving directions.
  */
 public class RoutingAPIHandler extends APIRouteHandler<RouteRequest, RouteResult> {
 
@@ -28,18 +28,23 @@ public class RoutingAPIHandler extends APIRouteHandler<RouteRequest, RouteResult
      * Takes a user query in the form of a pair of (lat/lon) values, and finds
      * street directions between the given points.
      * @param request RouteRequest
-     * @param response Ignored.
      * @return RouteResult
      */
     @Override
-    protected RouteResult processRequest(RouteRequest request, Response response) {
-        ROUTE_LIST = Router.shortestPath(SEMANTIC_STREET_GRAPH, request);
-        return new RouteResult(!ROUTE_LIST.isEmpty(), getDirectionsText());
+    protected RouteResult processRequest(RouteRequest request) {
+        List<Long> route = Router.shortestPath(SEMANTIC_STREET_GRAPH, request);
+        return new RouteResult(!route.isEmpty(), getDirectionsText(route), route);
     }
 
-    /** Takes the current route and converts it into an HTML-friendly String. */
-    private String getDirectionsText() {
-        List<NavigationDirection> directions = Router.routeDirections(SEMANTIC_STREET_GRAPH, ROUTE_LIST);
+    /** Makes the route found the current route of the user's session. */
+    @Override
+    protected void updateSession(Request request, RouteResult result) {
+        SessionRoutes.set(request, result.route);
+    }
+
+    /** Takes the route and converts it into an HTML-friendly String. */
+    private static String getDirectionsText(List<Long> route) {
+        List<NavigationDirection> directions = Router.routeDirections(SEMANTIC_STREET_GRAPH, route);
         if (directions == null || directions.isEmpty()) {
             return "";
         }
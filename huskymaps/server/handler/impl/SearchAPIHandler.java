@@ -3,7 +3,6 @@ package huskymaps.server.handler.impl;
 import huskymaps.params.SearchRequest;
 import huskymaps.server.handler.APIRouteHandler;
 import spark.Request;
-import spark.Response;
 
 import java.util.List;
 
@@ -17,7 +16,7 @@ public class SearchAPIHandler extends APIRouteHandler<SearchRequest, List> {
     }
 
     @Override
-    protected List processRequest(SearchRequest request, Response response) {
+    protected List processRequest(SearchRequest request) {
         if (request.full) {
             return SEMANTIC_STREET_GRAPH.getLocations(request.term);
         } else {
@@ -0,0 +1,107 @@
+package huskymaps.server.handler.impl;
+
+import huskymaps.params.TileRequest;
+import huskymaps.server.logic.Rasterer;
+import huskymaps.server.logic.TileStore;
+import org.eclipse.jetty.server.HttpOutput;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static huskymaps.utils.Constants.HEROKU_DEPLOYMENT;
+import static huskymaps.utils.Constants.IMG_ROOT;
+import static huskymaps.utils.Constants.NOT_FOUND_RESPONSE;
+import static huskymaps.utils.Constants.NOT_MODIFIED_RESPONSE;
+import static huskymaps.utils.Constants.TILE_ARCHIVE;
+import static huskymaps.utils.Constants.TILE_CACHE_CONTROL;
+import static spark.Spark.halt;
+
+/**
+ * Handles requests from the web browser for single map tiles, e.g.
+ * /tile/3/5/2. Each tile is sent as the JPEG it is stored as, with a strong
+ * ETag and a Cache-Control header, so the browser fetches each tile once and
+ * only fetches the newly exposed tiles as the user pans. Tiles come from the
+ * memory-mapped TILE_ARCHIVE if there is one, and are written from it straight
+ * to the connection, without copying them onto the heap.
+ */
+public class TileAPIHandler implements Route {
+    private static final TileStore TILE_STORE = new TileStore(TileAPIHandler::readTile);
+
+    /** Returns the store of encoded tiles, e.g. to invalidate it. */
+    public static TileStore tileStore() {
+        return TILE_STORE;
+    }
+
+    /**
+     * Sends the requested tile, or no bytes with a 304 if the browser's copy is
+     * current. Tiles are looked up and sent on the server's thread rather than
+     * a request worker: a lookup takes microseconds, so tiles need no worker,
+     * and are never queued behind a slow route.
+     */
+    @Override
+    public Object handle(Request request, Response response) throws Exception {
+        TileRequest tileRequest = TileRequest.from(request);
+        String etag = TILE_STORE.etag(tileRequest.tile);
+        if (etag == null) {
+            throw halt(NOT_FOUND_RESPONSE, "Request failed: no such tile.");
+        }
+        response.header("ETag", etag);
+        response.header("Cache-Control", TILE_CACHE_CONTROL);
+        if (TileStore.matches(tileRequest.ifNoneMatch, etag)) {
+            response.status(NOT_MODIFIED_RESPONSE);
+            return "";
+        }
+        ByteBuffer bytes = TILE_STORE.read(tileRequest.tile);
+        if (bytes == null) {
+            throw halt(NOT_FOUND_RESPONSE, "Request failed: no such tile.");
+        }
+        response.type("image/jpeg");
+        send(bytes, response.raw());
+        // once the tile is sent, the response is committed and the server adds nothing to it
+        return "";
+    }
+
+    /**
+     * Writes bytes to the response. Jetty writes a direct buffer, such as a
+     * slice of a memory-mapped file, to the socket as it is; other servers get
+     * it through a stream.
+     */
+    private static void send(ByteBuffer bytes, HttpServletResponse response) throws IOException {
+        response.setContentLength(bytes.remaining());
+        ServletOutputStream out = response.getOutputStream();
+        if (out instanceof HttpOutput) {
+            ((HttpOutput) out).sendContent(bytes);
+        } else {
+            Channels.newChannel(out).write(bytes);
+            out.flush();
+        }
+    }
+
+    /** Returns the tile from the archive, or reads the tile's image file; null if it cannot. */
+    private static ByteBuffer readTile(Rasterer.Tile name) {
+        if (TILE_ARCHIVE != null) {
+            return TILE_ARCHIVE.get(name.depth, name.x, name.y);
+        }
+        String path = IMG_ROOT + name;
+        try {
+            if (!HEROKU_DEPLOYMENT) {
+                return ByteBuffer.wrap(Files.readAllBytes(Paths.get(path)));
+            }
+            try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(path)) {
+                return in == null ? null : ByteBuffer.wrap(in.readAllBytes());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package huskymaps.server.logic;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bounded cache of rendered rasters, as the Base64-encoded PNGs sent to the
+ * browser, so that a repeated raster request needs no decoding, compositing or
+ * encoding at all. A raster is keyed by its tile grid, given by its upper left
+ * tile and its size, and by the route drawn over it, so users with the same
+ * route share rasters. Evicts the least recently used rasters to keep the
+ * encoded images within budget bytes. All methods are thread-safe.
+ */
+public class RasterCache {
+    private final long budget;
+    // access order, so the first entry is the least recently used
+    private final LinkedHashMap<Key, String> rasters;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private static class Key {
+        private final Rasterer.Tile upperLeft;
+        private final int rows;
+        private final int columns;
+        private final List<Long> route;
+        private final int hash;
+
+        Key(Rasterer.Tile[][] grid, List<Long> route) {
+            upperLeft = grid[0][0];
+            rows = grid.length;
+            columns = grid[0].length;
+            this.route = route;
+            hash = Objects.hash(upperLeft, rows, columns, route);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && rows == other.rows && columns == other.columns
+                    && upperLeft.equals(other.upperLeft) && route.equals(other.route);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /** Creates a cache of at most budget bytes of encoded rasters; a budget of 0 caches nothing. */
+    public RasterCache(long budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Negative budget " + budget);
+        }
+        this.budget = budget;
+        rasters = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the encoded raster of grid with route drawn over it, or null if
+     * there is none. Runs in O(R) time in the length of the route, to hash it.
+     */
+    public synchronized String get(Rasterer.Tile[][] grid, List<Long> route) {
+        String image = rasters.get(new Key(grid, route));
+        if (image == null) {
+            misses += 1;
+        } else {
+            hits += 1;
+        }
+        return image;
+    }
+
+    /**
+     * Caches the encoded raster of grid with route drawn over it, evicting the
+     * least recently used rasters until it fits. Route must not change later.
+     */
+    public synchronized void put(Rasterer.Tile[][] grid, List<Long> route, String image) {
+        long size = sizeOf(image);
+        if (size > budget) {
+            return;
+        }
+        String old = rasters.remove(new Key(grid, route));
+        if (old != null) {
+            bytes -= sizeOf(old);
+        }
+        while (bytes + size > budget) {
+            String eldest = rasters.remove(rasters.keySet().iterator().next());
+            bytes -= sizeOf(eldest);
+            evictions += 1;
+        }
+        rasters.put(new Key(grid, route), image);
+        bytes += size;
+    }
+
+    /** Returns the bytes image takes: Base64 is ASCII, which strings store a byte per char. */
+    private static long sizeOf(String image) {
+        return image.length();
+    }
+
+    /** Removes every raster, e.g. when the tiles or the graph change. The counters are kept. */
+    public synchronized void invalidate() {
+        rasters.clear();
+        bytes = 0;
+    }
+
+    public long budget() {
+        return budget;
+    }
+
+    /** Returns the number of cached rasters. */
+    public synchronized int size() {
+        return rasters.size();
+    }
+
+    /** Returns the number of bytes of encoded rasters in the cache. */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /** Returns the number of lookups that found a raster. */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /** Returns the number of lookups that found no raster. */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /** Returns the number of rasters evicted to stay within budget. */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RasterCache{size=" + rasters.size() + ", bytes=" + bytes + ", budget=" + budget
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + '}';
+    }
+}
@@ -0,0 +1,191 @@
+package huskymaps.server.logic;
+
+import huskymaps.StreetMapGraph;
+import huskymaps.params.RasterResult;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static huskymaps.utils.Constants.ROUTE_STROKE_COLOR;
+import static huskymaps.utils.Constants.ROUTE_STROKE_WIDTH_PX;
+import static huskymaps.utils.Constants.TILE_SIZE;
+
+/**
+ * Composites the tiles of a RasterResult into one image, draws a route over
+ * it, and encodes it for the browser. Also draws a route alone over a single
+ * transparent tile, for the browser to lay over the map's own tiles.
+ */
+public class RasterRenderer {
+
+    /** The image formats the renderer can encode to. */
+    public enum Format {
+        PNG("png", "image/png"),
+        /** Far smaller and faster to encode than PNG; the tiles are JPEGs to begin with. */
+        JPEG("jpg", "image/jpeg");
+
+        private final String formatName;
+        public final String mimeType;
+
+        Format(String formatName, String mimeType) {
+            this.formatName = formatName;
+            this.mimeType = mimeType;
+        }
+    }
+
+    private final Function<Rasterer.Tile, BufferedImage> tiles;
+    private final boolean parallel;
+    private final Format format;
+    private final float quality;
+
+    /**
+     * Creates a renderer that gets decoded tiles from tiles, which may return
+     * null for a missing tile, and encodes to format.
+     * @param parallel whether to fetch and draw the tiles of a grid in parallel
+     * @param pngDeflateLevel from 1, the fastest, to 9, the smallest; 0 stores
+     *                        PNGs uncompressed and -1 uses the encoder's default
+     * @param jpegQuality from 0 to 1
+     */
+    public RasterRenderer(Function<Rasterer.Tile, BufferedImage> tiles, boolean parallel,
+                          Format format, int pngDeflateLevel, float jpegQuality) {
+        this.tiles = tiles;
+        this.parallel = parallel;
+        this.format = format;
+        if (format == Format.PNG) {
+            // the PNG writer uses deflate level (int) (9 * (1 - quality))
+            quality = pngDeflateLevel < 0 ? -1 : Math.max(0, 1 - (pngDeflateLevel + 0.5f) / 9);
+        } else {
+            quality = jpegQuality;
+        }
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    /**
+     * Returns the tiles of result composited into one image, with route drawn
+     * over it using the locations in g. Each tile is drawn into its own region
+     * of the image, so in parallel, the tiles are fetched and drawn at once.
+     */
+    public BufferedImage render(RasterResult result, List<Long> route, StreetMapGraph g) {
+        int numVertTiles = result.grid.length;
+        int numHorizTiles = result.grid[0].length;
+
+        BufferedImage image = new BufferedImage(
+                numHorizTiles * TILE_SIZE,
+                numVertTiles * TILE_SIZE,
+                BufferedImage.TYPE_INT_RGB
+        );
+        IntStream cells = IntStream.range(0, numVertTiles * numHorizTiles);
+        if (parallel) {
+            cells = cells.parallel();
+        }
+        cells.forEach(i -> {
+            int r = i / numHorizTiles;
+            int c = i % numHorizTiles;
+            BufferedImage tile = tiles.apply(result.grid[r][c]);
+            if (tile != null) {
+                // one Graphics per tile, since a Graphics is not thread-safe
+                Graphics2D graphic = image.createGraphics();
+                graphic.drawImage(tile, c * TILE_SIZE, r * TILE_SIZE, null);
+                graphic.dispose();
+            }
+        });
+
+        if (!route.isEmpty()) {
+            Graphics2D g2d = image.createGraphics();
+            drawRoute(g2d, route, g, result.ullat, result.ullon, result.lrlat, result.lrlon,
+                    image.getWidth(), image.getHeight());
+            g2d.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Returns a transparent tile with the part of route over tile drawn on it,
+     * using the locations in g, or null if route does not pass over tile.
+     * Drawn over the tile, it looks the same as the route drawn by render.
+     * Runs in O(R) time in the length of the route.
+     */
+    public BufferedImage renderOverlay(Rasterer.Tile tile, List<Long> route, StreetMapGraph g) {
+        double ullat = tile.lat();
+        double ullon = tile.lon();
+        Rasterer.Tile lowerRight = tile.offset();
+        double lrlat = lowerRight.lat();
+        double lrlon = lowerRight.lon();
+        // a line drawn just outside the tile still reaches into it by up to half its width
+        double padLon = (lrlon - ullon) / TILE_SIZE * ROUTE_STROKE_WIDTH_PX;
+        double padLat = (ullat - lrlat) / TILE_SIZE * ROUTE_STROKE_WIDTH_PX;
+        boolean crosses = false;
+        for (int i = 1; i < route.size() && !crosses; i += 1) {
+            long v = route.get(i - 1);
+            long w = route.get(i);
+            crosses = Math.max(g.lon(v), g.lon(w)) >= ullon - padLon
+                    && Math.min(g.lon(v), g.lon(w)) <= lrlon + padLon
+                    && Math.max(g.lat(v), g.lat(w)) >= lrlat - padLat
+                    && Math.min(g.lat(v), g.lat(w)) <= ullat + padLat;
+        }
+        if (!crosses) {
+            return null;
+        }
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        drawRoute(g2d, route, g, ullat, ullon, lrlat, lrlon, TILE_SIZE, TILE_SIZE);
+        g2d.dispose();
+        return image;
+    }
+
+    /** Draws route with g2d onto a width by height image of the given bounds. */
+    private static void drawRoute(Graphics2D g2d, List<Long> route, StreetMapGraph g,
+                                  double ullat, double ullon, double lrlat, double lrlon,
+                                  int width, int height) {
+        final double wdpp = (lrlon - ullon) / width;
+        final double hdpp = (ullat - lrlat) / height;
+        g2d.setColor(ROUTE_STROKE_COLOR);
+        g2d.setStroke(new BasicStroke(ROUTE_STROKE_WIDTH_PX,
+                BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        route.stream().reduce((v, w) -> {
+            g2d.drawLine(
+                    (int) ((g.lon(v) - ullon) * (1 / wdpp)),
+                    (int) ((ullat - g.lat(v)) * (1 / hdpp)),
+                    (int) ((g.lon(w) - ullon) * (1 / wdpp)),
+                    (int) ((ullat - g.lat(w)) * (1 / hdpp))
+            );
+            return w;
+        });
+    }
+
+    /**
+     * Returns image encoded in this renderer's format.
+     * @throws IOException if the encoder fails
+     */
+    public byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format.formatName).next();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(os)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (quality >= 0) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return os.toByteArray();
+    }
+}
@@ -2,6 +2,7 @@ package huskymaps.server.logic;
 
 import huskymaps.params.RasterRequest;
 import huskymaps.params.RasterResult;
+import huskymaps.utils.TileGrid;
 
 import java.util.Objects;
 
@@ -137,7 +138,7 @@ public class Rasterer {
 
         @Override
         public String toString() {
-            return "d" + depth + "_x" + x + "_y" + y + ".jpg";
+            return TileGrid.filename(depth, x, y);
         }
     }
 }
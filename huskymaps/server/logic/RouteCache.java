@@ -0,0 +1,134 @@
+package huskymaps.server.logic;
+
+import huskymaps.StreetMapGraph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of routes between snapped vertices, which evicts the least
+ * recently used route once it holds capacity routes. Routes are stored as long[]
+ * node ids rather than List<Long>, which is a third of the size.
+ * The cache belongs to one graph: a lookup with any other graph, e.g. after the
+ * server reloads it, empties the cache first. All methods are thread-safe.
+ */
+public class RouteCache {
+    private final int capacity;
+    private final LinkedHashMap<Key, long[]> routes;
+    private StreetMapGraph graph;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private static class Key {
+        private final long src;
+        private final long dest;
+
+        Key(long src, long dest) {
+            this.src = src;
+            this.dest = dest;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return src == other.src && dest == other.dest;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(src) * 31 + Long.hashCode(dest);
+        }
+    }
+
+    /** Creates a cache of at most capacity routes; a capacity of 0 caches nothing. */
+    public RouteCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity " + capacity);
+        }
+        this.capacity = capacity;
+        // access order, so the eldest entry is the least recently used
+        routes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, long[]> eldest) {
+                if (size() > RouteCache.this.capacity) {
+                    evictions += 1;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached route from src to dest in g, or null if there is none.
+     * Runs in O(1) time, plus O(N) to empty the cache if g is a new graph.
+     */
+    public synchronized long[] get(StreetMapGraph g, long src, long dest) {
+        switchTo(g);
+        long[] route = routes.get(new Key(src, dest));
+        if (route == null) {
+            misses += 1;
+        } else {
+            hits += 1;
+        }
+        return route;
+    }
+
+    /** Caches the route from src to dest in g, evicting the least recently used route if full. */
+    public synchronized void put(StreetMapGraph g, long src, long dest, long[] route) {
+        switchTo(g);
+        if (capacity > 0) {
+            routes.put(new Key(src, dest), route);
+        }
+    }
+
+    private void switchTo(StreetMapGraph g) {
+        if (g != graph) {
+            routes.clear();
+            graph = g;
+        }
+    }
+
+    /** Removes every route, e.g. when the graph is reloaded. The counters are kept. */
+    public synchronized void invalidate() {
+        routes.clear();
+        graph = null;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Returns the number of cached routes. */
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    /** Returns the number of lookups that found a route. */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /** Returns the number of lookups that found no route. */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /** Returns the number of routes evicted to make room for newer ones. */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RouteCache{size=" + routes.size() + ", capacity=" + capacity + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + '}';
+    }
+}
@@ -1,18 +1,31 @@
 package huskymaps.server.logic;
 
 import astar.AStarSolver;
+import astar.BidirectionalAStarGraph;
+import astar.BidirectionalAStarSolver;
+import astar.ShortestPathsSolver;
+import astar.ShortestPathsSolver.SolverOutcome;
+import huskymaps.ContractionHierarchy;
 import huskymaps.StreetMapGraph;
 import huskymaps.params.RouteRequest;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import static huskymaps.utils.Constants.ROUTE_CACHE_CAPACITY;
+import static huskymaps.utils.Constants.ROUTE_FRINGE;
+import static huskymaps.utils.Constants.ROUTE_WITH_CONTRACTION_HIERARCHY;
+
 /** Application logic for the RoutingAPIHandler. */
 public class Router {
+    private static final RouteCache ROUTE_CACHE = new RouteCache(ROUTE_CACHE_CAPACITY);
 
     /**
      * Overloaded method for shortestPath that has flexibility to specify a solver
      * and returns a List of longs representing the shortest path from the node
      * closest to a start location and the node closest to the destination location.
+     * Routes between the same snapped nodes are answered from the route cache.
+     * Searches that timed out are not cached, since the next one may finish.
      * @param g The graph to use.
      * @param request The requested route.
      * @return A list of node id's in the order visited on the shortest path.
@@ -20,7 +33,42 @@ public class Router {
     public static List<Long> shortestPath(StreetMapGraph g, RouteRequest request) {
         long src = g.closest(request.startLat, request.startLon);
         long dest = g.closest(request.endLat, request.endLon);
-        return new AStarSolver<>(g, src, dest, 20).solution();
+        long[] cached = ROUTE_CACHE.get(g, src, dest);
+        if (cached != null) {
+            List<Long> route = new ArrayList<>(cached.length);
+            for (long id : cached) {
+                route.add(id);
+            }
+            return route;
+        }
+        ShortestPathsSolver<Long> solver = solve(g, src, dest);
+        List<Long> route = solver.solution();
+        if (solver.outcome() == SolverOutcome.TIMEOUT) {
+            return route;
+        }
+        long[] ids = new long[route.size()];
+        for (int i = 0; i < ids.length; i += 1) {
+            ids[i] = route.get(i);
+        }
+        ROUTE_CACHE.put(g, src, dest, ids);
+        return route;
+    }
+
+    /** Returns the cache of routes between snapped vertices, e.g. for its counters. */
+    public static RouteCache routeCache() {
+        return ROUTE_CACHE;
+    }
+
+    private static ShortestPathsSolver<Long> solve(StreetMapGraph g, long src, long dest) {
+        ContractionHierarchy hierarchy = g.contractionHierarchy();
+        if (ROUTE_WITH_CONTRACTION_HIERARCHY && hierarchy != null) {
+            return hierarchy.solve(src, dest);
+        }
+        BidirectionalAStarGraph<Long> graph = g.routingGraph();
+        if (ROUTE_FRINGE == null) {
+            return new BidirectionalAStarSolver<>(graph, src, dest, 20);
+        }
+        return new AStarSolver<>(graph, src, dest, 20, ROUTE_FRINGE.<Long>create());
     }
 
 
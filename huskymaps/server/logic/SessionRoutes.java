@@ -0,0 +1,38 @@
+package huskymaps.server.logic;
+
+import spark.Request;
+import spark.Session;
+
+import java.util.List;
+
+/**
+ * Keeps each user's current route in their session, so that concurrent users
+ * each see their own route drawn over the map. The browser's session cookie
+ * ties the route, raster and clear route requests of one user together.
+ */
+public class SessionRoutes {
+    private static final String ROUTE_ATTRIBUTE = "route";
+
+    /** Returns the route of the request's session, or an empty list if there is none. */
+    public static List<Long> get(Request request) {
+        Session session = request.session(false);
+        if (session == null) {
+            return List.of();
+        }
+        List<Long> route = session.attribute(ROUTE_ATTRIBUTE);
+        return route == null ? List.of() : route;
+    }
+
+    /** Makes route the route of the request's session, starting a session if needed. */
+    public static void set(Request request, List<Long> route) {
+        request.session(true).attribute(ROUTE_ATTRIBUTE, List.copyOf(route));
+    }
+
+    /** Removes the route of the request's session, if any. */
+    public static void clear(Request request) {
+        Session session = request.session(false);
+        if (session != null) {
+            session.removeAttribute(ROUTE_ATTRIBUTE);
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package huskymaps.server.logic;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import static huskymaps.utils.Constants.NUM_X_TILES_AT_DEPTH;
+import static huskymaps.utils.Constants.NUM_Y_TILES_AT_DEPTH;
+
+/**
+ * Bounded cache of decoded map tiles, so that panning the map does not decode
+ * the same JPEGs over and over. The cache holds at most budget bytes of pixels
+ * and evicts by the given policy to stay under it. Tiles are decoded by the
+ * loader on a miss, outside the cache's lock, so a slow decode never holds up
+ * other requests; two requests for the same missing tile may both decode it.
+ * All methods are thread-safe.
+ */
+public class TileCache {
+
+    /** Which tile to evict when the cache is over budget. */
+    public enum Eviction {
+        /** The least recently used tile. */
+        LRU,
+        /** The least frequently used tile, the least recently used among ties. */
+        LFU
+    }
+
+    /** How the decoded tiles are held. */
+    public enum Storage {
+        /** As BufferedImages on the heap. */
+        STRONG,
+        /** As BufferedImages the garbage collector may clear under memory pressure. */
+        SOFT,
+        /**
+         * As RGB pixels in direct buffers outside the heap, copied into a new
+         * BufferedImage on every hit; that is still far cheaper than a decode.
+         */
+        OFF_HEAP
+    }
+
+    private final long budget;
+    private final Eviction eviction;
+    private final Storage storage;
+    private final Function<Rasterer.Tile, BufferedImage> loader;
+    // in access order, so the first entry is the least recently used
+    private final LinkedHashMap<Rasterer.Tile, Entry> entries;
+    // for LFU, the tiles used each number of times, each in access order
+    private final TreeMap<Integer, LinkedHashSet<Rasterer.Tile>> byFrequency;
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private static class Entry {
+        private final Object value;
+        private final long bytes;
+        private final int width;
+        private final int height;
+        private int frequency;
+
+        Entry(Object value, long bytes, int width, int height) {
+            this.value = value;
+            this.bytes = bytes;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Creates a cache of at most budget bytes of tiles decoded by loader, which
+     * may return null for a tile it cannot decode; such tiles are not cached.
+     * A budget of 0 caches nothing.
+     */
+    public TileCache(long budget, Eviction eviction, Storage storage,
+                     Function<Rasterer.Tile, BufferedImage> loader) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("Negative budget " + budget);
+        }
+        this.budget = budget;
+        this.eviction = eviction;
+        this.storage = storage;
+        this.loader = loader;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+        byFrequency = new TreeMap<>();
+    }
+
+    /**
+     * Returns the decoded tile, decoding and caching it on a miss.
+     * Runs in O(1) time for LRU and O(log F) for LFU, where F is the number of
+     * distinct use counts, plus the cost of a decode on a miss.
+     */
+    public BufferedImage get(Rasterer.Tile tile) {
+        synchronized (this) {
+            Entry entry = entries.get(tile);
+            if (entry != null) {
+                BufferedImage image = unwrap(entry);
+                if (image != null) {
+                    hits += 1;
+                    touch(tile, entry);
+                    return image;
+                }
+                // a soft reference the collector cleared
+                remove(tile);
+            }
+            misses += 1;
+        }
+        BufferedImage image = loader.apply(tile);
+        if (image != null) {
+            put(tile, image, true);
+        }
+        return image;
+    }
+
+    /**
+     * Decodes every tile at depths 0 to maxDepth that is not yet cached, e.g. at
+     * startup, so the first requests for the zoomed-out map are all hits. Stops
+     * early once the cache is full. Does not count as hits or misses.
+     */
+    public void warm(int maxDepth) {
+        for (int d = 0; d <= maxDepth && d < NUM_X_TILES_AT_DEPTH.length; d += 1) {
+            for (int y = 0; y < NUM_Y_TILES_AT_DEPTH[d]; y += 1) {
+                for (int x = 0; x < NUM_X_TILES_AT_DEPTH[d]; x += 1) {
+                    Rasterer.Tile tile = new Rasterer.Tile(d, x, y);
+                    synchronized (this) {
+                        if (entries.containsKey(tile)) {
+                            continue;
+                        }
+                    }
+                    BufferedImage image = loader.apply(tile);
+                    if (image != null && !put(tile, image, false)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Caches image as the given tile, evicting tiles until the cache is within
+     * budget if evict is true. Returns false, caching nothing, if the image does
+     * not fit: either at all, or without evicting when evict is false.
+     */
+    private synchronized boolean put(Rasterer.Tile tile, BufferedImage image, boolean evict) {
+        Entry entry = wrap(image);
+        if (entry.bytes > (evict ? budget : budget - bytes)) {
+            return false;
+        }
+        if (entries.containsKey(tile)) {
+            remove(tile);
+        }
+        // evict first, so that under LFU the new tile is not the one to go
+        while (bytes + entry.bytes > budget) {
+            remove(eldest());
+            evictions += 1;
+        }
+        entries.put(tile, entry);
+        bytes += entry.bytes;
+        touch(tile, entry);
+        return true;
+    }
+
+    /** Counts a use of the tile for LFU; the access order of entries already counts it for LRU. */
+    private void touch(Rasterer.Tile tile, Entry entry) {
+        if (eviction != Eviction.LFU) {
+            return;
+        }
+        if (entry.frequency > 0) {
+            LinkedHashSet<Rasterer.Tile> tiles = byFrequency.get(entry.frequency);
+            tiles.remove(tile);
+            if (tiles.isEmpty()) {
+                byFrequency.remove(entry.frequency);
+            }
+        }
+        entry.frequency += 1;
+        byFrequency.computeIfAbsent(entry.frequency, f -> new LinkedHashSet<>()).add(tile);
+    }
+
+    /** Returns the tile the eviction policy picks next. Assumes the cache is not empty. */
+    private Rasterer.Tile eldest() {
+        if (eviction == Eviction.LFU) {
+            return byFrequency.firstEntry().getValue().iterator().next();
+        }
+        return entries.keySet().iterator().next();
+    }
+
+    private void remove(Rasterer.Tile tile) {
+        Entry entry = entries.remove(tile);
+        bytes -= entry.bytes;
+        if (entry.frequency > 0) {
+            LinkedHashSet<Rasterer.Tile> tiles = byFrequency.get(entry.frequency);
+            tiles.remove(tile);
+            if (tiles.isEmpty()) {
+                byFrequency.remove(entry.frequency);
+            }
+        }
+    }
+
+    /** Returns an entry that holds image in the form the storage mode asks for. */
+    private Entry wrap(BufferedImage image) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        switch (storage) {
+            case SOFT:
+                return new Entry(new SoftReference<>(image), sizeOf(image), w, h);
+            case OFF_HEAP:
+                ByteBuffer pixels = ByteBuffer.allocateDirect(w * h * Integer.BYTES)
+                        .order(ByteOrder.nativeOrder());
+                pixels.asIntBuffer().put(image.getRGB(0, 0, w, h, null, 0, w));
+                return new Entry(pixels, pixels.capacity(), w, h);
+            default:
+                return new Entry(image, sizeOf(image), w, h);
+        }
+    }
+
+    /** Returns the image of entry, or null if its soft reference was cleared. */
+    private static BufferedImage unwrap(Entry entry) {
+        if (entry.value instanceof BufferedImage) {
+            return (BufferedImage) entry.value;
+        }
+        if (entry.value instanceof SoftReference) {
+            @SuppressWarnings("unchecked")
+            SoftReference<BufferedImage> reference = (SoftReference<BufferedImage>) entry.value;
+            return reference.get();
+        }
+        BufferedImage image = new BufferedImage(entry.width, entry.height, BufferedImage.TYPE_INT_RGB);
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        // a view per call, since the buffer's position is shared state
+        ((ByteBuffer) entry.value).duplicate().order(ByteOrder.nativeOrder()).asIntBuffer().get(data);
+        return image;
+    }
+
+    /** Returns the number of bytes of pixel data in image. */
+    static long sizeOf(BufferedImage image) {
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks()
+                * DataBuffer.getDataTypeSize(buffer.getDataType()) / Byte.SIZE;
+    }
+
+    /** Removes every tile. The counters are kept. */
+    public synchronized void invalidate() {
+        entries.clear();
+        byFrequency.clear();
+        bytes = 0;
+    }
+
+    /** Returns the number of bytes of pixel data the cache may hold. */
+    public long budget() {
+        return budget;
+    }
+
+    /** Returns the number of cached tiles. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Returns the number of bytes of pixel data in the cache. */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /** Returns the number of lookups that found a decoded tile. */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /** Returns the number of lookups that had to decode the tile. */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /** Returns the number of tiles evicted to stay within budget. */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /** Returns the fraction of lookups that were hits, or 0 if there were none. */
+    public synchronized double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TileCache{size=" + entries.size() + ", bytes=" + bytes + ", budget=" + budget
+                + ", eviction=" + eviction + ", storage=" + storage + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + '}';
+    }
+}
@@ -0,0 +1,126 @@
+package huskymaps.server.logic;
+
+import huskymaps.utils.TileGrid;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Serves the encoded bytes of map tiles as they are stored, for the browser to
+ * fetch and cache one by one, along with a strong entity tag of each tile's
+ * content. Tags are computed once per tile and kept, so a request that the
+ * browser already has the tile for is answered without reading it again.
+ * Bytes are passed around as buffers, so tiles in a memory-mapped TileArchive
+ * are never copied onto the heap. All methods are thread-safe.
+ */
+public class TileStore {
+    private final Function<Rasterer.Tile, ByteBuffer> loader;
+    private final ConcurrentHashMap<Rasterer.Tile, String> etags;
+
+    /** Creates a store of tiles read by loader, which returns null for a tile it cannot read. */
+    public TileStore(Function<Rasterer.Tile, ByteBuffer> loader) {
+        this.loader = loader;
+        etags = new ConcurrentHashMap<>();
+    }
+
+    /** Returns whether tile is one of the tiles of the map. */
+    public static boolean exists(Rasterer.Tile tile) {
+        return TileGrid.exists(tile.depth, tile.x, tile.y);
+    }
+
+    /**
+     * Returns the bytes of tile from the buffer's position to its limit, or
+     * null if it is not on the map or cannot be read.
+     */
+    public ByteBuffer read(Rasterer.Tile tile) {
+        if (!exists(tile)) {
+            return null;
+        }
+        ByteBuffer bytes = loader.apply(tile);
+        if (bytes != null) {
+            etags.putIfAbsent(tile, etag(bytes));
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the entity tag of tile, reading it the first time, or null if it
+     * is not on the map or cannot be read.
+     */
+    public String etag(Rasterer.Tile tile) {
+        String etag = etags.get(tile);
+        if (etag == null && read(tile) != null) {
+            etag = etags.get(tile);
+        }
+        return etag;
+    }
+
+    /** Forgets every tag, e.g. when the tiles change. */
+    public void invalidate() {
+        etags.clear();
+    }
+
+    /**
+     * Returns the strong entity tag of the bytes from the buffer's position to
+     * its limit: a quoted hash of them. Does not move the buffer's position.
+     */
+    public static String etag(ByteBuffer bytes) {
+        MessageDigest digest = sha256();
+        digest.update(bytes.duplicate());
+        return quote(digest.digest());
+    }
+
+    /**
+     * Returns the strong entity tag of the overlay of route over tile, which
+     * is drawn the same way every time. Runs in O(R) time in the length of
+     * the route.
+     */
+    public static String etag(Rasterer.Tile tile, List<Long> route) {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES + route.size() * Long.BYTES);
+        buffer.putInt(tile.depth).putInt(tile.x).putInt(tile.y);
+        for (long v : route) {
+            buffer.putLong(v);
+        }
+        return quote(sha256().digest(buffer.array()));
+    }
+
+    /**
+     * Returns whether the If-None-Match header ifNoneMatch, which may be null,
+     * lists etag or is *, so the client's copy is current.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns a new SHA-256 digest, which every JVM provides. */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Returns the first 16 bytes of hash in hex, in quotes. */
+    private static String quote(byte[] hash) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < 16; i += 1) {
+            sb.append(Character.forDigit((hash[i] >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(hash[i] & 0xf, 16));
+        }
+        return sb.append('"').toString();
+    }
+}
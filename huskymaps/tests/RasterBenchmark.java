@@ -0,0 +1,104 @@
+package huskymaps.tests;
+
+import huskymaps.params.RasterRequest;
+import huskymaps.params.RasterResult;
+import huskymaps.server.logic.RasterRenderer;
+import huskymaps.server.logic.Rasterer;
+import huskymaps.server.logic.TileCache;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static huskymaps.utils.Constants.IMG_ROOT;
+import static huskymaps.utils.Constants.NUM_X_TILES_AT_DEPTH;
+import static huskymaps.utils.Constants.ROOT_LAT;
+import static huskymaps.utils.Constants.ROOT_LON;
+import static huskymaps.utils.Constants.ROOT_LRLAT;
+import static huskymaps.utils.Constants.ROOT_LRLON;
+import static huskymaps.utils.Constants.ROOT_ULLAT;
+import static huskymaps.utils.Constants.ROOT_ULLON;
+import static huskymaps.utils.Constants.TILE_SIZE;
+
+/**
+ * Times compositing and encoding a 1920 by 1080 pixel view of the center of the
+ * map at every depth, serially and in parallel, and with each encoder setting.
+ * Reads the tiles from IMG_ROOT on the classpath, as the server does on Heroku.
+ * Compositing is timed with every tile already decoded and cached, as it is
+ * for a warm server, and separately with a cold cache, which includes decoding.
+ */
+public class RasterBenchmark {
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final int REPEATS = 10;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println(Runtime.getRuntime().availableProcessors() + " cores");
+        RasterRenderer[] encoders = {
+            new RasterRenderer(t -> null, false, RasterRenderer.Format.PNG, -1, 0),
+            new RasterRenderer(t -> null, false, RasterRenderer.Format.PNG, 2, 0),
+            new RasterRenderer(t -> null, false, RasterRenderer.Format.PNG, 1, 0),
+            new RasterRenderer(t -> null, false, RasterRenderer.Format.JPEG, -1, 0.85f),
+        };
+        String[] encoderNames = {"png default", "png level 2", "png level 1", "jpeg 0.85"};
+
+        for (int depth = 0; depth < NUM_X_TILES_AT_DEPTH.length; depth += 1) {
+            RasterResult raster = Rasterer.rasterizeMap(view(depth));
+            int numTiles = raster.grid.length * raster.grid[0].length;
+            System.out.printf("depth %d: %d tiles%n", depth, numTiles);
+
+            for (boolean parallel : new boolean[]{false, true}) {
+                TileCache cold = new TileCache(Long.MAX_VALUE, TileCache.Eviction.LRU,
+                        TileCache.Storage.STRONG, RasterBenchmark::decode);
+                RasterRenderer renderer = new RasterRenderer(cold::get, parallel,
+                        RasterRenderer.Format.PNG, -1, 0);
+                long start = System.nanoTime();
+                renderer.render(raster, List.of(), null);
+                double decodeMillis = (System.nanoTime() - start) / 1e6;
+                start = System.nanoTime();
+                for (int i = 0; i < REPEATS; i += 1) {
+                    renderer.render(raster, List.of(), null);
+                }
+                double warmMillis = (System.nanoTime() - start) / 1e6 / REPEATS;
+                System.out.printf("  %-8s composite %7.2f ms cold, %7.2f ms warm%n",
+                        parallel ? "parallel" : "serial", decodeMillis, warmMillis);
+            }
+
+            RasterRenderer renderer = new RasterRenderer(RasterBenchmark::decode, true,
+                    RasterRenderer.Format.PNG, -1, 0);
+            BufferedImage image = renderer.render(raster, List.of(), null);
+            for (int e = 0; e < encoders.length; e += 1) {
+                int bytes = encoders[e].encode(image).length;
+                long start = System.nanoTime();
+                for (int i = 0; i < REPEATS; i += 1) {
+                    encoders[e].encode(image);
+                }
+                double millis = (System.nanoTime() - start) / 1e6 / REPEATS;
+                System.out.printf("  %-12s encode %7.2f ms, %8d bytes%n", encoderNames[e], millis, bytes);
+            }
+        }
+    }
+
+    /** Returns the request of a WIDTH by HEIGHT view of the center of the map at depth. */
+    private static RasterRequest view(int depth) {
+        double londpp = (ROOT_LRLON - ROOT_ULLON) / TILE_SIZE / Math.pow(2, depth + 1);
+        double latdpp = (ROOT_ULLAT - ROOT_LRLAT) / TILE_SIZE / Math.pow(2, depth);
+        return RasterRequest.from(Map.of(
+                "ullat", ROOT_LAT + HEIGHT / 2.0 * latdpp,
+                "ullon", ROOT_LON - WIDTH / 2.0 * londpp,
+                "lrlat", ROOT_LAT - HEIGHT / 2.0 * latdpp,
+                "lrlon", ROOT_LON + WIDTH / 2.0 * londpp,
+                "depth", depth
+        ));
+    }
+
+    private static BufferedImage decode(Rasterer.Tile tile) {
+        try {
+            return ImageIO.read(Thread.currentThread().getContextClassLoader().getResource(IMG_ROOT + tile));
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package huskymaps.tests;
+
+import huskymaps.StreetMapGraph;
+import huskymaps.params.RouteRequest;
+import huskymaps.server.handler.RequestExecutor;
+import huskymaps.server.logic.Router;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static huskymaps.utils.Constants.GRAPH_SNAPSHOT_PATH;
+import static huskymaps.utils.Constants.OSM_DB_PATH;
+import static huskymaps.utils.Constants.ROOT_LRLAT;
+import static huskymaps.utils.Constants.ROOT_LRLON;
+import static huskymaps.utils.Constants.ROOT_ULLAT;
+import static huskymaps.utils.Constants.ROOT_ULLON;
+import static huskymaps.utils.Constants.ROUTE_CACHE_CAPACITY;
+
+/**
+ * Sends many route requests at once through a RequestExecutor with 1, 2, 4, ...
+ * workers, up to the number of cores, and prints the throughput of each. The
+ * routes between random points rarely repeat, so the route cache barely helps.
+ * Run with the graph file as the first argument, or without to load the server's.
+ */
+public class RoutingLoadTest {
+    private static final int NUM_REQUESTS = 2000;
+    private static final int NUM_CLIENTS = 64;
+
+    public static void main(String[] args) throws Exception {
+        StreetMapGraph g = args.length > 0
+                ? new StreetMapGraph(args[0])
+                : StreetMapGraph.load(OSM_DB_PATH, GRAPH_SNAPSHOT_PATH);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println(cores + " cores, route cache of " + ROUTE_CACHE_CAPACITY);
+        // warm up the JIT before timing anything
+        run(g, cores, NUM_REQUESTS / 4, 0);
+
+        List<Integer> workers = new ArrayList<>();
+        for (int threads = 1; threads < cores; threads *= 2) {
+            workers.add(threads);
+        }
+        workers.add(cores);
+        double single = 0;
+        for (int threads : workers) {
+            double throughput = run(g, threads, NUM_REQUESTS, threads);
+            if (threads == 1) {
+                single = throughput;
+            }
+            System.out.printf("%d workers: %.0f routes/s, %.2fx one worker%n",
+                    threads, throughput, throughput / single);
+        }
+    }
+
+    /** Returns how many of n random route requests per second threads workers answer. */
+    private static double run(StreetMapGraph g, int threads, int n, long seed) throws Exception {
+        RequestExecutor executor = new RequestExecutor(threads, n, Long.MAX_VALUE);
+        // the clients stand in for the web server's threads, each waiting on its request
+        ExecutorService clients = Executors.newFixedThreadPool(NUM_CLIENTS);
+        Random random = new Random(seed);
+        List<Callable<List<Long>>> requests = new ArrayList<>();
+        for (int i = 0; i < n; i += 1) {
+            RouteRequest request = RouteRequest.from(Map.of(
+                    "start_lat", randomBetween(random, ROOT_LRLAT, ROOT_ULLAT),
+                    "start_lon", randomBetween(random, ROOT_ULLON, ROOT_LRLON),
+                    "end_lat", randomBetween(random, ROOT_LRLAT, ROOT_ULLAT),
+                    "end_lon", randomBetween(random, ROOT_ULLON, ROOT_LRLON)
+            ));
+            requests.add(() -> executor.call(() -> Router.shortestPath(g, request)));
+        }
+        long start = System.nanoTime();
+        for (Future<List<Long>> route : clients.invokeAll(requests)) {
+            route.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        clients.shutdown();
+        executor.shutdown();
+        return n / seconds;
+    }
+
+    private static double randomBetween(Random random, double lo, double hi) {
+        return lo + random.nextDouble() * (hi - lo);
+    }
+}
@@ -0,0 +1,109 @@
+package huskymaps.tests;
+
+import astar.AStarSolver;
+import astar.BidirectionalAStarSolver;
+import astar.ShortestPathsSolver.SolverOutcome;
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.StreetMapGraph;
+import huskymaps.params.RouteRequest;
+import org.junit.Test;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Compares bidirectional A* against A* on the tiny graph and the router test routes. */
+public class TestBidirectionalAStarSolver {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    private static final String REQUEST_FORMAT = BASE_DIR_PATH + "tests/router/request%d.json";
+    private static final String LARGE_OSM_DB_PATH = BASE_DIR_PATH + "seattle.osm.gz";
+    private static final int NUM_TESTS = 10;
+    private static final double DELTA = 1e-9;
+
+    private final Gson gson = new GsonBuilder()
+            .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
+            .create();
+
+    /** Checks that SOLUTION is a path from start to end in g whose edges add up to its weight. */
+    private static void assertPath(CompactStreetMapGraph g, long start, long end,
+                                   BidirectionalAStarSolver<Long> solver) {
+        List<Long> path = solver.solution();
+        assertEquals(start, (long) path.get(0));
+        assertEquals(end, (long) path.get(path.size() - 1));
+        double weight = 0;
+        for (int i = 0; i + 1 < path.size(); i += 1) {
+            int u = g.indexOf((long) path.get(i));
+            int v = g.indexOf((long) path.get(i + 1));
+            double best = Double.POSITIVE_INFINITY;
+            for (int e = g.edgeStart(u); e < g.edgeEnd(u); e += 1) {
+                if (g.edgeTarget(e) == v) {
+                    best = Math.min(best, g.edgeWeight(e));
+                }
+            }
+            assertTrue("No edge from " + path.get(i) + " to " + path.get(i + 1), best < Double.POSITIVE_INFINITY);
+            weight += best;
+        }
+        assertEquals(solver.solutionWeight(), weight, DELTA);
+    }
+
+    @Test
+    public void testTinyAllPairs() throws Exception {
+        CompactStreetMapGraph g = new StreetMapGraph(OSM_DB_PATH_TINY).compact();
+        for (int s = 0; s < g.numVertices(); s += 1) {
+            for (int t = 0; t < g.numVertices(); t += 1) {
+                AStarSolver<Long> expected = new AStarSolver<>(g, g.id(s), g.id(t), 10);
+                BidirectionalAStarSolver<Long> actual = new BidirectionalAStarSolver<>(g, g.id(s), g.id(t), 10);
+                assertEquals(expected.outcome(), actual.outcome());
+                if (expected.outcome() == SolverOutcome.SOLVED) {
+                    assertEquals(expected.solutionWeight(), actual.solutionWeight(), DELTA);
+                    assertPath(g, g.id(s), g.id(t), actual);
+                } else {
+                    assertEquals(Double.POSITIVE_INFINITY, actual.solutionWeight(), 0.0);
+                    assertTrue(actual.solution().isEmpty());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameStartAndEnd() throws Exception {
+        CompactStreetMapGraph g = new StreetMapGraph(OSM_DB_PATH_TINY).compact();
+        BidirectionalAStarSolver<Long> solver = new BidirectionalAStarSolver<>(g, g.id(0), g.id(0), 10);
+        assertEquals(SolverOutcome.SOLVED, solver.outcome());
+        assertEquals(List.of(g.id(0)), solver.solution());
+        assertEquals(0.0, solver.solutionWeight(), 0.0);
+    }
+
+    @Test
+    public void testRouterRequests() throws IOException {
+        StreetMapGraph graph = new StreetMapGraph(LARGE_OSM_DB_PATH);
+        CompactStreetMapGraph g = graph.compact();
+        int unidirectional = 0;
+        int bidirectional = 0;
+        for (int i = 0; i < NUM_TESTS; i += 1) {
+            RouteRequest request;
+            try (Reader reader = new FileReader(String.format(REQUEST_FORMAT, i))) {
+                request = gson.fromJson(reader, RouteRequest.class);
+            }
+            long src = graph.closest(request.startLat, request.startLon);
+            long dest = graph.closest(request.endLat, request.endLon);
+            AStarSolver<Long> expected = new AStarSolver<>(g, src, dest, 20);
+            BidirectionalAStarSolver<Long> actual = new BidirectionalAStarSolver<>(g, src, dest, 20);
+            assertEquals(expected.outcome(), actual.outcome());
+            assertEquals(expected.solutionWeight(), actual.solutionWeight(), DELTA);
+            assertPath(g, src, dest, actual);
+            unidirectional += expected.numStatesExplored();
+            bidirectional += actual.numStatesExplored();
+        }
+        assertTrue("Bidirectional search explored " + bidirectional + " states, A* explored " + unidirectional,
+                bidirectional < unidirectional);
+    }
+}
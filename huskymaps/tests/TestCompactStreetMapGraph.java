@@ -0,0 +1,86 @@
+package huskymaps.tests;
+
+import astar.AStarSolver;
+import astar.TreeMapMinPQ;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.StreetMapGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static huskymaps.utils.Spatial.greatCircleDistance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Checks the CSR graph against the edges and coordinates it was built from. */
+public class TestCompactStreetMapGraph {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    private static StreetMapGraph tinyGraph;
+    private static boolean initialized = false;
+
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        tinyGraph = new StreetMapGraph(OSM_DB_PATH_TINY);
+        initialized = true;
+    }
+
+    @Test
+    public void testVertices() {
+        CompactStreetMapGraph compact = tinyGraph.compact();
+        Set<Long> vertices = tinyGraph.vertices();
+        assertEquals(vertices.size(), compact.numVertices());
+        for (long id : vertices) {
+            int v = compact.indexOf(id);
+            assertTrue(v >= 0);
+            assertEquals(id, compact.id(v));
+            assertEquals(tinyGraph.lat(id), compact.lat(v), 0.0);
+            assertEquals(tinyGraph.lon(id), compact.lon(v), 0.0);
+        }
+        assertEquals(-1, compact.indexOf(Long.MAX_VALUE));
+    }
+
+    /** Ways are added in both directions, weighted by the distance between the endpoints. */
+    @Test
+    public void testEdges() {
+        CompactStreetMapGraph compact = tinyGraph.compact();
+        int numEdges = 0;
+        for (int v = 0; v < compact.numVertices(); v += 1) {
+            for (int e = compact.edgeStart(v); e < compact.edgeEnd(v); e += 1) {
+                int w = compact.edgeTarget(e);
+                double distance = greatCircleDistance(compact.lon(v), compact.lon(w),
+                        compact.lat(v), compact.lat(w));
+                assertEquals(distance, compact.edgeWeight(e), 1e-6 * distance);
+                boolean reversed = false;
+                for (int f = compact.edgeStart(w); f < compact.edgeEnd(w); f += 1) {
+                    reversed |= compact.edgeTarget(f) == v;
+                }
+                assertTrue(reversed);
+            }
+            assertEquals(compact.outDegree(v), tinyGraph.neighbors(compact.id(v)).size());
+            numEdges += compact.outDegree(v);
+        }
+        assertEquals(compact.numEdges(), numEdges);
+    }
+
+    /** The allocation-free search must find routes as short as the generic one. */
+    @Test
+    public void testIndexedRoutesMatchGeneric() {
+        CompactStreetMapGraph compact = tinyGraph.compact();
+        List<Long> vertices = new ArrayList<>(tinyGraph.vertices());
+        for (long s : vertices) {
+            for (long t : vertices) {
+                AStarSolver<Long> generic = new AStarSolver<>(tinyGraph, s, t, 20, new TreeMapMinPQ<>());
+                AStarSolver<Long> indexed = new AStarSolver<>(compact, s, t, 20);
+                assertEquals(generic.outcome(), indexed.outcome());
+                assertEquals(generic.solutionWeight(), indexed.solutionWeight(), 1e-4);
+            }
+        }
+    }
+}
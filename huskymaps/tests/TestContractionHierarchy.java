@@ -0,0 +1,101 @@
+package huskymaps.tests;
+
+import astar.AStarSolver;
+import astar.ShortestPathsSolver;
+import astar.ShortestPathsSolver.SolverOutcome;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.ContractionHierarchy;
+import huskymaps.GraphSnapshot;
+import huskymaps.StreetMapGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Compares contraction hierarchy routes against A* on the tiny graph. */
+public class TestContractionHierarchy {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    private static final double DELTA = 1e-9;
+    private static StreetMapGraph tinyGraph;
+    private static ContractionHierarchy tinyHierarchy;
+    private static boolean initialized = false;
+
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        tinyGraph = new StreetMapGraph(OSM_DB_PATH_TINY);
+        tinyHierarchy = ContractionHierarchy.build(tinyGraph.compact());
+        initialized = true;
+    }
+
+    /** Checks that the solution of actual is a path of g whose edges add up to its weight. */
+    private static void assertPath(CompactStreetMapGraph g, ShortestPathsSolver<Long> actual) {
+        List<Long> path = actual.solution();
+        double weight = 0;
+        for (int i = 0; i + 1 < path.size(); i += 1) {
+            int u = g.indexOf((long) path.get(i));
+            int v = g.indexOf((long) path.get(i + 1));
+            double best = Double.POSITIVE_INFINITY;
+            for (int e = g.edgeStart(u); e < g.edgeEnd(u); e += 1) {
+                if (g.edgeTarget(e) == v) {
+                    best = Math.min(best, g.edgeWeight(e));
+                }
+            }
+            assertTrue("No edge from " + path.get(i) + " to " + path.get(i + 1), best < Double.POSITIVE_INFINITY);
+            weight += best;
+        }
+        assertEquals(actual.solutionWeight(), weight, DELTA);
+    }
+
+    private static void assertAllPairs(CompactStreetMapGraph g, ContractionHierarchy hierarchy) {
+        for (int s = 0; s < g.numVertices(); s += 1) {
+            for (int t = 0; t < g.numVertices(); t += 1) {
+                AStarSolver<Long> expected = new AStarSolver<>(g, g.id(s), g.id(t), 10);
+                ShortestPathsSolver<Long> actual = hierarchy.solve(g.id(s), g.id(t));
+                assertEquals(expected.outcome(), actual.outcome());
+                if (expected.outcome() == SolverOutcome.SOLVED) {
+                    assertEquals(expected.solutionWeight(), actual.solutionWeight(), DELTA);
+                    assertEquals(g.id(s), (long) actual.solution().get(0));
+                    assertEquals(g.id(t), (long) actual.solution().get(actual.solution().size() - 1));
+                    assertPath(g, actual);
+                } else {
+                    assertTrue(actual.solution().isEmpty());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAllPairs() {
+        assertAllPairs(tinyGraph.compact(), tinyHierarchy);
+    }
+
+    @Test
+    public void testSameStartAndEnd() {
+        long v = tinyGraph.compact().id(0);
+        ShortestPathsSolver<Long> actual = tinyHierarchy.solve(v, v);
+        assertEquals(List.of(v), actual.solution());
+        assertEquals(0.0, actual.solutionWeight(), 0.0);
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        assertNull(tinyGraph.contractionHierarchy());
+        File file = File.createTempFile("tiny", ".graph");
+        file.deleteOnExit();
+        GraphSnapshot.write(tinyGraph, OSM_DB_PATH_TINY, file.getPath());
+        StreetMapGraph loaded = GraphSnapshot.read(file.getPath(), OSM_DB_PATH_TINY);
+        assertNotNull(loaded.contractionHierarchy());
+        assertAllPairs(loaded.compact(), loaded.contractionHierarchy());
+    }
+}
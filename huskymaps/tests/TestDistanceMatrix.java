@@ -0,0 +1,96 @@
+package huskymaps.tests;
+
+import astar.AStarSolver;
+import astar.ShortestPathsSolver.SolverOutcome;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.ContractionHierarchy;
+import huskymaps.DistanceMatrix;
+import huskymaps.StreetMapGraph;
+import huskymaps.params.MatrixResult;
+import org.junit.Before;
+import org.junit.Test;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/** Compares distance matrices against A* on the tiny graph. */
+public class TestDistanceMatrix {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    private static final double DELTA = 1e-9;
+    private static StreetMapGraph tinyGraph;
+    private static long[] vertices;
+    private static boolean initialized = false;
+
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        tinyGraph = new StreetMapGraph(OSM_DB_PATH_TINY);
+        CompactStreetMapGraph g = tinyGraph.compact();
+        vertices = new long[g.numVertices()];
+        for (int v = 0; v < g.numVertices(); v += 1) {
+            vertices[v] = g.id(v);
+        }
+        initialized = true;
+    }
+
+    /** Checks every entry of actual against A* from sources[i] to targets[j]. */
+    private static void assertDistances(long[] sources, long[] targets, double[][] actual) {
+        CompactStreetMapGraph g = tinyGraph.compact();
+        assertEquals(sources.length, actual.length);
+        for (int i = 0; i < sources.length; i += 1) {
+            assertEquals(targets.length, actual[i].length);
+            for (int j = 0; j < targets.length; j += 1) {
+                AStarSolver<Long> expected = new AStarSolver<>(g, sources[i], targets[j], 10);
+                if (expected.outcome() == SolverOutcome.SOLVED) {
+                    assertEquals(expected.solutionWeight(), actual[i][j], DELTA);
+                } else {
+                    assertEquals(Double.POSITIVE_INFINITY, actual[i][j], 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOneToMany() {
+        assertDistances(vertices, vertices, DistanceMatrix.oneToMany(tinyGraph.compact(), vertices, vertices));
+    }
+
+    @Test
+    public void testContractionHierarchy() {
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(tinyGraph.compact());
+        assertDistances(vertices, vertices, hierarchy.distances(vertices, vertices));
+    }
+
+    @Test
+    public void testRepeatedTargets() {
+        long[] sources = {vertices[0], vertices[vertices.length - 1], vertices[0]};
+        long[] targets = {vertices[1], vertices[1], vertices[vertices.length - 1], vertices[0]};
+        assertDistances(sources, targets, tinyGraph.distances(sources, targets));
+        ContractionHierarchy hierarchy = ContractionHierarchy.build(tinyGraph.compact());
+        assertDistances(sources, targets, hierarchy.distances(sources, targets));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(0, tinyGraph.distances(new long[0], vertices).length);
+        double[][] noTargets = tinyGraph.distances(vertices, new long[0]);
+        assertEquals(vertices.length, noTargets.length);
+        assertEquals(0, noTargets[0].length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotInGraph() {
+        tinyGraph.distances(vertices, new long[]{-1});
+    }
+
+    @Test
+    public void testUnreachableIsNull() {
+        MatrixResult result = new MatrixResult(new long[]{1}, new long[]{2, 3},
+                new double[][]{{1.5, Double.POSITIVE_INFINITY}});
+        assertEquals(1.5, result.distances[0][0], 0.0);
+        assertNull(result.distances[0][1]);
+    }
+}
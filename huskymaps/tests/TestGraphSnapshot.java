@@ -0,0 +1,107 @@
+package huskymaps.tests;
+
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.GraphSnapshot;
+import huskymaps.StreetMapGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/** Round trips the tiny graph through a snapshot file. */
+public class TestGraphSnapshot {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    private static StreetMapGraph tinyGraph;
+    private static boolean initialized = false;
+
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        tinyGraph = new StreetMapGraph(OSM_DB_PATH_TINY);
+        initialized = true;
+    }
+
+    private static String writeSnapshot() throws IOException {
+        File file = File.createTempFile("tiny", ".graph");
+        file.deleteOnExit();
+        GraphSnapshot.write(tinyGraph, OSM_DB_PATH_TINY, file.getPath());
+        return file.getPath();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        StreetMapGraph loaded = GraphSnapshot.read(writeSnapshot(), OSM_DB_PATH_TINY);
+        assertNotNull(loaded);
+        assertEquals(tinyGraph.vertices(), loaded.vertices());
+
+        CompactStreetMapGraph expected = tinyGraph.compact();
+        CompactStreetMapGraph actual = loaded.compact();
+        assertEquals(expected.numEdges(), actual.numEdges());
+        for (int v = 0; v < expected.numVertices(); v += 1) {
+            assertEquals(expected.id(v), actual.id(v));
+            assertEquals(expected.lat(v), actual.lat(v), 0.0);
+            assertEquals(expected.lon(v), actual.lon(v), 0.0);
+            assertEquals(expected.edgeStart(v), actual.edgeStart(v));
+        }
+        for (int e = 0; e < expected.numEdges(); e += 1) {
+            assertEquals(expected.edgeTarget(e), actual.edgeTarget(e));
+            assertEquals(expected.edgeWeight(e), actual.edgeWeight(e), 0.0);
+            assertEquals(expected.edgeName(e), actual.edgeName(e));
+        }
+
+        for (double lat = 47.5; lat < 47.8; lat += 0.05) {
+            for (double lon = -122.5; lon < -122.2; lon += 0.05) {
+                assertEquals(tinyGraph.closest(lat, lon), loaded.closest(lat, lon));
+            }
+        }
+        for (long v : tinyGraph.vertices()) {
+            assertEquals(tinyGraph.neighbors(v).size(), loaded.neighbors(v).size());
+        }
+    }
+
+    @Test
+    public void testCorruptSnapshot() throws IOException {
+        String filename = writeSnapshot();
+        try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 1);
+        }
+        assertNull(GraphSnapshot.read(filename, OSM_DB_PATH_TINY));
+    }
+
+    @Test
+    public void testMissingSnapshot() {
+        assertNull(GraphSnapshot.read(BASE_DIR_PATH + "missing.graph", OSM_DB_PATH_TINY));
+        StreetMapGraph loaded = StreetMapGraph.load(OSM_DB_PATH_TINY, BASE_DIR_PATH + "missing.graph");
+        assertEquals(tinyGraph.vertices(), loaded.vertices());
+    }
+
+    @Test
+    public void testRewriteWhileMapped() throws IOException {
+        String filename = writeSnapshot();
+        StreetMapGraph first = GraphSnapshot.read(filename, OSM_DB_PATH_TINY);
+        assertNotNull(first);
+        // replaces the file the first graph's buffers are still mapped from
+        GraphSnapshot.write(tinyGraph, OSM_DB_PATH_TINY, filename);
+        StreetMapGraph second = GraphSnapshot.read(filename, OSM_DB_PATH_TINY);
+        assertNotNull(second);
+        assertEquals(first.vertices(), second.vertices());
+        assertEquals(first.compact().numEdges(), second.compact().numEdges());
+
+        File file = new File(filename);
+        String[] leftovers = file.getParentFile().list((dir, name) ->
+                name.startsWith(file.getName()) && name.endsWith(".tmp"));
+        assertEquals(0, leftovers.length);
+    }
+}
@@ -0,0 +1,99 @@
+package huskymaps.tests;
+
+import astar.AStarSolver;
+import astar.ShortestPathsSolver.SolverOutcome;
+import huskymaps.CompactStreetMapGraph;
+import huskymaps.GraphSnapshot;
+import huskymaps.LandmarkStreetMapGraph;
+import huskymaps.Landmarks;
+import huskymaps.StreetMapGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static huskymaps.utils.Constants.LANDMARK_STRATEGY;
+import static huskymaps.utils.Constants.NUM_LANDMARKS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/** Checks the landmark heuristic on the tiny graph against plain A*. */
+public class TestLandmarks {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    private static final double DELTA = 1e-6;
+    private static StreetMapGraph tinyGraph;
+    private static boolean initialized = false;
+
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        tinyGraph = new StreetMapGraph(OSM_DB_PATH_TINY);
+        initialized = true;
+    }
+
+    /**
+     * Checks that the bound never exceeds the true distance, that A* finds
+     * routes just as short with it, and that it explores no more states.
+     */
+    private static void assertAdmissibleAndTighter(CompactStreetMapGraph g, Landmarks landmarks) {
+        LandmarkStreetMapGraph alt = new LandmarkStreetMapGraph(g, landmarks);
+        int plainStates = 0;
+        int altStates = 0;
+        for (int s = 0; s < g.numVertices(); s += 1) {
+            for (int t = 0; t < g.numVertices(); t += 1) {
+                AStarSolver<Long> expected = new AStarSolver<>(g, g.id(s), g.id(t), 10);
+                AStarSolver<Long> actual = new AStarSolver<>(alt, g.id(s), g.id(t), 10);
+                assertEquals(expected.outcome(), actual.outcome());
+                if (expected.outcome() == SolverOutcome.SOLVED) {
+                    assertTrue(landmarks.lowerBound(s, t) <= expected.solutionWeight() + DELTA);
+                    assertEquals(expected.solutionWeight(), actual.solutionWeight(), DELTA);
+                }
+                plainStates += expected.numStatesExplored();
+                altStates += actual.numStatesExplored();
+            }
+        }
+        assertTrue("A* explored " + altStates + " states with landmarks, " + plainStates + " without",
+                altStates <= plainStates);
+    }
+
+    @Test
+    public void testFarthest() {
+        CompactStreetMapGraph g = tinyGraph.compact();
+        Landmarks landmarks = Landmarks.build(g, 4, Landmarks.Strategy.FARTHEST);
+        assertTrue(landmarks.size() > 0);
+        assertAdmissibleAndTighter(g, landmarks);
+    }
+
+    @Test
+    public void testAvoid() {
+        CompactStreetMapGraph g = tinyGraph.compact();
+        Landmarks landmarks = Landmarks.build(g, 4, Landmarks.Strategy.AVOID);
+        assertTrue(landmarks.size() > 0);
+        assertAdmissibleAndTighter(g, landmarks);
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        File file = File.createTempFile("tiny", ".graph");
+        file.deleteOnExit();
+        GraphSnapshot.write(tinyGraph, OSM_DB_PATH_TINY, file.getPath());
+        StreetMapGraph loaded = GraphSnapshot.read(file.getPath(), OSM_DB_PATH_TINY);
+        assertNotNull(loaded.landmarks());
+        Landmarks expected = Landmarks.build(tinyGraph.compact(), NUM_LANDMARKS, LANDMARK_STRATEGY);
+        CompactStreetMapGraph g = loaded.compact();
+        assertEquals(expected.size(), loaded.landmarks().size());
+        for (int i = 0; i < expected.size(); i += 1) {
+            assertEquals(expected.landmark(i), loaded.landmarks().landmark(i));
+        }
+        for (int s = 0; s < g.numVertices(); s += 1) {
+            for (int t = 0; t < g.numVertices(); t += 1) {
+                assertEquals(expected.lowerBound(s, t), loaded.landmarks().lowerBound(s, t), 0.0);
+            }
+        }
+    }
+}
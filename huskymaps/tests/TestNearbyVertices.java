@@ -0,0 +1,94 @@
+package huskymaps.tests;
+
+import huskymaps.StreetMapGraph;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static huskymaps.utils.Spatial.greatCircleDistance;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Checks the k closest and within-radius vertex lookups on the tiny graph. */
+public class TestNearbyVertices {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    // distances are measured on the projection, which is this close to the great circle nearby
+    private static final double TOLERANCE = 0.01;
+    private static StreetMapGraph tinyGraph;
+    // only vertices with edges can be routed from, so only they are looked up
+    private static List<Long> navigable;
+    private static boolean initialized = false;
+
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        tinyGraph = new StreetMapGraph(OSM_DB_PATH_TINY);
+        navigable = new ArrayList<>();
+        for (long v : tinyGraph.vertices()) {
+            if (!tinyGraph.neighbors(v).isEmpty()) {
+                navigable.add(v);
+            }
+        }
+        initialized = true;
+    }
+
+    private static double miles(long v, double lat, double lon) {
+        return greatCircleDistance(tinyGraph.lon(v), lon, tinyGraph.lat(v), lat);
+    }
+
+    @Test
+    public void testClosest() {
+        int numVertices = navigable.size();
+        for (double lat = 47.5; lat < 47.8; lat += 0.05) {
+            for (double lon = -122.5; lon < -122.2; lon += 0.05) {
+                long[] ids = tinyGraph.closest(lat, lon, 3);
+                assertEquals(Math.min(3, numVertices), ids.length);
+                assertEquals(tinyGraph.closest(lat, lon), ids[0]);
+
+                long[] all = new long[numVertices + 5];
+                double[] miles = new double[all.length];
+                assertEquals(numVertices, tinyGraph.closest(lat, lon, all, miles));
+                Set<Long> seen = new HashSet<>();
+                for (int i = 0; i < numVertices; i += 1) {
+                    assertTrue(seen.add(all[i]));
+                    assertEquals(miles(all[i], lat, lon), miles[i], miles[i] * TOLERANCE);
+                    if (i > 0) {
+                        assertTrue(miles[i - 1] <= miles[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWithinRadius() {
+        double lat = tinyGraph.lat(navigable.get(0));
+        double lon = tinyGraph.lon(navigable.get(0));
+        for (double radius : new double[]{0.0, 0.01, 0.1, 1.0, 100.0}) {
+            Set<Long> found = new HashSet<>();
+            for (long id : tinyGraph.withinRadius(lat, lon, radius)) {
+                assertTrue(found.add(id));
+                assertTrue(miles(id, lat, lon) <= radius * (1 + TOLERANCE));
+            }
+            for (long v : navigable) {
+                if (miles(v, lat, lon) < radius * (1 - TOLERANCE)) {
+                    assertTrue(found.contains(v));
+                }
+            }
+            assertTrue(found.contains(navigable.get(0)));
+
+            long[] few = new long[1];
+            assertEquals(found.size(), tinyGraph.withinRadius(lat, lon, radius, few));
+            assertTrue(found.contains(few[0]));
+        }
+        assertFalse(tinyGraph.withinRadius(lat, lon, -1).length > 0);
+    }
+}
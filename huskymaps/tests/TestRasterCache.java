@@ -0,0 +1,65 @@
+package huskymaps.tests;
+
+import huskymaps.server.logic.RasterCache;
+import huskymaps.server.logic.Rasterer;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestRasterCache {
+
+    /** Returns the rows by columns grid of tiles at depth 2 from (x, y). */
+    private static Rasterer.Tile[][] grid(int x, int y, int rows, int columns) {
+        Rasterer.Tile[][] grid = new Rasterer.Tile[rows][columns];
+        for (int r = 0; r < rows; r += 1) {
+            for (int c = 0; c < columns; c += 1) {
+                grid[r][c] = new Rasterer.Tile(2, x + c, y + r);
+            }
+        }
+        return grid;
+    }
+
+    @Test
+    public void testKeyedByGridAndRoute() {
+        RasterCache cache = new RasterCache(1000);
+        cache.put(grid(1, 1, 2, 3), List.of(), "plain");
+        cache.put(grid(1, 1, 2, 3), List.of(5L, 6L), "route");
+        // an equal grid and route, but not the same objects
+        assertEquals("plain", cache.get(grid(1, 1, 2, 3), List.of()));
+        assertEquals("route", cache.get(grid(1, 1, 2, 3), List.of(5L, 6L)));
+        assertNull(cache.get(grid(1, 1, 2, 3), List.of(6L, 5L)));
+        assertNull(cache.get(grid(1, 1, 3, 3), List.of()));
+        assertNull(cache.get(grid(0, 1, 2, 3), List.of()));
+        assertEquals(2, cache.hits());
+        assertEquals(3, cache.misses());
+    }
+
+    @Test
+    public void testEvictsToBudget() {
+        RasterCache cache = new RasterCache(10);
+        cache.put(grid(0, 0, 1, 1), List.of(), "aaaa");
+        cache.put(grid(1, 0, 1, 1), List.of(), "bbbb");
+        cache.get(grid(0, 0, 1, 1), List.of());
+        cache.put(grid(2, 0, 1, 1), List.of(), "cccc");
+        assertEquals(2, cache.size());
+        assertEquals(8, cache.bytes());
+        assertEquals(1, cache.evictions());
+        assertNull(cache.get(grid(1, 0, 1, 1), List.of()));
+        assertEquals("aaaa", cache.get(grid(0, 0, 1, 1), List.of()));
+
+        // too large to cache at all
+        cache.put(grid(3, 0, 1, 1), List.of(), "dddddddddddd");
+        assertNull(cache.get(grid(3, 0, 1, 1), List.of()));
+        assertEquals(2, cache.size());
+
+        // replacing a raster frees its bytes
+        cache.put(grid(0, 0, 1, 1), List.of(), "aa");
+        assertEquals(6, cache.bytes());
+        cache.invalidate();
+        assertEquals(0, cache.bytes());
+        assertNull(cache.get(grid(0, 0, 1, 1), List.of()));
+    }
+}
@@ -0,0 +1,130 @@
+package huskymaps.tests;
+
+import huskymaps.StreetMapGraph;
+import huskymaps.params.RasterResult;
+import huskymaps.server.logic.RasterRenderer;
+import huskymaps.server.logic.Rasterer;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static huskymaps.utils.Constants.TILE_SIZE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestRasterRenderer {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+
+    /** Returns a tile with a different color at each pixel, and none for tile (3, 1). */
+    private static BufferedImage tile(Rasterer.Tile tile) {
+        if (tile.x == 3 && tile.y == 1) {
+            return null;
+        }
+        BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_3BYTE_BGR);
+        for (int y = 0; y < TILE_SIZE; y += 1) {
+            for (int x = 0; x < TILE_SIZE; x += 1) {
+                image.setRGB(x, y, tile.x * 0x300000 + tile.y * 0x3000 + x * 0x100 + y);
+            }
+        }
+        return image;
+    }
+
+    private static RasterResult grid() {
+        Rasterer.Tile[][] grid = new Rasterer.Tile[3][4];
+        for (int r = 0; r < 3; r += 1) {
+            for (int c = 0; c < 4; c += 1) {
+                grid[r][c] = new Rasterer.Tile(3, c, r);
+            }
+        }
+        return new RasterResult(grid);
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    @Test
+    public void testParallelMatchesSerial() {
+        RasterRenderer serial = new RasterRenderer(TestRasterRenderer::tile, false,
+                RasterRenderer.Format.PNG, -1, 0);
+        RasterRenderer parallel = new RasterRenderer(TestRasterRenderer::tile, true,
+                RasterRenderer.Format.PNG, -1, 0);
+        BufferedImage expected = serial.render(grid(), List.of(), null);
+        BufferedImage actual = parallel.render(grid(), List.of(), null);
+        assertEquals(4 * TILE_SIZE, actual.getWidth());
+        assertEquals(3 * TILE_SIZE, actual.getHeight());
+        assertArrayEquals(pixels(expected), pixels(actual));
+        // the missing tile stays black
+        assertEquals(0, actual.getRGB(3 * TILE_SIZE + 5, TILE_SIZE + 5) & 0xffffff);
+        assertEquals(tile(new Rasterer.Tile(3, 2, 1)).getRGB(7, 9),
+                actual.getRGB(2 * TILE_SIZE + 7, TILE_SIZE + 9));
+    }
+
+    @Test
+    public void testPngLevelsAreLossless() throws IOException {
+        RasterRenderer renderer = new RasterRenderer(TestRasterRenderer::tile, true,
+                RasterRenderer.Format.PNG, -1, 0);
+        BufferedImage image = renderer.render(grid(), List.of(), null);
+        for (int level = -1; level <= 9; level += 1) {
+            RasterRenderer encoder = new RasterRenderer(TestRasterRenderer::tile, true,
+                    RasterRenderer.Format.PNG, level, 0);
+            BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(encoder.encode(image)));
+            assertArrayEquals(pixels(image), pixels(decoded));
+        }
+    }
+
+    @Test
+    public void testJpeg() throws IOException {
+        RasterRenderer renderer = new RasterRenderer(TestRasterRenderer::tile, true,
+                RasterRenderer.Format.JPEG, -1, 0.85f);
+        BufferedImage image = renderer.render(grid(), List.of(), null);
+        byte[] bytes = renderer.encode(image);
+        // the JPEG start of image marker
+        assertEquals((byte) 0xff, bytes[0]);
+        assertEquals((byte) 0xd8, bytes[1]);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(bytes));
+        assertEquals(image.getWidth(), decoded.getWidth());
+        assertEquals(image.getHeight(), decoded.getHeight());
+        assertEquals("image/jpeg", renderer.format().mimeType);
+    }
+
+    @Test
+    public void testOverlayMatchesRender() throws Exception {
+        StreetMapGraph g = new StreetMapGraph(OSM_DB_PATH_TINY);
+        // from the southeast of the map to the northwest, across both tiles at depth 0
+        List<Long> route = List.of(1L, 2L);
+        RasterRenderer renderer = new RasterRenderer(t -> null, false, RasterRenderer.Format.PNG, -1, 0);
+        for (int x = 0; x < 2; x += 1) {
+            Rasterer.Tile tile = new Rasterer.Tile(0, x, 0);
+            BufferedImage overlay = renderer.renderOverlay(tile, route, g);
+            assertNotNull(overlay);
+            BufferedImage expected = renderer.render(new RasterResult(new Rasterer.Tile[][]{{tile}}), route, g);
+            int drawn = 0;
+            for (int py = 0; py < TILE_SIZE; py += 1) {
+                for (int px = 0; px < TILE_SIZE; px += 1) {
+                    // the overlay laid over a black tile
+                    int argb = overlay.getRGB(px, py);
+                    int alpha = argb >>> 24;
+                    drawn += alpha > 0 ? 1 : 0;
+                    for (int shift = 0; shift < 24; shift += 8) {
+                        int actual = ((argb >> shift) & 0xff) * alpha / 255;
+                        int want = (expected.getRGB(px, py) >> shift) & 0xff;
+                        assertTrue(Math.abs(actual - want) <= 2);
+                    }
+                }
+            }
+            assertTrue(drawn > TILE_SIZE);
+        }
+        // the northwest corner of the map, far from the route
+        assertNull(renderer.renderOverlay(new Rasterer.Tile(7, 0, 0), route, g));
+        assertNull(renderer.renderOverlay(new Rasterer.Tile(0, 0, 0), List.of(), g));
+    }
+}
@@ -0,0 +1,81 @@
+package huskymaps.tests;
+
+import huskymaps.server.handler.RequestExecutor;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestRequestExecutor {
+
+    @Test
+    public void testReturnsResult() throws Exception {
+        RequestExecutor executor = new RequestExecutor(2, 4, 10_000);
+        assertEquals(42, (int) executor.call(() -> 42));
+        assertTrue(executor.call(() -> Thread.currentThread().getName()).startsWith("request-"));
+        executor.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRethrows() throws Exception {
+        RequestExecutor executor = new RequestExecutor(1, 1, 10_000);
+        try {
+            executor.call(() -> {
+                throw new IllegalStateException();
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testTimeout() throws Exception {
+        RequestExecutor executor = new RequestExecutor(1, 1, 50);
+        try {
+            executor.call(() -> {
+                Thread.sleep(10_000);
+                return null;
+            });
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectsWhenFull() throws Exception {
+        RequestExecutor executor = new RequestExecutor(1, 1, 10_000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService clients = Executors.newFixedThreadPool(2);
+        // one request holds the only worker, and the next fills the queue
+        Future<Object> running = clients.submit(() -> executor.call(() -> {
+            started.countDown();
+            release.await();
+            return 1;
+        }));
+        started.await();
+        Future<Object> queued = clients.submit(() -> executor.call(() -> 2));
+        while (executor.pending() == 0) {
+            Thread.sleep(1);
+        }
+        try {
+            executor.call(() -> 3);
+            fail("Accepted a request with the queue full");
+        } catch (RejectedExecutionException e) {
+            // expected
+        }
+        release.countDown();
+        assertEquals(1, running.get());
+        assertEquals(2, queued.get());
+        clients.shutdown();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,84 @@
+package huskymaps.tests;
+
+import huskymaps.StreetMapGraph;
+import huskymaps.params.RouteRequest;
+import huskymaps.server.logic.RouteCache;
+import huskymaps.server.logic.Router;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static huskymaps.utils.Constants.BASE_DIR_PATH;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TestRouteCache {
+    private static final String OSM_DB_PATH_TINY = BASE_DIR_PATH + "tiny.osm.gz";
+    private static StreetMapGraph tinyGraph;
+    private static boolean initialized = false;
+
+    @Before
+    public void setUp() throws Exception {
+        if (initialized) {
+            return;
+        }
+        tinyGraph = new StreetMapGraph(OSM_DB_PATH_TINY);
+        initialized = true;
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        RouteCache cache = new RouteCache(2);
+        cache.put(tinyGraph, 1, 2, new long[]{1, 2});
+        cache.put(tinyGraph, 2, 3, new long[]{2, 3});
+        assertArrayEquals(new long[]{1, 2}, cache.get(tinyGraph, 1, 2));
+        cache.put(tinyGraph, 3, 4, new long[]{3, 4});
+        assertNull(cache.get(tinyGraph, 2, 3));
+        assertArrayEquals(new long[]{1, 2}, cache.get(tinyGraph, 1, 2));
+        assertArrayEquals(new long[]{3, 4}, cache.get(tinyGraph, 3, 4));
+        assertNull(cache.get(tinyGraph, 2, 1));
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    public void testNewGraphInvalidates() throws Exception {
+        RouteCache cache = new RouteCache(4);
+        cache.put(tinyGraph, 1, 2, new long[]{1, 2});
+        StreetMapGraph reloaded = new StreetMapGraph(OSM_DB_PATH_TINY);
+        assertNull(cache.get(reloaded, 1, 2));
+        assertEquals(0, cache.size());
+        cache.put(reloaded, 1, 2, new long[]{1, 2});
+        cache.invalidate();
+        assertNull(cache.get(reloaded, 1, 2));
+    }
+
+    @Test
+    public void testZeroCapacity() {
+        RouteCache cache = new RouteCache(0);
+        cache.put(tinyGraph, 1, 2, new long[]{1, 2});
+        assertNull(cache.get(tinyGraph, 1, 2));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRouterUsesCache() {
+        RouteRequest request = RouteRequest.from(Map.of(
+                "start_lat", 47.55,
+                "start_lon", -122.45,
+                "end_lat", 47.75,
+                "end_lon", -122.2
+        ));
+        RouteCache cache = Router.routeCache();
+        List<Long> expected = Router.shortestPath(tinyGraph, request);
+        long hits = cache.hits();
+        List<Long> actual = Router.shortestPath(tinyGraph, request);
+        assertEquals(expected, actual);
+        assertEquals(hits + 1, cache.hits());
+    }
+}
@@ -0,0 +1,137 @@
+package huskymaps.tests;
+
+import huskymaps.TileArchive;
+import huskymaps.server.logic.Rasterer;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Packs a few made-up tiles into an archive and reads them back. */
+public class TestTileArchive {
+    private static final List<Rasterer.Tile> TILES = List.of(
+            new Rasterer.Tile(0, 0, 0),
+            new Rasterer.Tile(0, 1, 0),
+            new Rasterer.Tile(3, 5, 2),
+            new Rasterer.Tile(7, 255, 127)
+    );
+
+    /** Returns the made-up contents of tile, a different length for each. */
+    private static byte[] contents(Rasterer.Tile tile) {
+        byte[] bytes = new byte[10 + tile.depth * 100 + tile.x];
+        for (int i = 0; i < bytes.length; i += 1) {
+            bytes[i] = (byte) (i * 31 + tile.x + tile.y);
+        }
+        return bytes;
+    }
+
+    /** Writes TILES to a new folder and returns its path. */
+    private static String writeTiles() throws IOException {
+        Path folder = Files.createTempDirectory("tiles");
+        folder.toFile().deleteOnExit();
+        for (Rasterer.Tile tile : TILES) {
+            Path path = folder.resolve(tile.toString());
+            Files.write(path, contents(tile));
+            path.toFile().deleteOnExit();
+        }
+        return folder.toString();
+    }
+
+    /** Packs the tiles in folder and returns the archive's path. */
+    private static String pack(String folder) throws IOException {
+        File archive = File.createTempFile("tiles", ".archive");
+        archive.deleteOnExit();
+        assertEquals(TILES.size(), TileArchive.pack(folder, archive.getPath()));
+        return archive.getPath();
+    }
+
+    private static ByteBuffer get(TileArchive archive, Rasterer.Tile tile) {
+        return archive.get(tile.depth, tile.x, tile.y);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        String folder = writeTiles();
+        TileArchive archive = TileArchive.open(pack(folder), folder);
+        assertNotNull(archive);
+        assertEquals(TILES.size(), archive.size());
+        for (Rasterer.Tile tile : TILES) {
+            ByteBuffer buffer = get(archive, tile);
+            assertTrue(buffer.isReadOnly());
+            assertArrayEquals(contents(tile), bytes(buffer));
+            // each call gets its own buffer
+            assertEquals(contents(tile).length, get(archive, tile).remaining());
+            try (InputStream in = archive.stream(tile.depth, tile.x, tile.y)) {
+                assertArrayEquals(contents(tile), in.readAllBytes());
+            }
+        }
+        assertNull(archive.get(3, 4, 2));
+        assertNull(archive.stream(3, 4, 2));
+        // off the map
+        assertNull(archive.get(0, 2, 0));
+        assertNull(archive.get(8, 0, 0));
+    }
+
+    @Test
+    public void testRejectsBadArchives() throws IOException {
+        String folder = writeTiles();
+        assertNull(TileArchive.open(new File(pack(folder)).getParent() + "/missing.archive", folder));
+
+        String corrupt = pack(folder);
+        try (RandomAccessFile file = new RandomAccessFile(corrupt, "rw")) {
+            // the first index slot
+            file.seek(40);
+            file.writeLong(12345);
+        }
+        assertNull(TileArchive.open(corrupt, folder));
+
+        String truncated = pack(folder);
+        try (RandomAccessFile file = new RandomAccessFile(truncated, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        assertNull(TileArchive.open(truncated, folder));
+
+        String other = pack(folder);
+        try (RandomAccessFile file = new RandomAccessFile(other, "rw")) {
+            file.writeInt(0);
+        }
+        assertNull(TileArchive.open(other, folder));
+    }
+
+    @Test
+    public void testRejectsStaleArchives() throws IOException {
+        String folder = writeTiles();
+        String archive = pack(folder);
+        // without the tile files there is nothing to compare with, so the archive is trusted
+        assertNotNull(TileArchive.open(archive, folder + "-missing"));
+
+        // a tile re-rendered later with the same size and layout
+        Path tile = Path.of(folder, TILES.get(2).toString());
+        FileTime packed = Files.getLastModifiedTime(tile);
+        byte[] bytes = contents(TILES.get(2));
+        bytes[0] += 1;
+        Files.write(tile, bytes);
+        Files.setLastModifiedTime(tile, FileTime.fromMillis(packed.toMillis() + 2000));
+        assertNull(TileArchive.open(archive, folder));
+        assertNotNull(TileArchive.open(pack(folder), folder));
+    }
+}
@@ -0,0 +1,136 @@
+package huskymaps.tests;
+
+import huskymaps.server.logic.Rasterer;
+import huskymaps.server.logic.TileCache;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TestTileCache {
+    /** Bytes of an 8 by 8 TYPE_INT_RGB tile. */
+    private static final long TILE_BYTES = 8 * 8 * 4;
+
+    /** Records the tiles it decodes, and colors each by its x. */
+    private static class Loader {
+        private final List<Rasterer.Tile> decoded = new ArrayList<>();
+
+        BufferedImage decode(Rasterer.Tile tile) {
+            decoded.add(tile);
+            if (tile.x < 0) {
+                return null;
+            }
+            BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+            image.setRGB(3, 5, tile.x);
+            return image;
+        }
+    }
+
+    private static Rasterer.Tile tile(int x) {
+        return new Rasterer.Tile(7, x, 0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsed() {
+        Loader loader = new Loader();
+        TileCache cache = new TileCache(2 * TILE_BYTES, TileCache.Eviction.LRU,
+                TileCache.Storage.STRONG, loader::decode);
+        BufferedImage first = cache.get(tile(1));
+        cache.get(tile(2));
+        assertSame(first, cache.get(tile(1)));
+        cache.get(tile(3));
+        assertEquals(2, cache.size());
+        assertEquals(2 * TILE_BYTES, cache.bytes());
+        assertEquals(1, cache.evictions());
+        cache.get(tile(2));
+        assertEquals(List.of(tile(1), tile(2), tile(3), tile(2)), loader.decoded);
+        assertEquals(1, cache.hits());
+        assertEquals(4, cache.misses());
+        assertEquals(0.2, cache.hitRate(), 1e-9);
+    }
+
+    @Test
+    public void testLeastFrequentlyUsed() {
+        Loader loader = new Loader();
+        TileCache cache = new TileCache(2 * TILE_BYTES, TileCache.Eviction.LFU,
+                TileCache.Storage.STRONG, loader::decode);
+        cache.get(tile(1));
+        cache.get(tile(1));
+        cache.get(tile(2));
+        // tile 2 was used more recently, but tile 1 more often
+        cache.get(tile(3));
+        cache.get(tile(1));
+        cache.get(tile(3));
+        assertEquals(List.of(tile(1), tile(2), tile(3)), loader.decoded);
+        // tile 3 was used more recently, but less often than tile 1
+        cache.get(tile(2));
+        cache.get(tile(1));
+        cache.get(tile(2));
+        assertEquals(List.of(tile(1), tile(2), tile(3), tile(2)), loader.decoded);
+    }
+
+    @Test
+    public void testOffHeap() {
+        Loader loader = new Loader();
+        TileCache cache = new TileCache(4 * TILE_BYTES, TileCache.Eviction.LRU,
+                TileCache.Storage.OFF_HEAP, loader::decode);
+        cache.get(tile(0xabcdef));
+        BufferedImage image = cache.get(tile(0xabcdef));
+        assertEquals(1, loader.decoded.size());
+        assertEquals(0xabcdef, image.getRGB(3, 5) & 0xffffff);
+        assertEquals(0, image.getRGB(0, 0) & 0xffffff);
+        assertEquals(TILE_BYTES, cache.bytes());
+    }
+
+    @Test
+    public void testSoft() {
+        Loader loader = new Loader();
+        TileCache cache = new TileCache(4 * TILE_BYTES, TileCache.Eviction.LRU,
+                TileCache.Storage.SOFT, loader::decode);
+        BufferedImage image = cache.get(tile(1));
+        // the strong reference keeps the soft one from being cleared
+        assertSame(image, cache.get(tile(1)));
+        assertEquals(1, loader.decoded.size());
+    }
+
+    @Test
+    public void testUndecodableAndZeroBudget() {
+        Loader loader = new Loader();
+        TileCache cache = new TileCache(4 * TILE_BYTES, TileCache.Eviction.LRU,
+                TileCache.Storage.STRONG, loader::decode);
+        assertNull(cache.get(tile(-1)));
+        assertEquals(0, cache.size());
+
+        TileCache none = new TileCache(0, TileCache.Eviction.LRU, TileCache.Storage.STRONG, loader::decode);
+        none.get(tile(1));
+        none.get(tile(1));
+        assertEquals(0, none.size());
+        assertEquals(0, none.hits());
+    }
+
+    @Test
+    public void testWarm() {
+        Loader loader = new Loader();
+        TileCache cache = new TileCache(1000 * TILE_BYTES, TileCache.Eviction.LRU,
+                TileCache.Storage.STRONG, loader::decode);
+        cache.warm(1);
+        // 2 by 1 tiles at depth 0 and 4 by 2 at depth 1
+        assertEquals(10, cache.size());
+        cache.get(new Rasterer.Tile(1, 3, 1));
+        assertEquals(1, cache.hits());
+        assertEquals(0, cache.misses());
+
+        TileCache small = new TileCache(3 * TILE_BYTES, TileCache.Eviction.LRU,
+                TileCache.Storage.STRONG, loader::decode);
+        small.warm(3);
+        // stops once full instead of evicting the tiles it just decoded
+        assertEquals(3, small.size());
+        assertEquals(0, small.evictions());
+        assertEquals(10 + 4, loader.decoded.size());
+    }
+}
@@ -0,0 +1,69 @@
+package huskymaps.tests;
+
+import huskymaps.server.logic.Rasterer;
+import huskymaps.server.logic.TileStore;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestTileStore {
+
+    @Test
+    public void testEtagsFollowContent() {
+        List<Rasterer.Tile> reads = new ArrayList<>();
+        TileStore store = new TileStore(tile -> {
+            reads.add(tile);
+            return tile.y == 1 ? null : ByteBuffer.wrap(new byte[]{(byte) tile.depth, (byte) (tile.x % 2)});
+        });
+        String etag = store.etag(new Rasterer.Tile(2, 0, 0));
+        // strong, so not prefixed with W/
+        assertTrue(etag.startsWith("\""));
+        assertEquals(TileStore.etag(ByteBuffer.wrap(new byte[]{2, 0})), etag);
+        // tags are kept, so asking again reads nothing
+        assertEquals(etag, store.etag(new Rasterer.Tile(2, 0, 0)));
+        assertEquals(1, reads.size());
+        // the same bytes have the same tag, and other bytes another
+        assertEquals(etag, store.etag(new Rasterer.Tile(2, 2, 0)));
+        assertNotEquals(etag, store.etag(new Rasterer.Tile(2, 1, 0)));
+
+        assertNull(store.etag(new Rasterer.Tile(2, 0, 1)));
+        assertNull(store.read(new Rasterer.Tile(2, 0, 1)));
+        // off the map, so never read
+        int before = reads.size();
+        assertNull(store.etag(new Rasterer.Tile(2, 8, 0)));
+        assertNull(store.read(new Rasterer.Tile(8, 0, 0)));
+        assertNull(store.read(new Rasterer.Tile(0, 0, -1)));
+        assertEquals(before, reads.size());
+    }
+
+    @Test
+    public void testRouteEtags() {
+        Rasterer.Tile tile = new Rasterer.Tile(3, 4, 5);
+        String etag = TileStore.etag(tile, List.of(1L, 2L, 3L));
+        assertEquals(etag, TileStore.etag(new Rasterer.Tile(3, 4, 5), List.of(1L, 2L, 3L)));
+        assertNotEquals(etag, TileStore.etag(tile, List.of(1L, 2L)));
+        assertNotEquals(etag, TileStore.etag(tile, List.of(3L, 2L, 1L)));
+        assertNotEquals(etag, TileStore.etag(new Rasterer.Tile(3, 5, 4), List.of(1L, 2L, 3L)));
+        assertNotEquals(TileStore.etag(tile, List.of()),
+                TileStore.etag(new Rasterer.Tile(3, 4, 6), List.of()));
+    }
+
+    @Test
+    public void testMatches() {
+        String etag = TileStore.etag(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        assertTrue(TileStore.matches(etag, etag));
+        assertTrue(TileStore.matches("\"abc\", " + etag, etag));
+        assertTrue(TileStore.matches("*", etag));
+        assertFalse(TileStore.matches(null, etag));
+        assertFalse(TileStore.matches("\"abc\"", etag));
+        assertFalse(TileStore.matches("W/" + etag, etag));
+    }
+}
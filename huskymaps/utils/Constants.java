@@ -1,10 +1,13 @@
 package huskymaps.utils;
 
+import astar.FringeType;
+import huskymaps.Landmarks;
 import huskymaps.StreetMapGraph;
+import huskymaps.TileArchive;
+import huskymaps.server.logic.RasterRenderer;
+import huskymaps.server.logic.TileCache;
 
 import java.awt.*;
-import java.util.LinkedList;
-import java.util.List;
 
 /** A class holding all the constant values used throughout the project */
 public class Constants {
@@ -79,28 +82,127 @@ public class Constants {
     public static final String OSM_DB_PATH = BASE_DIR_PATH + "seattle-small.osm.gz";
     public static final String PLACES_PATH = BASE_DIR_PATH + "places.json";
 
+    /**
+     * Binary snapshot of the graph built from OSM_DB_PATH, written by
+     * huskymaps.GraphSnapshot. The server parses the XML if it is missing or stale.
+     */
+    public static final String GRAPH_SNAPSHOT_PATH = BASE_DIR_PATH + "seattle-small.graph";
+
     /** The tile images are in the IMG_ROOT folder. */
     public static final String IMG_ROOT = BASE_DIR_PATH + "tiles/";
+
+    /**
+     * The tile images packed into one file by huskymaps.TileArchive, which the
+     * server maps into memory. The server reads the IMG_ROOT folder if it is
+     * missing or stale.
+     */
+    public static final String TILE_ARCHIVE_PATH = BASE_DIR_PATH + "tiles.archive";
     public static final int MIN_ZOOM_LEVEL = 10;
     public static final int[] MIN_X_TILE_AT_DEPTH = {163, 326, 652, 1304, 2608, 5216, 10432, 20864};
     public static final int[] MIN_Y_TILE_AT_DEPTH = {357, 714, 1428, 2856, 5712, 11424, 22848, 45696};
 
+    /**
+     * Bytes of decoded tiles the raster handler keeps, how it picks tiles to
+     * evict and how it holds them, and the depths up to which MapServer decodes
+     * every tile at startup (-1 for none). A decoded tile is 192 KiB, so depths 0
+     * to 3 take about 32 MiB.
+     */
+    public static final long TILE_CACHE_BYTES = 256L << 20;
+    public static final TileCache.Eviction TILE_CACHE_EVICTION = TileCache.Eviction.LRU;
+    public static final TileCache.Storage TILE_CACHE_STORAGE = TileCache.Storage.STRONG;
+    public static final int TILE_CACHE_WARM_DEPTH = 3;
+
+    /**
+     * Bytes of Base64-encoded PNG rasters the raster handler keeps, so repeated
+     * requests for the same view and route skip rendering; 0 turns it off.
+     */
+    public static final long RASTER_CACHE_BYTES = 64L << 20;
+
+    /**
+     * Whether the raster handler fetches and draws the tiles of a raster in
+     * parallel, and how it encodes the result. Deflate level 2 encodes PNGs about
+     * 20% faster than the default level 4, for 3% more bytes; JPEG encodes about
+     * three times as fast as PNG, at a tenth of the size, but is lossy.
+     */
+    public static final boolean RASTER_PARALLEL = true;
+    public static final RasterRenderer.Format RASTER_FORMAT = RasterRenderer.Format.PNG;
+    public static final int RASTER_PNG_DEFLATE_LEVEL = 2;
+    public static final float RASTER_JPEG_QUALITY = 0.85f;
+
+    /**
+     * Cache-Control headers of the single tiles served to the browser. Map tiles
+     * only change with a new deployment, so browsers keep them for a week; the
+     * ETag still lets them check a stale copy cheaply. Route overlay tiles
+     * belong to one user and change with their route, so browsers must check
+     * them every time, which costs a 304 when the route has not changed.
+     */
+    public static final String TILE_CACHE_CONTROL = "public, max-age=604800";
+    public static final String ROUTE_TILE_CACHE_CONTROL = "private, no-cache";
+
     /** Route stroke information. */
     public static final Color ROUTE_STROKE_COLOR = new Color(108, 181, 230);
     public static final float ROUTE_STROKE_WIDTH_PX = 5.0f;
 
-    /** Graph singleton instance. */
-    public static StreetMapGraph SEMANTIC_STREET_GRAPH;
+    /**
+     * Priority queue used as the A* fringe by the router. null routes with
+     * bidirectional A* over the compact graph, which allocates nothing per edge,
+     * using the landmark heuristic when the graph has landmarks.
+     * Otherwise the generic search runs with the given fringe; RADIX_HEAP and
+     * PAIRING_HEAP suit the monotone, decrease-heavy searches on road networks.
+     */
+    public static final FringeType ROUTE_FRINGE = null;
+
+    /**
+     * Whether the router answers with the contraction hierarchy stored in the
+     * graph snapshot. Graphs parsed from the OSM file have none and fall back to
+     * the A* search chosen by ROUTE_FRINGE.
+     */
+    public static final boolean ROUTE_WITH_CONTRACTION_HIERARCHY = true;
 
     /**
-     * This is used to maintain a single List of route so that the same instance(object) is accessed
-     * from everywhere in the code. Enum is a cleaner way to achieve such a singleton pattern.
+     * Number of routes between snapped vertices the router keeps, least recently
+     * used first out; 0 turns the cache off.
      */
-    public static List<Long> ROUTE_LIST = new LinkedList<>();
+    public static final int ROUTE_CACHE_CAPACITY = 2048;
+
+    /** Largest number of sources times targets a single distance matrix request may ask for. */
+    public static final int MAX_MATRIX_CELLS = 1_000_000;
+
+    /** Number of landmarks GraphSnapshot picks for the A* heuristic, and how it picks them. */
+    public static final int NUM_LANDMARKS = 16;
+    public static final Landmarks.Strategy LANDMARK_STRATEGY = Landmarks.Strategy.AVOID;
+
+    /** Graph singleton instance. */
+    public static StreetMapGraph SEMANTIC_STREET_GRAPH;
+
+    /** Tile archive singleton instance, or null to read the tile files. */
+    public static TileArchive TILE_ARCHIVE;
 
     /** HTTP failed response. */
     public static final int HALT_RESPONSE = 500;
 
+    /** HTTP responses when the browser's copy is current, and when there is no such tile. */
+    public static final int NOT_MODIFIED_RESPONSE = 304;
+    public static final int NOT_FOUND_RESPONSE = 404;
+
+    /** HTTP response when the server turns a request away or gives up on it. */
+    public static final int BUSY_RESPONSE = 503;
+
+    /**
+     * Number of requests processed at once, how many more may wait for a worker,
+     * and how long a request may take before the server gives up on it.
+     */
+    public static final int REQUEST_THREADS = Runtime.getRuntime().availableProcessors();
+    public static final int REQUEST_QUEUE_CAPACITY = 64;
+    public static final long REQUEST_TIMEOUT_MS = 20_000;
+
+    /**
+     * Largest number of threads the web server accepts connections with: one to
+     * wait on each running or queued request, and a few more for the map and
+     * route overlay tiles, which are served on them directly.
+     */
+    public static final int SERVER_THREADS = REQUEST_THREADS + REQUEST_QUEUE_CAPACITY + 8;
+
     /** Flag for deploying the app to the web. */
     public static final boolean HEROKU_DEPLOYMENT = true;
 
@@ -0,0 +1,35 @@
+package huskymaps.utils;
+
+import static huskymaps.utils.Constants.NUM_X_TILES_AT_DEPTH;
+import static huskymaps.utils.Constants.NUM_Y_TILES_AT_DEPTH;
+
+/**
+ * The grid of map tiles at each depth, and the names of their image files,
+ * shared by the server and the tile archive.
+ */
+public class TileGrid {
+
+    /**
+     * Returns whether there is a tile at (x, y) of the given depth.
+     * @param depth The depth of the tile, from 0.
+     * @param x The column of the tile, from the left.
+     * @param y The row of the tile, from the top.
+     * @return Whether the tile is on the map.
+     */
+    public static boolean exists(int depth, int x, int y) {
+        return depth >= 0 && depth < NUM_X_TILES_AT_DEPTH.length
+                && x >= 0 && x < NUM_X_TILES_AT_DEPTH[depth]
+                && y >= 0 && y < NUM_Y_TILES_AT_DEPTH[depth];
+    }
+
+    /**
+     * Returns the name of the image file of the tile at (x, y) of the given depth.
+     * @param depth The depth of the tile, from 0.
+     * @param x The column of the tile, from the left.
+     * @param y The row of the tile, from the top.
+     * @return The file name, e.g. d3_x5_y2.jpg.
+     */
+    public static String filename(int depth, int x, int y) {
+        return "d" + depth + "_x" + x + "_y" + y + ".jpg";
+    }
+}
@@ -0,0 +1,146 @@
+package kdtree;
+
+/**
+ * A max-heap that holds at most a fixed number of keys, each with an int
+ * value, and keeps the smallest keys offered to it: once it is full, a key
+ * below the largest one replaces it. Searches for the k nearest points key it
+ * on squared distance, so the largest key bounds how far they must look. It
+ * may be backed by the caller's arrays, and reset to reuse it for another
+ * search, so a search need not allocate.
+ */
+class BoundedMaxHeap {
+    private double[] keys;
+    private int[] values;
+    private int capacity;
+    private int size;
+
+    /** Instantiates an empty heap of at most capacity keys. */
+    BoundedMaxHeap(int capacity) {
+        this(new double[capacity], new int[capacity], capacity);
+    }
+
+    /** Instantiates an empty heap of at most capacity keys, held in keys and values. */
+    BoundedMaxHeap(double[] keys, int[] values, int capacity) {
+        reset(keys, values, capacity);
+    }
+
+    /** Empties the heap and makes it hold at most capacity keys, in keys and values. */
+    void reset(double[] keys, int[] values, int capacity) {
+        if (capacity < 0 || capacity > keys.length || capacity > values.length) {
+            throw new IllegalArgumentException("Capacity " + capacity + " does not fit the arrays");
+        }
+        this.keys = keys;
+        this.values = values;
+        this.capacity = capacity;
+        size = 0;
+    }
+
+    /** Returns the number of keys in the heap. */
+    int size() {
+        return size;
+    }
+
+    /** Returns whether the heap holds as many keys as it can. */
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Returns the largest key if the heap is full, or infinity if not: offer
+     * only keeps keys below it. A heap that holds nothing keeps no key.
+     */
+    double bound() {
+        if (size < capacity) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return capacity == 0 ? Double.NEGATIVE_INFINITY : keys[0];
+    }
+
+    /** Returns the value of the largest key, which the next key kept evicts once the heap is full. */
+    int maxValue() {
+        return values[0];
+    }
+
+    /**
+     * Adds key with value if key is below bound, evicting the largest key if
+     * the heap is full. Returns whether it was added. Runs in O(log N) time.
+     */
+    boolean offer(double key, int value) {
+        if (!(key < bound())) {
+            return false;
+        }
+        if (size < capacity) {
+            size += 1;
+            siftUp(size - 1, key, value);
+        } else {
+            siftDown(0, key, value);
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the keys and their values into ascending order of key, in place,
+     * and returns how many there are. The heap is empty afterwards, but key
+     * and value (or the arrays it was given) still read the sorted entries.
+     * Runs in O(N log N) time.
+     */
+    int sort() {
+        int n = size;
+        for (int end = n - 1; end > 0; end -= 1) {
+            double key = keys[end];
+            int value = values[end];
+            keys[end] = keys[0];
+            values[end] = values[0];
+            size = end;
+            siftDown(0, key, value);
+        }
+        size = 0;
+        return n;
+    }
+
+    /** Returns the i-th smallest key, once sorted. */
+    double key(int i) {
+        return keys[i];
+    }
+
+    /** Returns the value of the i-th smallest key, once sorted. */
+    int value(int i) {
+        return values[i];
+    }
+
+    /** Places key and value at i, or above it in place of smaller keys. */
+    private void siftUp(int i, double key, int value) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] >= key) {
+                break;
+            }
+            keys[i] = keys[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /** Places key and value at i, or below it in place of larger keys. */
+    private void siftDown(int i, double key, int value) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] > keys[child]) {
+                child += 1;
+            }
+            if (keys[child] <= key) {
+                break;
+            }
+            keys[i] = keys[child];
+            values[i] = values[child];
+            i = child;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+}
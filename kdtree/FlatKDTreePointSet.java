@@ -0,0 +1,367 @@
+package kdtree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A balanced k-d tree stored implicitly in arrays, in breadth-first order:
+ * the children of node i are nodes 2i + 1 and 2i + 2, and nodes at even depths
+ * split on x and at odd depths on y. The coordinates of node i are at 2i and
+ * 2i + 1 of one array, so a search walks down a single array with no pointers
+ * to follow, and the top levels, which every search visits, share cache lines.
+ * The tree is left-balanced, like a binary heap, so it has no gaps.
+ *
+ * Searches are iterative: they keep the far sides still to visit on a small
+ * stack of node indexes, at most one per level, rather than recursing. Each
+ * thread reuses its own stack, so nearest allocates nothing. The tree is
+ * never changed after construction, so any number of threads may search at
+ * once.
+ */
+public class FlatKDTreePointSet implements PointSet {
+    // coordinates[2 * i] and coordinates[2 * i + 1] are the x and y of node i
+    private final double[] coordinates;
+    // the given point of node i, and its index in the given list
+    private final Point[] points;
+    private final int[] indexes;
+    // the most nodes on a path from the root, for an int number of nodes
+    private static final int MAX_HEIGHT = 32;
+    private static final ThreadLocal<Stack> STACK = ThreadLocal.withInitial(Stack::new);
+
+    /**
+     * Instantiates a new flat KDTree with the given points, splitting them at
+     * the median of alternating coordinates. Runs in O(N log N) expected time.
+     * @param points a non-null list of points to include
+     *               (the list is copied, so changes to it after construction
+     *               don't affect the point set)
+     */
+    public FlatKDTreePointSet(List<Point> points) {
+        int n = points.size();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i += 1) {
+            xs[i] = points.get(i).x();
+            ys[i] = points.get(i).y();
+            order[i] = i;
+        }
+        coordinates = new double[2 * n];
+        this.points = new Point[n];
+        indexes = new int[n];
+        build(points, xs, ys, order, 0, n, 0, 0);
+    }
+
+    /**
+     * Places the points in [lo, hi) of xs, ys and order, split first on
+     * coordinate k, as the subtree of node i, reordering them. The left
+     * subtree takes as many points as a left-balanced tree of hi - lo nodes
+     * has on its left.
+     */
+    private void build(List<Point> given, double[] xs, double[] ys, int[] order,
+                       int lo, int hi, int i, int k) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = lo + leftSize(hi - lo);
+        select(xs, ys, order, lo, hi, mid, k);
+        int p = order[mid];
+        coordinates[2 * i] = xs[mid];
+        coordinates[2 * i + 1] = ys[mid];
+        points[i] = given.get(p);
+        indexes[i] = p;
+        build(given, xs, ys, order, lo, mid, 2 * i + 1, 1 - k);
+        build(given, xs, ys, order, mid + 1, hi, 2 * i + 2, 1 - k);
+    }
+
+    /** Returns the number of nodes in the left subtree of a left-balanced tree of n nodes. */
+    static int leftSize(int n) {
+        if (n <= 1) {
+            return 0;
+        }
+        // the depth of the last level, whose nodes fill it from the left
+        int h = 31 - Integer.numberOfLeadingZeros(n);
+        int last = n - ((1 << h) - 1);
+        int half = 1 << (h - 1);
+        return (half - 1) + Math.min(last, half);
+    }
+
+    /**
+     * Quickselect: reorders [lo, hi) of xs, ys and order together so that n
+     * holds what would be there if they were sorted by xs (or ys, if k is 1),
+     * with none above it before it and none below it after it. Runs in
+     * O(hi - lo) expected time.
+     */
+    private static void select(double[] xs, double[] ys, int[] order, int lo, int hi, int n, int k) {
+        double[] values = k == 0 ? xs : ys;
+        hi -= 1;
+        while (lo < hi) {
+            double a = values[lo];
+            double b = values[(lo + hi) >>> 1];
+            double c = values[hi];
+            double pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i += 1;
+                }
+                while (values[j] > pivot) {
+                    j -= 1;
+                }
+                if (i <= j) {
+                    swap(xs, ys, order, i, j);
+                    i += 1;
+                    j -= 1;
+                }
+            }
+            if (n <= j) {
+                hi = j;
+            } else if (n >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(double[] xs, double[] ys, int[] order, int i, int j) {
+        double x = xs[i];
+        xs[i] = xs[j];
+        xs[j] = x;
+        double y = ys[i];
+        ys[i] = ys[j];
+        ys[j] = y;
+        int temp = order[i];
+        order[i] = order[j];
+        order[j] = temp;
+    }
+
+    /**
+     * Returns the point in this set closest to (x, y) in (usually) O(log N) time,
+     * where N is the number of points in this set, or null if it is empty.
+     */
+    @Override
+    public Point nearest(double x, double y) {
+        int node = nearestNode(x, y);
+        return node < 0 ? null : points[node];
+    }
+
+    /**
+     * Returns the index, in the list this set was built from, of the point
+     * closest to (x, y), e.g. to look up what the point stands for in an
+     * array, or -1 if this set is empty.
+     */
+    public int nearestIndex(double x, double y) {
+        int node = nearestNode(x, y);
+        return node < 0 ? -1 : indexes[node];
+    }
+
+    /** Returns the number of points in this set. */
+    public int size() {
+        return points.length;
+    }
+
+    /** Returns the node closest to (x, y), or -1 if there are none. */
+    private int nearestNode(double x, double y) {
+        int n = points.length;
+        Stack stack = STACK.get();
+        int[] far = stack.far;
+        double[] farDistance = stack.farDistance;
+        int top = 0;
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        int current = 0;
+        while (true) {
+            while (current < n) {
+                double dx = x - coordinates[2 * current];
+                double dy = y - coordinates[2 * current + 1];
+                double distance = dx * dx + dy * dy;
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = current;
+                }
+                // the signed distance from the splitting line of current to (x, y)
+                double split = depthParity(current) == 0 ? dx : dy;
+                int left = 2 * current + 1;
+                int near = split > 0 ? left + 1 : left;
+                if (left < n) {
+                    far[top] = split > 0 ? left : left + 1;
+                    farDistance[top] = split * split;
+                    top += 1;
+                }
+                current = near;
+            }
+            // the nearest far side that may still hold a closer point
+            do {
+                if (top == 0) {
+                    return best;
+                }
+                top -= 1;
+            } while (farDistance[top] >= bestDistance);
+            current = far[top];
+        }
+    }
+
+    /**
+     * Returns the k points in this set closest to (x, y), nearest first, in
+     * (usually) O(k log N) time.
+     */
+    @Override
+    public List<Point> kNearest(double x, double y, int k) {
+        int[] nodes = new int[Math.max(0, Math.min(k, points.length))];
+        int n = kNearestNodes(x, y, nodes.length, nodes, new double[nodes.length]);
+        List<Point> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i += 1) {
+            result.add(points[nodes[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the indexes, in the list this set was built from, of the k
+     * points closest to (x, y) into indexes, nearest first, and their
+     * distances from (x, y) into distances. Returns how many it wrote, which
+     * is fewer than k only if this set has fewer points. Does its work in the
+     * given arrays and space kept per thread, so it allocates nothing.
+     * @param indexes an array of at least k elements
+     * @param distances an array of at least k elements
+     */
+    public int kNearestIndexes(double x, double y, int k, int[] indexes, double[] distances) {
+        int n = kNearestNodes(x, y, k, indexes, distances);
+        for (int i = 0; i < n; i += 1) {
+            indexes[i] = this.indexes[indexes[i]];
+        }
+        return n;
+    }
+
+    /** Returns the points in this set at most r away from (x, y), in no particular order. */
+    @Override
+    public List<Point> withinRadius(double x, double y, double r) {
+        int[] nodes = new int[16];
+        int n = withinRadiusNodes(x, y, r, nodes);
+        if (n > nodes.length) {
+            nodes = new int[n];
+            withinRadiusNodes(x, y, r, nodes);
+        }
+        List<Point> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i += 1) {
+            result.add(points[nodes[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the indexes, in the list this set was built from, of the points
+     * at most r away from (x, y) into indexes, in no particular order, and
+     * returns how many there are. If there are more than fit, only the first
+     * indexes.length are written, so call again with an array of the returned
+     * length to get them all. Allocates nothing, as kNearestIndexes.
+     */
+    public int withinRadiusIndexes(double x, double y, double r, int[] indexes) {
+        int n = withinRadiusNodes(x, y, r, indexes);
+        for (int i = 0; i < Math.min(n, indexes.length); i += 1) {
+            indexes[i] = this.indexes[indexes[i]];
+        }
+        return n;
+    }
+
+    /**
+     * Writes the k nodes closest to (x, y) into nodes, nearest first, and
+     * their distances into distances, and returns how many it wrote. The
+     * arrays hold a bounded max-heap during the search: far sides are skipped
+     * the same way as in nearestNode, against the farthest of the nearest so far.
+     */
+    private int kNearestNodes(double x, double y, int k, int[] nodes, double[] distances) {
+        int n = points.length;
+        if (k > nodes.length || k > distances.length) {
+            throw new IllegalArgumentException("Arrays too short for " + k + " points");
+        }
+        Stack stack = STACK.get();
+        BoundedMaxHeap heap = stack.heap;
+        heap.reset(distances, nodes, Math.max(0, Math.min(k, n)));
+        int[] far = stack.far;
+        double[] farDistance = stack.farDistance;
+        int top = 0;
+        // a heap with no room is full from the start
+        int current = heap.isFull() ? n : 0;
+        while (true) {
+            while (current < n) {
+                double dx = x - coordinates[2 * current];
+                double dy = y - coordinates[2 * current + 1];
+                heap.offer(dx * dx + dy * dy, current);
+                double split = depthParity(current) == 0 ? dx : dy;
+                int left = 2 * current + 1;
+                int near = split > 0 ? left + 1 : left;
+                if (left < n) {
+                    far[top] = split > 0 ? left : left + 1;
+                    farDistance[top] = split * split;
+                    top += 1;
+                }
+                current = near;
+            }
+            do {
+                if (top == 0) {
+                    int found = heap.sort();
+                    for (int i = 0; i < found; i += 1) {
+                        distances[i] = Math.sqrt(distances[i]);
+                    }
+                    return found;
+                }
+                top -= 1;
+            } while (farDistance[top] >= heap.bound());
+            current = far[top];
+        }
+    }
+
+    /**
+     * Writes the nodes at most r away from (x, y) into the start of nodes, as
+     * many as fit, and returns how many there are.
+     */
+    private int withinRadiusNodes(double x, double y, double r, int[] nodes) {
+        int n = points.length;
+        double r2 = r * r;
+        int[] far = STACK.get().far;
+        int top = 0;
+        int found = 0;
+        int current = r >= 0 ? 0 : n;
+        while (true) {
+            while (current < n) {
+                double dx = x - coordinates[2 * current];
+                double dy = y - coordinates[2 * current + 1];
+                if (dx * dx + dy * dy <= r2) {
+                    if (found < nodes.length) {
+                        nodes[found] = current;
+                    }
+                    found += 1;
+                }
+                double split = depthParity(current) == 0 ? dx : dy;
+                int left = 2 * current + 1;
+                if (left < n && split * split <= r2) {
+                    far[top] = split > 0 ? left : left + 1;
+                    top += 1;
+                }
+                current = split > 0 ? left + 1 : left;
+            }
+            if (top == 0) {
+                return found;
+            }
+            top -= 1;
+            current = far[top];
+        }
+    }
+
+    /** Returns 0 if node i is at an even depth, so splits on x, and 1 otherwise. */
+    private static int depthParity(int i) {
+        return (31 - Integer.numberOfLeadingZeros(i + 1)) & 1;
+    }
+
+    /**
+     * The far children a search has still to visit, and the squared distance
+     * to their splitting lines, at most one per level; and the heap of the
+     * nearest points so far, which kNearestNodes points at its arrays.
+     */
+    private static class Stack {
+        final int[] far = new int[MAX_HEIGHT];
+        final double[] farDistance = new double[MAX_HEIGHT];
+        final BoundedMaxHeap heap = new BoundedMaxHeap(0);
+    }
+}
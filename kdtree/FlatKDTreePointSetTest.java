@@ -0,0 +1,175 @@
+package kdtree;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FlatKDTreePointSetTest {
+
+    /** Checks that set finds points as near as a linear scan does, for random queries. */
+    private static void assertMatchesNaive(List<Point> points, FlatKDTreePointSet set, Random random) {
+        PointSet naive = new NaivePointSet(points);
+        for (int i = 0; i < 2000; i += 1) {
+            double x = random.nextDouble() * 1.2 - 0.1;
+            double y = random.nextDouble() * 1.2 - 0.1;
+            double expected = naive.nearest(x, y).distanceSquaredTo(x, y);
+            assertEquals(expected, set.nearest(x, y).distanceSquaredTo(x, y), 0.0);
+            assertEquals(expected, points.get(set.nearestIndex(x, y)).distanceSquaredTo(x, y), 0.0);
+        }
+    }
+
+    @Test
+    public void testSimple() {
+        Point p1 = new Point(1.1, 2.2);
+        Point p2 = new Point(3.3, 4.4);
+        Point p3 = new Point(-2.9, 4.2);
+        FlatKDTreePointSet set = new FlatKDTreePointSet(List.of(p1, p2, p3));
+        // the given points, not copies
+        assertSame(p2, set.nearest(3.0, 4.0));
+        assertEquals(1, set.nearestIndex(3.0, 4.0));
+        assertEquals(2, set.nearestIndex(-3, 4));
+        assertEquals(0, set.nearestIndex(1.1, 2.2));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void testEmpty() {
+        FlatKDTreePointSet set = new FlatKDTreePointSet(List.of());
+        assertEquals(0, set.size());
+        assertNull(set.nearest(1, 2));
+        assertEquals(-1, set.nearestIndex(1, 2));
+    }
+
+    @Test
+    public void testEverySmallSize() {
+        // every shape of the last level of the tree
+        Random random = new Random(373);
+        for (int n = 1; n <= 70; n += 1) {
+            List<Point> points = new ArrayList<>();
+            for (int i = 0; i < n; i += 1) {
+                points.add(new Point(random.nextDouble(), random.nextDouble()));
+            }
+            FlatKDTreePointSet set = new FlatKDTreePointSet(points);
+            assertEquals(n, set.size());
+            for (int i = 0; i < n; i += 1) {
+                assertEquals(i, set.nearestIndex(points.get(i).x(), points.get(i).y()));
+            }
+            assertMatchesNaive(points, set, random);
+        }
+    }
+
+    @Test
+    public void testLargeAndDegenerate() {
+        Random random = new Random(61);
+        List<Point> uniform = new ArrayList<>();
+        List<Point> sorted = new ArrayList<>();
+        List<Point> grid = new ArrayList<>();
+        for (int i = 0; i < 100000; i += 1) {
+            uniform.add(new Point(random.nextDouble(), random.nextDouble()));
+            sorted.add(new Point(i / 100000.0, i / 100000.0));
+            // many points share each coordinate, and some are equal
+            grid.add(new Point(random.nextInt(50) / 50.0, random.nextInt(50) / 50.0));
+        }
+        for (List<Point> points : List.of(uniform, sorted, grid)) {
+            assertMatchesNaive(points, new FlatKDTreePointSet(points), random);
+        }
+        // the points list is left as it was
+        assertEquals(new Point(0.5, 0.5), sorted.get(50000));
+    }
+
+    @Test
+    public void testLeftSize() {
+        assertEquals(0, FlatKDTreePointSet.leftSize(1));
+        assertEquals(1, FlatKDTreePointSet.leftSize(2));
+        assertEquals(1, FlatKDTreePointSet.leftSize(3));
+        assertEquals(2, FlatKDTreePointSet.leftSize(4));
+        assertEquals(3, FlatKDTreePointSet.leftSize(6));
+        assertEquals(3, FlatKDTreePointSet.leftSize(7));
+        assertEquals(4, FlatKDTreePointSet.leftSize(8));
+        assertEquals(7, FlatKDTreePointSet.leftSize(11));
+        assertEquals(7, FlatKDTreePointSet.leftSize(12));
+        assertEquals(7, FlatKDTreePointSet.leftSize(15));
+    }
+
+    @Test
+    public void testNeighbors() {
+        Random random = new Random(42);
+        for (int n : new int[]{1, 2, 7, 64, 5000}) {
+            List<Point> points = new ArrayList<>();
+            for (int i = 0; i < n; i += 1) {
+                points.add(new Point(random.nextInt(40) / 40.0, random.nextDouble()));
+            }
+            KDTreePointSetTest.assertNeighborsMatch(points, new FlatKDTreePointSet(points), random);
+        }
+    }
+
+    @Test
+    public void testNeighborIndexes() {
+        Random random = new Random(7);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i += 1) {
+            points.add(new Point(random.nextDouble(), random.nextDouble()));
+        }
+        FlatKDTreePointSet set = new FlatKDTreePointSet(points);
+        int[] indexes = new int[5];
+        double[] distances = new double[5];
+        assertEquals(5, set.kNearestIndexes(0.5, 0.5, 5, indexes, distances));
+        List<Point> nearest = set.kNearest(0.5, 0.5, 5);
+        for (int i = 0; i < 5; i += 1) {
+            assertSame(nearest.get(i), points.get(indexes[i]));
+            assertEquals(Math.sqrt(nearest.get(i).distanceSquaredTo(0.5, 0.5)), distances[i], 1e-12);
+        }
+
+        List<Point> within = set.withinRadius(0.5, 0.5, 0.1);
+        int[] few = new int[3];
+        // tells how many there are even if they don't fit
+        assertEquals(within.size(), set.withinRadiusIndexes(0.5, 0.5, 0.1, few));
+        int[] all = new int[within.size()];
+        assertEquals(within.size(), set.withinRadiusIndexes(0.5, 0.5, 0.1, all));
+        for (int i = 0; i < all.length; i += 1) {
+            assertTrue(within.contains(points.get(all[i])));
+        }
+        assertEquals(0, set.withinRadiusIndexes(0.5, 0.5, -1, few));
+    }
+
+    @Test
+    public void testSearchesDoNotAllocate() {
+        Random random = new Random(11);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 10000; i += 1) {
+            points.add(new Point(random.nextDouble(), random.nextDouble()));
+        }
+        FlatKDTreePointSet set = new FlatKDTreePointSet(points);
+        int[] indexes = new int[8];
+        double[] distances = new double[8];
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+        long sum = 0;
+        for (int round = 0; round < 2; round += 1) {
+            // the first round warms up the thread's stacks
+            long before = threads.getThreadAllocatedBytes(id);
+            for (int i = 0; i < 1000; i += 1) {
+                double x = (i % 100) / 100.0;
+                double y = (i / 100) / 10.0;
+                sum += set.nearestIndex(x, y);
+                sum += set.kNearestIndexes(x, y, 8, indexes, distances);
+                sum += set.withinRadiusIndexes(x, y, 0.02, indexes);
+            }
+            long allocated = threads.getThreadAllocatedBytes(id) - before;
+            if (round == 1) {
+                // allow for the measurement itself, but not for a few bytes per search
+                assertTrue("allocated " + allocated + " bytes", allocated < 1000);
+            }
+        }
+        assertTrue(sum > 0);
+    }
+}
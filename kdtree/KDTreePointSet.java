@@ -1,41 +1,189 @@
 package kdtree;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class KDTreePointSet implements PointSet {
+    /** Smallest subtree the parallel bulk build splits into two tasks. */
+    private static final int PARALLEL_THRESHOLD = 1 << 13;
 
     private KDNode root;
+    private int size;
     private Point result;
 
     /**
-     * Instantiates a new KDTree with the given points.
+     * Instantiates a new KDTree with the given points, inserted one at a time
+     * in the given order. The tree is only as balanced as the order is random:
+     * sorted points make it a linked list. Prefer balanced.
      * @param points a non-null, non-empty list of points to include
      *               (makes a defensive copy of points, so changes to the list
      *               after construction don't affect the point set)
      */
     public KDTreePointSet(List<Point> points) {
         root = new KDNode(points.get(0), 0);
+        size = points.size();
         for (int i = 1; i < points.size(); i++) {
             addNode(root, points.get(i));
         }
     }
 
+    /**
+     * Returns a KDTree of the given points built by splitting them at the
+     * median of alternating coordinates, so its depth is at most log2(N) + 1
+     * whatever their order. Runs in O(N log N) expected time.
+     * @param points a non-null, non-empty list of points to include
+     * @param parallel whether to build large subtrees in parallel on the
+     *                 common fork-join pool
+     */
+    public static KDTreePointSet balanced(List<Point> points, boolean parallel) {
+        return new KDTreePointSet(points.toArray(new Point[0]), parallel);
+    }
+
+    /** Same as above, in parallel. */
+    public static KDTreePointSet balanced(List<Point> points) {
+        return balanced(points, true);
+    }
+
+    private KDTreePointSet(Point[] points, boolean parallel) {
+        if (points.length == 0) {
+            throw new IllegalArgumentException("No points");
+        }
+        size = points.length;
+        if (parallel && points.length >= PARALLEL_THRESHOLD) {
+            root = ForkJoinPool.commonPool().invoke(new BuildTask(points, 0, points.length, 0));
+        } else {
+            root = build(points, 0, points.length, 0);
+        }
+    }
+
+    /** Inserts pp below node without recursion, since an unbalanced tree may be very deep. */
     private void addNode(KDNode node, Point pp) {
-        if (node.rightTop(pp)) {
-            if (node.right == null) {
-                node.right = new KDNode(pp, node.k + 1);
+        while (true) {
+            if (node.rightTop(pp)) {
+                if (node.right == null) {
+                    node.right = new KDNode(pp, node.k + 1);
+                    return;
+                }
+                node = node.right;
             } else {
-                addNode(node.right, pp);
+                if (node.left == null) {
+                    node.left = new KDNode(pp, node.k + 1);
+                    return;
+                }
+                node = node.left;
             }
-        } else {
-            if (node.left == null) {
-                node.left = new KDNode(pp, node.k + 1);
+        }
+    }
+
+    /**
+     * Returns the balanced tree of points[lo, hi) split first on coordinate k,
+     * reordering them. The median goes to the node, the points at or below it
+     * to the left and the points at or above it to the right. Both sides may
+     * hold points equal to the median, which nearest allows for.
+     */
+    private KDNode build(Point[] points, int lo, int hi, int k) {
+        if (lo >= hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(points, lo, hi, mid, k);
+        KDNode node = new KDNode(points[mid], k);
+        node.left = build(points, lo, mid, 1 - k);
+        node.right = build(points, mid + 1, hi, 1 - k);
+        return node;
+    }
+
+    /** Builds the two halves of large subtrees as separate tasks. */
+    private class BuildTask extends RecursiveTask<KDNode> {
+        private static final long serialVersionUID = 1L;
+        private final Point[] points;
+        private final int lo;
+        private final int hi;
+        private final int k;
+
+        BuildTask(Point[] points, int lo, int hi, int k) {
+            this.points = points;
+            this.lo = lo;
+            this.hi = hi;
+            this.k = k;
+        }
+
+        @Override
+        protected KDNode compute() {
+            if (hi - lo < PARALLEL_THRESHOLD) {
+                return build(points, lo, hi, k);
+            }
+            int mid = (lo + hi) >>> 1;
+            select(points, lo, hi, mid, k);
+            KDNode node = new KDNode(points[mid], k);
+            BuildTask left = new BuildTask(points, lo, mid, 1 - k);
+            left.fork();
+            node.right = new BuildTask(points, mid + 1, hi, 1 - k).compute();
+            node.left = left.join();
+            return node;
+        }
+    }
+
+    /**
+     * Quickselect: reorders points[lo, hi) so that points[n] is the one that
+     * would be there if they were sorted by coordinate k, with none above it
+     * before it and none below it after it. Runs in O(hi - lo) expected time.
+     */
+    static void select(Point[] points, int lo, int hi, int n, int k) {
+        hi -= 1;
+        while (lo < hi) {
+            double pivot = medianOfThree(coordinate(points[lo], k),
+                    coordinate(points[(lo + hi) >>> 1], k), coordinate(points[hi], k));
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (coordinate(points[i], k) < pivot) {
+                    i += 1;
+                }
+                while (coordinate(points[j], k) > pivot) {
+                    j -= 1;
+                }
+                if (i <= j) {
+                    Point temp = points[i];
+                    points[i] = points[j];
+                    points[j] = temp;
+                    i += 1;
+                    j -= 1;
+                }
+            }
+            // now points[lo, j] <= pivot, points[i, hi] >= pivot and any between equal it
+            if (n <= j) {
+                hi = j;
+            } else if (n >= i) {
+                lo = i;
             } else {
-                addNode(node.left, pp);
+                return;
             }
         }
     }
 
+    private static double coordinate(Point p, int k) {
+        return k == 0 ? p.x() : p.y();
+    }
+
+    private static double medianOfThree(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    /** Returns the number of levels of the tree, e.g. to check its balance. */
+    int height() {
+        return height(root);
+    }
+
+    private static int height(KDNode node) {
+        if (node == null) {
+            return 0;
+        }
+        return 1 + Math.max(height(node.left), height(node.right));
+    }
+
     /**
      * Returns the point in this set closest to (x, y) in (usually) O(log N) time,
      * where N is the number of points in this set.
@@ -74,6 +222,76 @@ public class KDTreePointSet implements PointSet {
         return minDis;
     }
 
+    /**
+     * Returns the k points in this set closest to (x, y), nearest first, in
+     * (usually) O(k log N) time. Prunes the same way as nearest, with the
+     * farthest of the k nearest so far in place of the nearest.
+     */
+    @Override
+    public List<Point> kNearest(double x, double y, int k) {
+        int capacity = Math.max(0, Math.min(k, size));
+        BoundedMaxHeap heap = new BoundedMaxHeap(capacity);
+        // the heap's values index found, and a point evicted from the heap gives up its slot
+        Point[] found = new Point[capacity];
+        findKNearest(root, heap, found, x, y);
+        int n = heap.sort();
+        List<Point> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            points.add(found[heap.value(i)]);
+        }
+        return points;
+    }
+
+    private void findKNearest(KDNode node, BoundedMaxHeap heap, Point[] found, double x, double y) {
+        if (node == null) {
+            return;
+        }
+        double dis = node.data.distanceSquaredTo(x, y);
+        if (dis < heap.bound()) {
+            int slot = heap.isFull() ? heap.maxValue() : heap.size();
+            heap.offer(dis, slot);
+            found[slot] = node.data;
+        }
+        if (node.rightTop(x, y)) {
+            findKNearest(node.right, heap, found, x, y);
+            if (heap.bound() > node.minPossibleDis(x, y)) {
+                findKNearest(node.left, heap, found, x, y);
+            }
+        } else {
+            findKNearest(node.left, heap, found, x, y);
+            if (heap.bound() > node.minPossibleDis(x, y)) {
+                findKNearest(node.right, heap, found, x, y);
+            }
+        }
+    }
+
+    /**
+     * Returns the points in this set at most r away from (x, y), visiting
+     * only the subtrees whose side of the splitting line comes within r.
+     */
+    @Override
+    public List<Point> withinRadius(double x, double y, double r) {
+        List<Point> points = new ArrayList<>();
+        if (r >= 0) {
+            findWithinRadius(root, r * r, points, x, y);
+        }
+        return points;
+    }
+
+    private void findWithinRadius(KDNode node, double r2, List<Point> points, double x, double y) {
+        if (node == null) {
+            return;
+        }
+        if (node.data.distanceSquaredTo(x, y) <= r2) {
+            points.add(node.data);
+        }
+        boolean rightTop = node.rightTop(x, y);
+        findWithinRadius(rightTop ? node.right : node.left, r2, points, x, y);
+        if (node.minPossibleDis(x, y) <= r2) {
+            findWithinRadius(rightTop ? node.left : node.right, r2, points, x, y);
+        }
+    }
+
     // 2D Tree, k = 0 or 1
     private class KDNode {
         private Point data;
@@ -95,7 +313,7 @@ public class KDTreePointSet implements PointSet {
             this(d, k, null, null);
         }
 
-        Boolean rightTop(double x, double y) {
+        boolean rightTop(double x, double y) {
             if (k == 1) {
                 // k == 1, return true for y on the top of this point
                 return y > data.y();
@@ -105,7 +323,7 @@ public class KDTreePointSet implements PointSet {
             }
         }
 
-        Boolean rightTop(Point pp) {
+        boolean rightTop(Point pp) {
             return rightTop(pp.x(), pp.y());
         }
 
@@ -4,6 +4,7 @@ import edu.princeton.cs.algs4.Stopwatch;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -79,5 +80,134 @@ public class KDTreePointSetTest {
         System.out.println("Slow total time elapsed: " + sw.elapsedTime() + " seconds.");
     }
 
+    /** Checks that set finds points as near as a linear scan does, for random queries. */
+    private static void assertMatchesNaive(List<Point> points, PointSet set, Random random) {
+        PointSet naive = new NaivePointSet(points);
+        for (int i = 0; i < 2000; i += 1) {
+            double x = random.nextDouble() * 1.2 - 0.1;
+            double y = random.nextDouble() * 1.2 - 0.1;
+            assertEquals(naive.nearest(x, y).distanceSquaredTo(x, y),
+                    set.nearest(x, y).distanceSquaredTo(x, y), 0.0);
+        }
+    }
+
+    @Test
+    public void testBalanced() {
+        Random random = new Random(373);
+        List<Point> uniform = new ArrayList<>();
+        List<Point> sorted = new ArrayList<>();
+        List<Point> grid = new ArrayList<>();
+        for (int i = 0; i < 100000; i += 1) {
+            uniform.add(new Point(random.nextDouble(), random.nextDouble()));
+            sorted.add(new Point(i / 100000.0, i / 100000.0));
+            // many points share each coordinate, and some are equal
+            grid.add(new Point(random.nextInt(50) / 50.0, random.nextInt(50) / 50.0));
+        }
+        for (List<Point> points : List.of(uniform, sorted, grid)) {
+            for (boolean parallel : new boolean[]{false, true}) {
+                KDTreePointSet set = KDTreePointSet.balanced(points, parallel);
+                // 100000 points fit in 17 levels
+                assertTrue(set.height() <= 17);
+                assertMatchesNaive(points, set, random);
+            }
+        }
+        // the points list is left as it was
+        assertEquals(new Point(0, 0), sorted.get(0));
+        assertEquals(new Point(0.5, 0.5), sorted.get(50000));
+
+        KDTreePointSet single = KDTreePointSet.balanced(List.of(new Point(1, 2)));
+        assertEquals(new Point(1, 2), single.nearest(5, 5));
+        assertEquals(1, single.height());
+    }
+
+    @Test
+    public void testIncrementalSortedDoesNotOverflow() {
+        List<Point> sorted = new ArrayList<>();
+        for (int i = 0; i < 20000; i += 1) {
+            sorted.add(new Point(i, i));
+        }
+        // a linked list 20000 deep, which used to overflow the stack while inserting
+        PointSet set = new KDTreePointSet(sorted);
+        assertEquals(new Point(0, 0), set.nearest(0, 0));
+    }
 
+    @Test
+    public void testSelect() {
+        Random random = new Random(61);
+        for (int trial = 0; trial < 200; trial += 1) {
+            int size = 1 + random.nextInt(50);
+            Point[] points = new Point[size];
+            for (int i = 0; i < size; i += 1) {
+                points[i] = new Point(random.nextInt(10), random.nextInt(10));
+            }
+            int k = random.nextInt(2);
+            int n = random.nextInt(size);
+            double[] expected = new double[size];
+            for (int i = 0; i < size; i += 1) {
+                expected[i] = k == 0 ? points[i].x() : points[i].y();
+            }
+            Arrays.sort(expected);
+            KDTreePointSet.select(points, 0, size, n, k);
+            double median = k == 0 ? points[n].x() : points[n].y();
+            assertEquals(expected[n], median, 0.0);
+            for (int i = 0; i < size; i += 1) {
+                double c = k == 0 ? points[i].x() : points[i].y();
+                assertTrue(i < n ? c <= median : c >= median);
+            }
+        }
+    }
+
+    /**
+     * Checks kNearest and withinRadius of set against sorting every point by
+     * distance, for random queries. Ties may come in any order, so only the
+     * distances are compared.
+     */
+    static void assertNeighborsMatch(List<Point> points, PointSet set, Random random) {
+        double[] distances = new double[points.size()];
+        for (int i = 0; i < 200; i += 1) {
+            double x = random.nextDouble() * 1.2 - 0.1;
+            double y = random.nextDouble() * 1.2 - 0.1;
+            for (int j = 0; j < points.size(); j += 1) {
+                distances[j] = points.get(j).distanceSquaredTo(x, y);
+            }
+            Arrays.sort(distances);
+
+            // sometimes more than there are points
+            int k = 1 + random.nextInt(Math.min(points.size() + 2, 40));
+            List<Point> nearest = set.kNearest(x, y, k);
+            assertEquals(Math.min(k, points.size()), nearest.size());
+            for (int j = 0; j < nearest.size(); j += 1) {
+                assertEquals(distances[j], nearest.get(j).distanceSquaredTo(x, y), 0.0);
+            }
+
+            double r = random.nextDouble() * 0.1;
+            int expected = 0;
+            while (expected < distances.length && distances[expected] <= r * r) {
+                expected += 1;
+            }
+            List<Point> within = set.withinRadius(x, y, r);
+            assertEquals(expected, within.size());
+            for (Point p : within) {
+                assertTrue(p.distanceSquaredTo(x, y) <= r * r);
+            }
+        }
+        assertEquals(0, set.kNearest(0.5, 0.5, 0).size());
+        assertEquals(0, set.withinRadius(0.5, 0.5, -1).size());
+    }
+
+    @Test
+    public void testNeighbors() {
+        Random random = new Random(42);
+        List<Point> uniform = new ArrayList<>();
+        List<Point> grid = new ArrayList<>();
+        for (int i = 0; i < 5000; i += 1) {
+            uniform.add(new Point(random.nextDouble(), random.nextDouble()));
+            grid.add(new Point(random.nextInt(20) / 20.0, random.nextInt(20) / 20.0));
+        }
+        for (List<Point> points : List.of(uniform, grid, uniform.subList(0, 7))) {
+            assertNeighborsMatch(points, new NaivePointSet(points), random);
+            assertNeighborsMatch(points, new KDTreePointSet(points), random);
+            assertNeighborsMatch(points, KDTreePointSet.balanced(points), random);
+        }
+    }
 }
@@ -42,4 +42,35 @@ public class NaivePointSet implements PointSet {
         }
         return result;
     }
+
+    /**
+     * Returns the k points in this set closest to (x, y), nearest first, in
+     * O(N log k) time.
+     */
+    @Override
+    public List<Point> kNearest(double x, double y, int k) {
+        BoundedMaxHeap heap = new BoundedMaxHeap(Math.max(0, Math.min(k, nps.size())));
+        for (int i = 0; i < nps.size(); i++) {
+            heap.offer(nps.get(i).distanceSquaredTo(x, y), i);
+        }
+        int n = heap.sort();
+        List<Point> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(nps.get(heap.value(i)));
+        }
+        return result;
+    }
+
+    /** Returns the points in this set at most r away from (x, y) in O(N) time. */
+    @Override
+    public List<Point> withinRadius(double x, double y, double r) {
+        List<Point> result = new ArrayList<>();
+        double r2 = r * r;
+        for (Point p : nps) {
+            if (r >= 0 && p.distanceSquaredTo(x, y) <= r2) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
 }
@@ -1,6 +1,17 @@
 package kdtree;
 
+import java.util.List;
+
 public interface PointSet {
     /** Returns the point in this set closest to (x, y). */
     Point nearest(double x, double y);
+
+    /**
+     * Returns the k points in this set closest to (x, y), nearest first, or
+     * every point if there are fewer than k. Ties are broken arbitrarily.
+     */
+    List<Point> kNearest(double x, double y, int k);
+
+    /** Returns the points in this set at most r away from (x, y), in no particular order. */
+    List<Point> withinRadius(double x, double y, double r);
 }
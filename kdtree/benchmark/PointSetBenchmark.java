@@ -0,0 +1,145 @@
+package kdtree.benchmark;
+
+import kdtree.FlatKDTreePointSet;
+import kdtree.KDTreePointSet;
+import kdtree.NaivePointSet;
+import kdtree.Point;
+import kdtree.PointSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks comparing how long the PointSet implementations take to
+ * build and to answer nearest queries. SORTED points make the incremental
+ * k-d tree a linked list: its build is quadratic and its queries recurse as
+ * deep as there are points, so they overflow the stack for large sizes by
+ * design. NAIVE builds instantly but answers in linear time. Run larger sizes
+ * without the incremental tree, e.g. -p size=1000000 -p impl=BALANCED,FLAT.
+ * Use main to run the suite and write JSON results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PointSetBenchmark {
+    private static final int SEED = 373;
+    private static final int NUM_QUERIES = 1000;
+
+    /** The point sets, and how they are built. */
+    public enum Impl {
+        NAIVE {
+            PointSet create(List<Point> points) {
+                return new NaivePointSet(points);
+            }
+        },
+        INCREMENTAL {
+            PointSet create(List<Point> points) {
+                return new KDTreePointSet(points);
+            }
+        },
+        BALANCED {
+            PointSet create(List<Point> points) {
+                return KDTreePointSet.balanced(points, false);
+            }
+        },
+        BALANCED_PARALLEL {
+            PointSet create(List<Point> points) {
+                return KDTreePointSet.balanced(points, true);
+            }
+        },
+        FLAT {
+            PointSet create(List<Point> points) {
+                return new FlatKDTreePointSet(points);
+            }
+        };
+
+        abstract PointSet create(List<Point> points);
+    }
+
+    /** How points are drawn. */
+    public enum Distribution {
+        /** Uniform over the unit square, in random order. */
+        UNIFORM,
+        /** Along the diagonal of the unit square, in increasing order. */
+        SORTED
+    }
+
+    @Param({"NAIVE", "INCREMENTAL", "BALANCED", "BALANCED_PARALLEL", "FLAT"})
+    public Impl impl;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"UNIFORM", "SORTED"})
+    public Distribution distribution;
+
+    private List<Point> points;
+    private double[] queries;
+    private PointSet built;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (distribution == Distribution.UNIFORM) {
+                points.add(new Point(random.nextDouble(), random.nextDouble()));
+            } else {
+                double t = (double) i / size;
+                points.add(new Point(t, t));
+            }
+        }
+        queries = new double[2 * NUM_QUERIES];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = random.nextDouble();
+        }
+        built = impl.create(points);
+    }
+
+    /** Builds a point set of size points. */
+    @Benchmark
+    public PointSet build() {
+        return impl.create(points);
+    }
+
+    /** Answers NUM_QUERIES nearest queries at random locations. */
+    @Benchmark
+    public void nearest(Blackhole bh) {
+        for (int i = 0; i < queries.length; i += 2) {
+            bh.consume(built.nearest(queries[i], queries[i + 1]));
+        }
+    }
+
+    /** Runs the suite and writes the results as JSON to the file given as the first argument. */
+    public static void main(String[] args) throws RunnerException {
+        String output = args.length > 0 ? args[0] : "pointset-benchmark.json";
+        Options options = new OptionsBuilder()
+                .include(PointSetBenchmark.class.getSimpleName())
+                .resultFormat(ResultFormatType.JSON)
+                .result(output)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -1,7 +1,7 @@
 package seamcarving;
 
-import astar.AStarGraph;
 import astar.AStarSolver;
+import astar.IndexedAStarGraph;
 import astar.ShortestPathsSolver;
 import astar.WeightedEdge;
 import edu.princeton.cs.algs4.Picture;
@@ -81,7 +81,7 @@ public class AStarSeamCarver implements SeamCarver {
     public int[] findHorizontalSeam() {
         Point start = new Point(-1, -1, 0);
         Point goal = new Point(picture.width(), picture.height(), 0);
-        SeamGraph seam = new SeamGraph();
+        SeamGraph seam = new SeamGraph(0);
         ShortestPathsSolver<Point> solver = new AStarSolver<>(seam, start, goal, 30);
 
         if (solver.outcome() == ShortestPathsSolver.SolverOutcome.SOLVED) {
@@ -99,7 +99,7 @@ public class AStarSeamCarver implements SeamCarver {
     public int[] findVerticalSeam() {
         Point start = new Point(-1, -1, 1);
         Point goal = new Point(picture.width(), picture.height(), 1);
-        SeamGraph seam = new SeamGraph();
+        SeamGraph seam = new SeamGraph(1);
         ShortestPathsSolver<Point> solver = new AStarSolver<>(seam, start, goal, 30);
 
         if (solver.outcome() == ShortestPathsSolver.SolverOutcome.SOLVED) {
@@ -114,7 +114,45 @@ public class AStarSeamCarver implements SeamCarver {
         }
     }
 
-    public class SeamGraph implements AStarGraph<Point> {
+    /**
+     * Graph of pixels for seams in direction d (0 for horizontal, 1 for vertical).
+     * Pixel (x, y) is numbered y * width + x, followed by the virtual start
+     * and goal vertices.
+     */
+    public class SeamGraph implements IndexedAStarGraph<Point> {
+        private final int d;
+
+        public SeamGraph(int d) {
+            this.d = d;
+        }
+
+        @Override
+        public int numVertices() {
+            return picture.width() * picture.height() + 2;
+        }
+
+        @Override
+        public int indexOf(Point p) {
+            int pixels = picture.width() * picture.height();
+            if (p.x() == -1 && p.y() == -1) {
+                return pixels;
+            } else if (p.x() == picture.width() && p.y() == picture.height()) {
+                return pixels + 1;
+            }
+            return p.y() * picture.width() + p.x();
+        }
+
+        @Override
+        public Point vertexAt(int index) {
+            int pixels = picture.width() * picture.height();
+            if (index == pixels) {
+                return new Point(-1, -1, d);
+            } else if (index == pixels + 1) {
+                return new Point(picture.width(), picture.height(), d);
+            }
+            return new Point(index % picture.width(), index / picture.width(), d);
+        }
+
         @Override
         public List<WeightedEdge<Point>> neighbors(Point b) {
             List<WeightedEdge<Point>> neighborEdges = new ArrayList<>();
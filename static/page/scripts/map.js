@@ -11,25 +11,26 @@ $(function() {
 
     /* ══════════════════════════════════ ೋღ PROPERTIES ღೋ ════════════════════════════════ */
     const $body = $('#mapbody');
+    const $tiles = $('#tiles');
+    const $routeTiles = $('#route-tiles');
     const $routeStatus = $('#status-route');
     const $loadingStatus = $('#status-loading');
     const $errorStatus = $('#status-error');
-    const $warningsContainer = $('#status-warnings');
     const $directionsText = $('#directions-text');
     const themeableElements = ['body', '.actions', '.card', '.search', '.ui-autocomplete',
                                 '.status', '.settings', '.clear', '.action-icon'];
     const SAFE_WIDTH = 1120;
     const SAFE_HEIGHT = 800;
     // psuedo-lock
-    var getInProgress = false;
-    var updatePending = false;
     var route_params = {};
-    var map;
     var dest;
     var markers = [];
+    // the shown tiles by depth/x/y, each with its element and its route overlay, if any
+    var tiles = {};
+    var pendingTiles = 0;
+    // changes with every new route, so the overlay's URLs do too; 0 while there is none
+    var route_version = 0;
     var host;
-    var ullon_bound, ullat_bound, lrlon_bound, lrlat_bound;
-    var img_w, img_h;
     var constrain, theme;
 
     const base_move_delta = 64;
@@ -51,7 +52,8 @@ $(function() {
 
     /* Set server URIs */
     host = document.location.origin;
-    const raster_server = host + '/raster';
+    const tile_server = host + '/tile';
+    const route_tile_server = host + '/route_tile';
     const route_server = host + '/route';
     const clear_route = host + '/clear_route';
     const search = host + '/search';
@@ -79,72 +81,136 @@ $(function() {
         markers = [];
     }
 
-    function updateImg() {
-        if (getInProgress) {
-            updatePending = true;
-            return;
+    /* The longitude and latitude spanned by a tile at the current depth. */
+    function get_tile_lon() { return get_londpp() * 256; }
+    function get_tile_lat() { return -get_latdpp() * 256; }
+
+    /* Shows every tile in view, fetching only the ones not already shown. */
+    function updateTiles() {
+        const bounds = get_view_bounds();
+        const tile_lon = get_tile_lon();
+        const tile_lat = get_tile_lat();
+        const x0 = Math.max(0, Math.floor((bounds.ullon - ROOT_ULLON) / tile_lon));
+        const x1 = Math.min(Math.pow(2, depth + 1) - 1, Math.floor((bounds.lrlon - ROOT_ULLON) / tile_lon));
+        const y0 = Math.max(0, Math.floor((ROOT_ULLAT - bounds.ullat) / tile_lat));
+        const y1 = Math.min(Math.pow(2, depth) - 1, Math.floor((ROOT_ULLAT - bounds.lrlat) / tile_lat));
+        var visible = {};
+        for (var y = y0; y <= y1; y += 1) {
+            for (var x = x0; x <= x1; x += 1) {
+                const key = depth + '/' + x + '/' + y;
+                visible[key] = true;
+                if (!tiles[key]) {
+                    tiles[key] = addTile(key, x, y);
+                }
+            }
         }
+        for (const key in tiles) {
+            if (!visible[key]) {
+                removeTile(tiles[key]);
+                delete tiles[key];
+            }
+        }
+    }
 
-        $loadingStatus.show();
-        getInProgress = true;
-        var params = get_view_bounds();
-        console.log(params);
-        $warningsContainer.empty();
-        $.get({
-            async: true,
-            url: raster_server,
-            data: params,
-            success: function(data) {
-                console.log(data);
-                if (data.success) {
-                    $loadingStatus.hide();
-                    map.src = 'data:image/png;base64,' + data.image;
-                    ullon_bound = data.ullon;
-                    ullat_bound = data.ullat;
-                    lrlon_bound = data.lrlon;
-                    lrlat_bound = data.lrlat;
-                    getInProgress = false;
-
-                    updateT();
-                    if (updatePending) {
-                        updatePending = false;
-                        updateImg();
-                    }
-                } else {
-                    $loadingStatus.hide();
-                }
-            },
-            error: function() {
-                getInProgress = false;
+    function addTile(key, x, y) {
+        const tile = {x: x, y: y, element: newTileImage(tile_server + '/' + key, $tiles, true)};
+        if (route_version > 0) {
+            tile.overlay = newTileImage(route_tile_server + '/' + key + '?v=' + route_version,
+                                        $routeTiles, false);
+        }
+        return tile;
+    }
+
+    function removeTile(tile) {
+        removeTileImage(tile.element);
+        if (tile.overlay) {
+            removeTileImage(tile.overlay);
+        }
+    }
+
+    /* Redraws the route overlay over every shown tile after the route changes. */
+    function updateRouteTiles() {
+        for (const key in tiles) {
+            const tile = tiles[key];
+            if (tile.overlay) {
+                removeTileImage(tile.overlay);
+                delete tile.overlay;
+            }
+            if (route_version > 0) {
+                tile.overlay = newTileImage(route_tile_server + '/' + key + '?v=' + route_version,
+                                            $routeTiles, false);
+            }
+        }
+        updateT();
+    }
+
+    function newTileImage(src, $layer, reportErrors) {
+        const img = document.createElement('img');
+        img.className = 'tile';
+        img.draggable = false;
+        img.onload = function() {
+            tileSettled(img);
+        };
+        img.onerror = function() {
+            img.style.visibility = 'hidden';
+            tileSettled(img);
+            if (reportErrors) {
                 $errorStatus.show();
                 setTimeout(function() {
                     $errorStatus.fadeOut();
                 }, 4000);
-            },
-            dataType: 'json'
-        });
+            }
+        };
+        pendingTiles += 1;
+        $loadingStatus.show();
+        img.src = src;
+        $layer.append(img);
+        return img;
+    }
+
+    function removeTileImage(img) {
+        tileSettled(img);
+        img.remove();
+    }
+
+    function tileSettled(img) {
+        if (img.settled) {
+            return;
+        }
+        img.settled = true;
+        pendingTiles -= 1;
+        if (pendingTiles === 0) {
+            $loadingStatus.hide();
+        }
     }
 
     function updateT() {
+        updateTiles();
         var londpp = get_londpp();
         var latdpp = get_latdpp();
         var computed = get_view_bounds();
-        var tx = (ullon_bound - computed.ullon) / londpp;
-        var ty = (ullat_bound - computed.ullat) / latdpp;
+        const tile_lon = get_tile_lon();
+        const tile_lat = get_tile_lat();
 
         var newHash = "lat=" + lat + "&lon=" + lon + "&depth=" + depth;
         history.replaceState(null, null, document.location.pathname + '#' + newHash);
 
-        map.style.transform = 'translateX(' + tx + 'px) translateY(' + ty + 'px)';
+        for (const key in tiles) {
+            const tile = tiles[key];
+            const tx = Math.round((ROOT_ULLON + tile.x * tile_lon - computed.ullon) / londpp);
+            const ty = Math.round((ROOT_ULLAT - tile.y * tile_lat - computed.ullat) / latdpp);
+            const transform = 'translateX(' + tx + 'px) translateY(' + ty + 'px)';
+            tile.element.style.transform = transform;
+            if (tile.overlay) {
+                tile.overlay.style.transform = transform;
+            }
+        }
         for (var i = 0; i < markers.length; i++) {
             const marker = markers[i];
             const marker_tx = (marker.lon - computed.ullon) / londpp;
             const marker_ty = (marker.lat - computed.ullat) / latdpp;
             marker.element.css('transform', 'translateX(' + marker_tx + 'px) translateY(' + marker_ty + 'px)');
         }
-        // validate transform - true if img needs updating
-        return computed.ullon < ullon_bound || computed.ullat > ullat_bound ||
-            computed.lrlon > lrlon_bound || computed.lrlat < lrlat_bound;
     }
 
     function updateRoute() {
@@ -154,26 +220,21 @@ $(function() {
             data: route_params,
             success: function(data) {
                 data = JSON.parse(data);
-                updateImg();
                 if (data.success) {
+                    route_version += 1;
                     $directionsText.html(data.directions);
                 } else {
+                    route_version = 0;
                     $directionsText.html('No routing directions to display.');
                 }
+                updateRouteTiles();
             },
         });
     }
 
-    function conditionalUpdate() {
-        if (updateT()) {
-            console.log('Update required.');
-            updateImg();
-        }
-    }
-
     function zoom(delta) {
         depth += delta;
-        updateImg();
+        updateT();
     }
 
     function zoomIn() {
@@ -274,30 +335,12 @@ $(function() {
 
     /* ══════════════════════════════════ ೋღ SETUP ღೋ ════════════════════════════════ */
 
-    map = document.getElementById('map');
-    map.addEventListener('load', function() {
-            console.log('Updating map with image: ' + map.width + 'x' + map.height);
-            var warnings = [];
-            if (map.width > width + 512) {
-                warnings.push("got much wider image than expected. window width: " + width + ". got: " + map.width);
-            }
-            if (map.height > height + 512) {
-                warnings.push("got much taller image than expected. window height: " + height + ". got: " + map.height);
-            }
-            if (warnings.length > 0) {
-                var ele = $('<div/>', {
-                    class: 'card-content'
-                });
-                ele.html("Warnings:<br>" + warnings.join("<br>"));
-                ele.appendTo($warningsContainer);
-            }
-    })
     dest = document.getElementById('dest');
     dest.style.visibility = 'hidden';
     loadCookies();
     handleHashParameters();
     setTheme();
-    updateImg();
+    updateT();
 
     /* Make search bar do autocomplete things */
     $('#tags').autocomplete({
@@ -357,7 +400,6 @@ $(function() {
       $body.on('mouseup', function(event) {
         $body.off('mousemove');
         $body.off('mouseup');
-        conditionalUpdate();
       });
     });
 
@@ -376,7 +418,8 @@ $(function() {
             success: function() {
                 dest.style.visibility = 'hidden';
                 $directionsText.html('No routing directions to display.');
-                updateImg();
+                route_version = 0;
+                updateRouteTiles();
             },
         });
     });
@@ -419,7 +462,6 @@ $(function() {
             $routeStatus.hide();
             updateRoute();
             dest.style.visibility = 'visible';
-            updateImg();
         } else {
             route_params.start_lon = click_lon;
             route_params.start_lat = click_lat;
@@ -442,19 +484,17 @@ $(function() {
     // Allow for window resizing
     window.onresize = function() {
         handleDimensionChange();
-        updateImg();
     };
 
     window.onhashchange = function() {
         handleHashParameters();
-        updateImg();
+        updateT();
     };
 
     $('#constrain-input').change(function() {
         constrain = $(this).is(':checked');
         updateConstrain();
         setCookie('constrain', constrain);
-        updateImg();
     });
 
     $('input[type=radio][name=theme]').change(function() {
@@ -469,19 +509,19 @@ $(function() {
         switch (e.keyCode) {
             case 37: //left
                 lon -= delta * get_londpp();
-                conditionalUpdate();
+                updateT();
                 break;
             case 38: //up
                 lat -= delta * get_latdpp();
-                conditionalUpdate();
+                updateT();
                 break;
             case 39: //right
                 lon += delta * get_londpp();
-                conditionalUpdate();
+                updateT();
                 break;
             case 40: //down
                 lat += delta * get_latdpp();
-                conditionalUpdate();
+                updateT();
                 break;
             case 189: //minus
                 zoomOut();